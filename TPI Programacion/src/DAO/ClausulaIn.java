@@ -0,0 +1,101 @@
+package DAO;
+/**
+ * @authors
+ * Gaston Alberto Cejas,
+ * Hernan Cóceres,
+ * Claudio Rodriguez,
+ * Hernan E.Bula
+ */
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.List;
+
+/**
+ * Arma las listas {@code IN (?, ?, ...)} de los DAOs con unos pocos tamaños
+ * fijos.
+ *
+ * <p><b>Tamaños fijos:</b> con sentencias preparadas del lado del servidor,
+ * cada largo distinto de la lista es otro texto SQL, es decir otra
+ * preparación en el servidor y otra entrada en la caché de sentencias de la
+ * conexión, que desplaza a las sentencias más usadas. Por eso la cantidad de
+ * marcadores se redondea hacia arriba al siguiente valor de
+ * {@link #TAMANIOS} y los lugares sobrantes repiten el último valor, lo que
+ * no cambia el resultado de un {@code IN}. Cada consulta tiene así a lo sumo
+ * {@code TAMANIOS.length} textos distintos.</p>
+ */
+final class ClausulaIn {
+
+    /**
+     * Tamaños de lista posibles. El mayor coincide con el tamaño de bloque de
+     * los DAOs ({@link ProductoDAO#TAMANIO_LOTE_DEFECTO}).
+     */
+    static final int[] TAMANIOS = {1, 8, 32, 128, 500};
+
+    private ClausulaIn() {
+    }
+
+    /**
+     * Devuelve la cantidad de marcadores que se usa para una lista de
+     * {@code cantidad} valores: el menor de {@link #TAMANIOS} que la
+     * alcanza. Por encima del mayor, se redondea a un múltiplo de él.
+     *
+     * @param cantidad cantidad de valores. Debe ser mayor a 0.
+     * @return cantidad de marcadores, mayor o igual a {@code cantidad}.
+     */
+    static int tamanio(int cantidad) {
+        for (int tamanio : TAMANIOS) {
+            if (cantidad <= tamanio) {
+                return tamanio;
+            }
+        }
+        int mayor = TAMANIOS[TAMANIOS.length - 1];
+        return (cantidad + mayor - 1) / mayor * mayor;
+    }
+
+    /**
+     * Genera los marcadores {@code ?, ?, ...} para una lista de
+     * {@code cantidad} valores, redondeados según {@link #tamanio(int)}.
+     *
+     * @param cantidad cantidad de valores. Debe ser mayor a 0.
+     * @return texto con los marcadores separados por coma.
+     */
+    static String marcadores(int cantidad) {
+        return "?" + ", ?".repeat(tamanio(cantidad) - 1);
+    }
+
+    /**
+     * Asigna los IDs a los marcadores generados por {@link #marcadores(int)},
+     * repitiendo el último en los lugares sobrantes.
+     *
+     * @param stmt         sentencia a completar.
+     * @param primerIndice índice del primer marcador de la lista.
+     * @param ids          IDs de la lista. No debe estar vacía.
+     * @return índice del primer parámetro posterior a la lista.
+     * @throws SQLException si falla la asignación de algún parámetro.
+     */
+    static int setLongs(PreparedStatement stmt, int primerIndice, List<Long> ids) throws SQLException {
+        int total = tamanio(ids.size());
+        for (int i = 0; i < total; i++) {
+            stmt.setLong(primerIndice + i, ids.get(Math.min(i, ids.size() - 1)));
+        }
+        return primerIndice + total;
+    }
+
+    /**
+     * Asigna los valores a los marcadores generados por
+     * {@link #marcadores(int)}, repitiendo el último en los lugares sobrantes.
+     *
+     * @param stmt         sentencia a completar.
+     * @param primerIndice índice del primer marcador de la lista.
+     * @param valores      valores de la lista. No debe estar vacía.
+     * @return índice del primer parámetro posterior a la lista.
+     * @throws SQLException si falla la asignación de algún parámetro.
+     */
+    static int setStrings(PreparedStatement stmt, int primerIndice, List<String> valores) throws SQLException {
+        int total = tamanio(valores.size());
+        for (int i = 0; i < total; i++) {
+            stmt.setString(primerIndice + i, valores.get(Math.min(i, valores.size() - 1)));
+        }
+        return primerIndice + total;
+    }
+}
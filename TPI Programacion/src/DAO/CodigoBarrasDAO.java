@@ -9,15 +9,63 @@ package DAO;
 import config.DatabaseConnection;
 import model.CodigoBarras;
 import model.EnumTipo;
+import model.ResultadoOperacion;
 
 import java.sql.*;
 import java.time.LocalDate;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Stream;
 
 
 public class CodigoBarrasDAO implements GenericDAO<CodigoBarras> {
 
+    /** Cantidad de filas por lote JDBC y de valores por cláusula IN. */
+    public static final int TAMANIO_LOTE_DEFECTO = 500;
+
+    /** Cantidad de filas por viaje a la base de datos usada por {@link #stream()}. */
+    public static final int TAMANIO_FETCH_DEFECTO = 1000;
+
+    /** Campos que puede escribir {@link #actualizar(CodigoBarras, Connection)}, en el orden de las columnas. */
+    private static final List<String> CAMPOS_ACTUALIZABLES = List.of(
+            CodigoBarras.CAMPO_TIPO, CodigoBarras.CAMPO_VALOR,
+            CodigoBarras.CAMPO_FECHA_ASIGNACION, CodigoBarras.CAMPO_OBSERVACIONES);
+
+    /** Código de error de MySQL/MariaDB para una clave única duplicada ({@code ER_DUP_ENTRY}). */
+    private static final int ERROR_CLAVE_DUPLICADA = 1062;
+
+    private static final String SQL_INSERTAR = "INSERT INTO codigo_barras (tipo, valor, fecha_asignacion, observaciones) VALUES (?, ?, ?, ?)";
+
+    /*
+     * Sentencias con filtro, visibles en el paquete para que
+     * VerificadorPlanes revise con EXPLAIN el mismo texto que se ejecuta.
+     */
+
+    static final String SQL_ELIMINAR = "UPDATE codigo_barras SET eliminado = true, fecha_eliminacion = NOW(), version = version + 1 WHERE id = ? AND eliminado = false";
+
+    static final String SQL_RECUPERAR = "UPDATE codigo_barras SET eliminado = false, fecha_eliminacion = NULL, version = version + 1 WHERE id = ? AND eliminado = true";
+
+    static final String SQL_EXISTE_ACTIVO_O_ARCHIVADO = "SELECT 1 FROM codigo_barras WHERE id = ? UNION ALL SELECT 1 FROM codigo_barras_archivo WHERE id = ?";
+
+    static final String SQL_ARCHIVABLES =
+            "SELECT id FROM codigo_barras " +
+            "WHERE eliminado = true AND fecha_eliminacion < NOW() - INTERVAL ? DAY " +
+            "AND NOT EXISTS (SELECT 1 FROM producto p WHERE p.codigo_barras_id = codigo_barras.id) " +
+            "ORDER BY id LIMIT ? FOR UPDATE";
+
+    static final String SQL_POR_ID = "SELECT * FROM codigo_barras WHERE id = ? AND eliminado = false";
+
+    static final String SQL_PAGINA = "SELECT * FROM codigo_barras WHERE id > ? AND eliminado = false ORDER BY id LIMIT ?";
+
+    static final String SQL_POR_VALOR = "SELECT * FROM codigo_barras WHERE valor = ? AND eliminado = false";
+
         /**
      * Inserta un nuevo código de barras usando una conexión propia.
      *
@@ -45,32 +93,86 @@ public class CodigoBarrasDAO implements GenericDAO<CodigoBarras> {
      * @throws Exception si ocurre un error al ejecutar la sentencia SQL.
      */
     public void insertar(CodigoBarras entidad, Connection conn) throws Exception {
-        String sql = "INSERT INTO codigo_barras (tipo, valor, fecha_asignacion, observaciones) VALUES (?, ?, ?, ?)";
         boolean usarConexionExterna = (conn != null);
         
         if (!usarConexionExterna) {
             conn = DatabaseConnection.getConnection();
         }
         
-        try (PreparedStatement stmt = conn.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
+        try (PreparedStatement stmt = conn.prepareStatement(SQL_INSERTAR, Statement.RETURN_GENERATED_KEYS)) {
 
-            stmt.setString(1, entidad.getTipo().name());
-            stmt.setString(2, entidad.getValor());
-            stmt.setDate(3, Date.valueOf(entidad.getFechaAsignacion()));
-            
-            String obsValue = entidad.getObservaciones();
-            
-            if (obsValue != null && !obsValue.trim().isEmpty()) {
-                stmt.setString(4, obsValue.trim());
-            } else {
-                stmt.setNull(4, Types.VARCHAR);
-            }
+            setParametrosInsertar(stmt, entidad);
 
             stmt.executeUpdate();
 
             try (ResultSet rs = stmt.getGeneratedKeys()) {
                 if (rs.next()) {
                     entidad.setId(rs.getLong(1));
+                    entidad.iniciarSeguimientoCambios();
+                }
+            }
+            
+            if (!usarConexionExterna) {
+                conn.commit();
+            }
+        } finally {
+            if (!usarConexionExterna && conn != null) {
+                conn.close();
+            }
+        }
+    }
+
+    /**
+     * Inserta varios códigos de barras usando lotes JDBC ({@code addBatch}/{@code executeBatch}).
+     *
+     * <p>Los códigos se envían en bloques de {@code tamanioLote} filas. Al
+     * terminar cada bloque se leen las claves generadas y se asigna el
+     * {@code id} a cada entidad en el mismo orden de la lista.</p>
+     *
+     * <p>Si {@code conn} es {@code null}, el método crea una nueva conexión
+     * y hace <em>commit</em> al finalizar. Si se pasa una conexión externa,
+     * no se modifica su estado de transacción.</p>
+     *
+     * @param entidades   códigos de barras a insertar. No debe ser {@code null}.
+     * @param tamanioLote cantidad máxima de filas por lote. Debe ser mayor a 0.
+     * @param conn        conexión a reutilizar, o {@code null} para crear una nueva.
+     * @throws IllegalArgumentException si {@code tamanioLote} no es positivo.
+     * @throws Exception si ocurre un error al ejecutar la sentencia SQL o si
+     *                   el driver no devuelve una clave por cada fila.
+     */
+    public void insertarLote(List<CodigoBarras> entidades, int tamanioLote, Connection conn) throws Exception {
+        if (tamanioLote <= 0) {
+            throw new IllegalArgumentException("El tamaño de lote debe ser mayor a 0.");
+        }
+        if (entidades.isEmpty()) {
+            return;
+        }
+        boolean usarConexionExterna = (conn != null);
+        
+        if (!usarConexionExterna) {
+            conn = DatabaseConnection.getConnection();
+        }
+        
+        try (PreparedStatement stmt = conn.prepareStatement(SQL_INSERTAR, Statement.RETURN_GENERATED_KEYS)) {
+
+            for (int desde = 0; desde < entidades.size(); desde += tamanioLote) {
+                List<CodigoBarras> bloque = entidades.subList(desde, Math.min(desde + tamanioLote, entidades.size()));
+
+                for (CodigoBarras entidad : bloque) {
+                    setParametrosInsertar(stmt, entidad);
+                    stmt.addBatch();
+                }
+                stmt.executeBatch();
+
+                int i = 0;
+                try (ResultSet rs = stmt.getGeneratedKeys()) {
+                    while (rs.next() && i < bloque.size()) {
+                        bloque.get(i).setId(rs.getLong(1));
+                        bloque.get(i++).iniciarSeguimientoCambios();
+                    }
+                }
+                if (i != bloque.size()) {
+                    throw new SQLException("El driver devolvió " + i + " claves generadas para " + bloque.size() + " códigos de barras.");
                 }
             }
             
@@ -84,6 +186,27 @@ public class CodigoBarrasDAO implements GenericDAO<CodigoBarras> {
         }
     }
 
+    /**
+     * Asigna los parámetros de {@link #SQL_INSERTAR} a partir de un código de barras.
+     *
+     * @param stmt    sentencia de inserción.
+     * @param entidad código de barras con los datos a insertar.
+     * @throws SQLException si ocurre un error al asignar los parámetros.
+     */
+    private void setParametrosInsertar(PreparedStatement stmt, CodigoBarras entidad) throws SQLException {
+        stmt.setString(1, entidad.getTipo().name());
+        stmt.setString(2, entidad.getValor());
+        stmt.setDate(3, Date.valueOf(entidad.getFechaAsignacion()));
+        
+        String obsValue = entidad.getObservaciones();
+        
+        if (obsValue != null && !obsValue.trim().isEmpty()) {
+            stmt.setString(4, obsValue.trim());
+        } else {
+            stmt.setNull(4, Types.VARCHAR);
+        }
+    }
+
         /**
      * Actualiza un código de barras usando una conexión propia.
      *
@@ -102,16 +225,37 @@ public class CodigoBarrasDAO implements GenericDAO<CodigoBarras> {
    /**
      * Actualiza un código de barras usando una conexión existente.
      *
+     * <p>Solo se escriben las columnas de los campos modificados desde que el
+     * código se leyó o se guardó; si no hubo cambios no se ejecuta ninguna
+     * sentencia.</p>
+     *
+     * <p><b>Estado de la entidad:</b> con conexión propia, tras el commit se
+     * incrementa la versión y el estado actual pasa a considerarse el
+     * persistido. Con una conexión externa la entidad no se modifica: quien
+     * hace el commit debe actualizarla después, si este método devolvió
+     * {@code true}.</p>
+     *
+     * <p><b>Concurrencia optimista:</b> la sentencia exige que la columna
+     * {@code version} coincida con la versión leída y la incrementa; si no
+     * coincide se lanza {@link ConflictoVersionException}.</p>
+     *
      * <p>Si {@code conn} es {@code null}, el método crea una nueva conexión
      * y hace <em>commit</em> al finalizar. Si se pasa una conexión externa,
      * no se modifica su estado de transacción.</p>
      *
      * @param entidad código de barras a actualizar. Debe tener un {@code id} válido.
      * @param conn    conexión a reutilizar, o {@code null} para crear una nueva.
+     * @return {@code true} si se escribió la fila; {@code false} si no había cambios.
+     * @throws ConflictoVersionException si la fila cambió desde que se leyó el código.
      * @throws Exception si ocurre un error al ejecutar la sentencia SQL.
      */
-    public void actualizar(CodigoBarras entidad, Connection conn) throws Exception {
-        String sql = "UPDATE codigo_barras SET tipo = ?, valor = ?, fecha_asignacion = ?, observaciones = ? WHERE id = ?";
+    public boolean actualizar(CodigoBarras entidad, Connection conn) throws Exception {
+        List<String> campos = camposAActualizar(entidad);
+        if (campos.isEmpty()) {
+            return false;
+        }
+
+        String sql = sqlActualizar(campos);
         boolean usarConexionExterna = (conn != null);
         
         if (!usarConexionExterna) {
@@ -120,28 +264,166 @@ public class CodigoBarrasDAO implements GenericDAO<CodigoBarras> {
         
         try (PreparedStatement stmt = conn.prepareStatement(sql)) {
 
-            stmt.setString(1, entidad.getTipo().name());
-            stmt.setString(2, entidad.getValor());
-            stmt.setDate(3, Date.valueOf(entidad.getFechaAsignacion()));
-            
-            if (entidad.getObservaciones() != null && !entidad.getObservaciones().trim().isEmpty()) {
-                stmt.setString(4, entidad.getObservaciones());
-            } else {
-                stmt.setNull(4, Types.VARCHAR);
+            int indice = 1;
+            for (String campo : campos) {
+                setParametroCampo(stmt, indice++, entidad, campo);
             }
             
-            stmt.setLong(5, entidad.getId());
+            stmt.setLong(indice++, entidad.getId());
+            stmt.setLong(indice, entidad.getVersion());
 
-            stmt.executeUpdate();
+            if (stmt.executeUpdate() == 0) {
+                throw new ConflictoVersionException("código de barras", entidad.getId(), entidad.getVersion());
+            }
             
             if (!usarConexionExterna) {
                 conn.commit();
+                entidad.setVersion(entidad.getVersion() + 1);
+                entidad.iniciarSeguimientoCambios();
             }
         } finally {
             if (!usarConexionExterna && conn != null) {
                 conn.close();
             }
         }
+        return true;
+    }
+
+    /**
+     * Determina qué campos debe escribir {@link #actualizar(CodigoBarras, Connection)}:
+     * los modificados si la entidad registra sus cambios, o todos si no.
+     * Se devuelven siempre en el mismo orden para reutilizar la sentencia preparada.
+     *
+     * @param entidad código de barras a actualizar.
+     * @return campos a escribir; vacío si no hubo cambios.
+     */
+    private List<String> camposAActualizar(CodigoBarras entidad) {
+        List<String> campos = new ArrayList<>();
+        for (String campo : CAMPOS_ACTUALIZABLES) {
+            if (!entidad.isSeguimientoCambios() || entidad.getCamposModificados().contains(campo)) {
+                campos.add(campo);
+            }
+        }
+        return campos;
+    }
+
+    /**
+     * @param campos campos a escribir, en el orden de {@link #CAMPOS_ACTUALIZABLES}.
+     * @return sentencia de {@link #actualizar(CodigoBarras, Connection)} para esos campos.
+     */
+    static String sqlActualizar(List<String> campos) {
+        StringBuilder sql = new StringBuilder("UPDATE codigo_barras SET ");
+        for (int i = 0; i < campos.size(); i++) {
+            sql.append(i > 0 ? ", " : "").append(columna(campos.get(i))).append(" = ?");
+        }
+        return sql.append(", version = version + 1 WHERE id = ? AND version = ?").toString();
+    }
+
+    /**
+     * @param eliminar {@code true} para eliminar, {@code false} para recuperar.
+     * @param cantidad cantidad de IDs del bloque.
+     * @return sentencia de {@link #cambiarEstadoPorIds(Collection, boolean, Connection)}.
+     */
+    static String sqlCambiarEstadoPorIds(boolean eliminar, int cantidad) {
+        return "UPDATE codigo_barras SET eliminado = ?, fecha_eliminacion = " + (eliminar ? "NOW()" : "NULL") +
+               ", version = version + 1 " +
+               "WHERE id IN (" + ClausulaIn.marcadores(cantidad) + ") AND eliminado = ?";
+    }
+
+    /**
+     * @param cantidad cantidad de IDs del bloque.
+     * @return copia al archivo de {@link #archivarEliminados(int, int)}.
+     */
+    static String sqlCopiarAlArchivo(int cantidad) {
+        return "INSERT INTO codigo_barras_archivo (id, tipo, valor, fecha_asignacion, observaciones, version, fecha_eliminacion, fecha_archivado) " +
+               "SELECT id, tipo, valor, fecha_asignacion, observaciones, version, fecha_eliminacion, NOW() " +
+               "FROM codigo_barras WHERE id IN (" + ClausulaIn.marcadores(cantidad) + ")";
+    }
+
+    /**
+     * @param cantidad cantidad de IDs del bloque.
+     * @return borrado de la tabla activa de {@link #archivarEliminados(int, int)}.
+     */
+    static String sqlBorrarPorIds(int cantidad) {
+        return "DELETE FROM codigo_barras WHERE id IN (" + ClausulaIn.marcadores(cantidad) + ")";
+    }
+
+    /**
+     * @param cantidad cantidad de IDs del bloque.
+     * @return copia desde el archivo de {@link #restaurarDesdeArchivo(List, Connection)}.
+     */
+    static String sqlRestaurarDesdeArchivo(int cantidad) {
+        return "INSERT INTO codigo_barras (id, tipo, valor, fecha_asignacion, observaciones, version, eliminado, fecha_eliminacion) " +
+               "SELECT a.id, a.tipo, a.valor, a.fecha_asignacion, a.observaciones, a.version + 1, false, NULL " +
+               "FROM codigo_barras_archivo a WHERE a.id IN (" + ClausulaIn.marcadores(cantidad) + ")";
+    }
+
+    /**
+     * @param cantidad cantidad de IDs del bloque.
+     * @return borrado del archivo de {@link #restaurarDesdeArchivo(List, Connection)}.
+     */
+    static String sqlBorrarDelArchivo(int cantidad) {
+        return "DELETE FROM codigo_barras_archivo WHERE id IN (" + ClausulaIn.marcadores(cantidad) + ")";
+    }
+
+    /**
+     * @param cantidad cantidad de IDs del bloque.
+     * @return consulta de {@link #getByIds(Collection)}.
+     */
+    static String sqlPorIds(int cantidad) {
+        return "SELECT * FROM codigo_barras WHERE id IN (" + ClausulaIn.marcadores(cantidad) + ") AND eliminado = false";
+    }
+
+    /**
+     * @param cantidad cantidad de valores del bloque.
+     * @return consulta de {@link #getByValores(Collection, Connection)}.
+     */
+    static String sqlPorValores(int cantidad) {
+        return "SELECT * FROM codigo_barras WHERE valor IN (" + ClausulaIn.marcadores(cantidad) + ") AND eliminado = false";
+    }
+
+    /**
+     * @param cantidad cantidad de valores del bloque.
+     * @return consulta de {@link #getValoresExistentes(Collection, Connection)}.
+     */
+    static String sqlValoresExistentes(int cantidad) {
+        return "SELECT valor FROM codigo_barras WHERE valor IN (" + ClausulaIn.marcadores(cantidad) + ")";
+    }
+
+    /**
+     * @param campo nombre de campo de {@link CodigoBarras}.
+     * @return columna de la tabla {@code codigo_barras} que lo almacena.
+     */
+    private static String columna(String campo) {
+        return switch (campo) {
+            case CodigoBarras.CAMPO_FECHA_ASIGNACION -> "fecha_asignacion";
+            default -> campo;
+        };
+    }
+
+    /**
+     * Asigna el valor de un campo del código de barras a un parámetro de la sentencia.
+     *
+     * @param stmt    sentencia de actualización.
+     * @param indice  posición del parámetro.
+     * @param entidad código de barras con los datos.
+     * @param campo   nombre de campo de {@link CodigoBarras}.
+     * @throws SQLException si ocurre un error al asignar el parámetro.
+     */
+    private void setParametroCampo(PreparedStatement stmt, int indice, CodigoBarras entidad, String campo) throws SQLException {
+        switch (campo) {
+            case CodigoBarras.CAMPO_TIPO -> stmt.setString(indice, entidad.getTipo().name());
+            case CodigoBarras.CAMPO_VALOR -> stmt.setString(indice, entidad.getValor());
+            case CodigoBarras.CAMPO_FECHA_ASIGNACION -> stmt.setDate(indice, Date.valueOf(entidad.getFechaAsignacion()));
+            case CodigoBarras.CAMPO_OBSERVACIONES -> {
+                if (entidad.getObservaciones() != null && !entidad.getObservaciones().trim().isEmpty()) {
+                    stmt.setString(indice, entidad.getObservaciones());
+                } else {
+                    stmt.setNull(indice, Types.VARCHAR);
+                }
+            }
+            default -> throw new IllegalArgumentException("Campo de código de barras desconocido: " + campo);
+        }
     }
 
      /**
@@ -151,12 +433,13 @@ public class CodigoBarrasDAO implements GenericDAO<CodigoBarras> {
      * para el registro indicado.</p>
      *
      * @param id identificador del código de barras a eliminar.
+     * @return resultado de la operación según las filas afectadas.
      * @throws Exception si ocurre un error al acceder a la base de datos.
      * @see #eliminar(long, Connection)
      */
     @Override
-    public void eliminar(long id) throws Exception {
-        eliminar(id, null);
+    public ResultadoOperacion eliminar(long id) throws Exception {
+        return eliminar(id, null);
     }
     
      /**
@@ -166,12 +449,19 @@ public class CodigoBarrasDAO implements GenericDAO<CodigoBarras> {
      * y hace <em>commit</em> al finalizar. Si se pasa una conexión externa,
      * no se modifica su estado de transacción.</p>
      *
+     * <p>El resultado sale de la cantidad de filas afectadas por el
+     * {@code UPDATE} condicional, sin leer el código antes. Solo si no se
+     * afectó ninguna fila se consulta si el código existe, para distinguir
+     * {@link ResultadoOperacion#NO_ENCONTRADO} de
+     * {@link ResultadoOperacion#SIN_CAMBIOS} (ya estaba eliminado).</p>
+     *
      * @param id   identificador del código de barras a eliminar.
      * @param conn conexión a reutilizar, o {@code null} para crear una nueva.
+     * @return resultado de la operación.
      * @throws Exception si ocurre un error al ejecutar la sentencia SQL.
      */
-    public void eliminar(long id, Connection conn) throws Exception {
-        String sql = "UPDATE codigo_barras SET eliminado = true WHERE id = ? AND eliminado = false";
+    public ResultadoOperacion eliminar(long id, Connection conn) throws Exception {
+        String sql = SQL_ELIMINAR;
         boolean usarConexionExterna = (conn != null);
         
         if (!usarConexionExterna) {
@@ -181,11 +471,14 @@ public class CodigoBarrasDAO implements GenericDAO<CodigoBarras> {
         try (PreparedStatement stmt = conn.prepareStatement(sql)) {
 
             stmt.setLong(1, id);
-            stmt.executeUpdate();
+            ResultadoOperacion resultado = (stmt.executeUpdate() == 1)
+                    ? ResultadoOperacion.EXITO
+                    : resultadoSinFilasAfectadas(id, conn);
             
             if (!usarConexionExterna) {
                 conn.commit();
             }
+            return resultado;
         } finally {
             if (!usarConexionExterna && conn != null) {
                 conn.close();
@@ -197,25 +490,31 @@ public class CodigoBarrasDAO implements GenericDAO<CodigoBarras> {
      * Recupera (revierte el soft delete) de un código de barras usando una conexión propia.
      *
      * @param id identificador del código de barras a recuperar.
+     * @return resultado de la operación según las filas afectadas.
      * @throws Exception si ocurre un error al acceder a la base de datos.
      * @see #recuperar(long, Connection)
      */
-    public void recuperar(long id) throws Exception {
-    recuperar(id, null);
-}
+    public ResultadoOperacion recuperar(long id) throws Exception {
+        return recuperar(id, null);
+    }
 
         /**
      * Recupera (revierte el soft delete) de un código de barras usando una conexión existente.
      *
      * <p>Cambia la bandera <code>eliminado</code> a {@code false} si el registro
-     * estaba previamente marcado como eliminado.</p>
+     * estaba previamente marcado como eliminado. Si el código ya no está en la
+     * tabla activa porque fue archivado, se restaura desde el archivo.</p>
+     *
+     * <p>{@link ResultadoOperacion#SIN_CAMBIOS} indica que el código no
+     * estaba eliminado.</p>
      *
      * @param id   identificador del código de barras a recuperar.
      * @param conn conexión a reutilizar, o {@code null} para crear una nueva.
+     * @return resultado de la operación.
      * @throws Exception si ocurre un error al ejecutar la sentencia SQL.
      */
-public void recuperar(long id, Connection conn) throws Exception {
-    String sql = "UPDATE codigo_barras SET eliminado = false WHERE id = ? AND eliminado = true";
+public ResultadoOperacion recuperar(long id, Connection conn) throws Exception {
+    String sql = SQL_RECUPERAR;
     boolean usarConexionExterna = (conn != null);
 
     if (!usarConexionExterna) {
@@ -224,11 +523,14 @@ public void recuperar(long id, Connection conn) throws Exception {
 
     try (PreparedStatement stmt = conn.prepareStatement(sql)) {
         stmt.setLong(1, id);
-        stmt.executeUpdate();
+        ResultadoOperacion resultado = (stmt.executeUpdate() == 1)
+                ? ResultadoOperacion.EXITO
+                : restaurarDesdeArchivo(List.of(id), conn) == 1 ? ResultadoOperacion.EXITO : resultadoSinFilasAfectadas(id, conn);
 
         if (!usarConexionExterna) {
             conn.commit();
         }
+        return resultado;
     } finally {
         if (!usarConexionExterna && conn != null) {
             conn.close();
@@ -236,6 +538,190 @@ public void recuperar(long id, Connection conn) throws Exception {
     }
 }
 
+    /**
+     * Marca como eliminados (soft delete) varios códigos de barras por su identificador.
+     *
+     * <p>Usa {@code UPDATE ... WHERE id IN (...)} en bloques de
+     * {@link #TAMANIO_LOTE_DEFECTO} IDs sobre la misma conexión, en lugar de
+     * una sentencia (y una transacción) por ID. Los ya eliminados o
+     * inexistentes no se cuentan.</p>
+     *
+     * <p>Si {@code conn} es {@code null}, el método crea una nueva conexión
+     * y hace <em>commit</em> al finalizar. Si se pasa una conexión externa,
+     * no se modifica su estado de transacción.</p>
+     *
+     * @param ids  identificadores de los códigos de barras a eliminar. No debe ser {@code null}.
+     * @param conn conexión a reutilizar, o {@code null} para crear una nueva.
+     * @return cantidad de códigos de barras efectivamente eliminados.
+     * @throws Exception si ocurre un error al ejecutar la sentencia SQL.
+     */
+    public int eliminarPorIds(Collection<Long> ids, Connection conn) throws Exception {
+        return cambiarEstadoPorIds(ids, true, conn);
+    }
+
+    /**
+     * Recupera (revierte el soft delete) varios códigos de barras por su identificador.
+     *
+     * @param ids  identificadores de los códigos de barras a recuperar. No debe ser {@code null}.
+     * @param conn conexión a reutilizar, o {@code null} para crear una nueva.
+     * @return cantidad de códigos de barras efectivamente recuperados.
+     * @throws Exception si ocurre un error al ejecutar la sentencia SQL.
+     * @see #eliminarPorIds(Collection, Connection)
+     */
+    public int recuperarPorIds(Collection<Long> ids, Connection conn) throws Exception {
+        return cambiarEstadoPorIds(ids, false, conn);
+    }
+
+    private int cambiarEstadoPorIds(Collection<Long> ids, boolean eliminar, Connection conn) throws Exception {
+        List<Long> lista = new ArrayList<>(new LinkedHashSet<>(ids));
+        if (lista.isEmpty()) {
+            return 0;
+        }
+        boolean usarConexionExterna = (conn != null);
+        
+        if (!usarConexionExterna) {
+            conn = DatabaseConnection.getConnection();
+        }
+        
+        try {
+            int filas = 0;
+            for (int desde = 0; desde < lista.size(); desde += TAMANIO_LOTE_DEFECTO) {
+                List<Long> bloque = lista.subList(desde, Math.min(desde + TAMANIO_LOTE_DEFECTO, lista.size()));
+                try (PreparedStatement stmt = conn.prepareStatement(sqlCambiarEstadoPorIds(eliminar, bloque.size()))) {
+                    stmt.setBoolean(1, eliminar);
+                    int indice = ClausulaIn.setLongs(stmt, 2, bloque);
+                    stmt.setBoolean(indice, !eliminar);
+                    filas += stmt.executeUpdate();
+                }
+            }
+            if (!eliminar) {
+                filas += restaurarDesdeArchivo(lista, conn);
+            }
+            
+            if (!usarConexionExterna) {
+                conn.commit();
+            }
+            return filas;
+        } finally {
+            if (!usarConexionExterna && conn != null) {
+                conn.close();
+            }
+        }
+    }
+
+    /**
+     * Mueve a la tabla {@code codigo_barras_archivo} un bloque de códigos de
+     * barras eliminados lógicamente hace más de {@code diasRetencion} días.
+     *
+     * <p>Selecciona con {@code FOR UPDATE} hasta {@code tamanioLote} filas,
+     * las copia al archivo y las borra de la tabla activa, todo en una
+     * transacción corta sobre una conexión propia. Así las consultas de filas
+     * activas dejan de pagar por filas muertas sin bloquear la tabla durante
+     * mucho tiempo. Para archivar todo, se llama repetidamente hasta que
+     * devuelva {@code 0}.</p>
+     *
+     * <p>Solo se archivan códigos que ningún producto de la tabla activa
+     * referencia, para no disparar el {@code ON DELETE SET NULL} de la clave
+     * foránea. Conviene archivar antes los productos.</p>
+     *
+     * @param diasRetencion días que una fila debe llevar eliminada para archivarse.
+     * @param tamanioLote   cantidad máxima de filas a mover en esta llamada.
+     * @return cantidad de códigos de barras archivados.
+     * @throws Exception si ocurre un error al acceder a la base de datos.
+     */
+    public int archivarEliminados(int diasRetencion, int tamanioLote) throws Exception {
+        try (Connection conn = DatabaseConnection.getConnection()) {
+            conn.setAutoCommit(false);
+            try {
+                List<Long> ids = new ArrayList<>();
+                try (PreparedStatement stmt = conn.prepareStatement(SQL_ARCHIVABLES)) {
+                    stmt.setInt(1, diasRetencion);
+                    stmt.setInt(2, tamanioLote);
+                    try (ResultSet rs = stmt.executeQuery()) {
+                        while (rs.next()) {
+                            ids.add(rs.getLong(1));
+                        }
+                    }
+                }
+                if (!ids.isEmpty()) {
+                    try (PreparedStatement stmt = conn.prepareStatement(sqlCopiarAlArchivo(ids.size()))) {
+                        ClausulaIn.setLongs(stmt, 1, ids);
+                        stmt.executeUpdate();
+                    }
+                    try (PreparedStatement stmt = conn.prepareStatement(sqlBorrarPorIds(ids.size()))) {
+                        ClausulaIn.setLongs(stmt, 1, ids);
+                        stmt.executeUpdate();
+                    }
+                }
+                conn.commit();
+                return ids.size();
+            } catch (Exception e) {
+                conn.rollback();
+                throw e;
+            } finally {
+                conn.setAutoCommit(true);
+            }
+        }
+    }
+
+    /**
+     * Vuelve a insertar en la tabla activa los códigos de barras archivados
+     * indicados, ya recuperados (no eliminados), y los borra del archivo. Los
+     * IDs que no están en el archivo se ignoran.
+     *
+     * <p>Por cada bloque de {@link #TAMANIO_LOTE_DEFECTO} IDs ejecuta un
+     * {@code INSERT ... SELECT} y un {@code DELETE}. Debe ejecutarse dentro
+     * de la transacción de {@code conn} para que la copia y el borrado sean
+     * atómicos.</p>
+     *
+     * <p>Si mientras estaba archivado se creó otro código con el mismo valor,
+     * la restricción {@code UNIQUE} rechaza la inserción del bloque (ver
+     * {@link #esValorDuplicado(SQLException)}).</p>
+     *
+     * @param ids  identificadores de los códigos de barras.
+     * @param conn conexión de la operación.
+     * @return cantidad de códigos de barras restaurados.
+     * @throws SQLException si ocurre un error al ejecutar las sentencias.
+     */
+    private int restaurarDesdeArchivo(List<Long> ids, Connection conn) throws SQLException {
+        int restaurados = 0;
+        for (int desde = 0; desde < ids.size(); desde += TAMANIO_LOTE_DEFECTO) {
+            List<Long> bloque = ids.subList(desde, Math.min(desde + TAMANIO_LOTE_DEFECTO, ids.size()));
+            int filas;
+            try (PreparedStatement stmt = conn.prepareStatement(sqlRestaurarDesdeArchivo(bloque.size()))) {
+                ClausulaIn.setLongs(stmt, 1, bloque);
+                filas = stmt.executeUpdate();
+            }
+            if (filas > 0) {
+                try (PreparedStatement stmt = conn.prepareStatement(sqlBorrarDelArchivo(bloque.size()))) {
+                    ClausulaIn.setLongs(stmt, 1, bloque);
+                    stmt.executeUpdate();
+                }
+                restaurados += filas;
+            }
+        }
+        return restaurados;
+    }
+
+    /**
+     * Determina el resultado de un cambio de estado que no afectó filas:
+     * si el código existe (activo o archivado), ya estaba en el estado pedido.
+     *
+     * @param id   identificador del código de barras.
+     * @param conn conexión de la operación.
+     * @return {@link ResultadoOperacion#SIN_CAMBIOS} o {@link ResultadoOperacion#NO_ENCONTRADO}.
+     * @throws SQLException si ocurre un error al ejecutar la consulta.
+     */
+    private ResultadoOperacion resultadoSinFilasAfectadas(long id, Connection conn) throws SQLException {
+        try (PreparedStatement stmt = conn.prepareStatement(SQL_EXISTE_ACTIVO_O_ARCHIVADO)) {
+            stmt.setLong(1, id);
+            stmt.setLong(2, id);
+            try (ResultSet rs = stmt.executeQuery()) {
+                return rs.next() ? ResultadoOperacion.SIN_CAMBIOS : ResultadoOperacion.NO_ENCONTRADO;
+            }
+        }
+    }
+
     /**
      * Obtiene un código de barras por su identificador.
      *
@@ -247,7 +733,7 @@ public void recuperar(long id, Connection conn) throws Exception {
      */
     @Override
     public CodigoBarras getById(long id) throws Exception {
-        String sql = "SELECT * FROM codigo_barras WHERE id = ? AND eliminado = false";
+        String sql = SQL_POR_ID;
         try (Connection conn = DatabaseConnection.getConnection();
              PreparedStatement stmt = conn.prepareStatement(sql)) {
 
@@ -280,6 +766,119 @@ public void recuperar(long id, Connection conn) throws Exception {
         return lista;
     }
 
+    /**
+     * Recorre todos los códigos de barras activos como un {@link Stream}, con el tamaño
+     * de fetch por defecto.
+     *
+     * @return stream de códigos de barras; debe cerrarse para liberar la conexión.
+     * @throws Exception si ocurre un error al ejecutar la consulta.
+     * @see #stream(int)
+     */
+    public Stream<CodigoBarras> stream() throws Exception {
+        return stream(TAMANIO_FETCH_DEFECTO);
+    }
+
+    /**
+     * Recorre todos los códigos de barras activos como un {@link Stream} sin cargarlos
+     * en una lista.
+     *
+     * <p>El driver trae las filas de a {@code tamanioFetch} por vez (con MySQL,
+     * mediante un cursor del lado del servidor; con MariaDB, leyendo el
+     * resultado a medida que se recorre), por lo que la memoria usada es
+     * constante sin importar el tamaño de la tabla. El stream mantiene ocupada una conexión del pool
+     * hasta que se cierra, por lo que debe usarse con try-with-resources:</p>
+     * <pre>
+     * {@code
+     * try (Stream<CodigoBarras> codigos = dao.stream(1000)) {
+     *     codigos.forEach(exportador::escribir);
+     * }
+     * }
+     * </pre>
+     *
+     * @param tamanioFetch cantidad de filas por viaje a la base de datos. Debe ser mayor a 0.
+     * @return stream de códigos de barras ordenados por {@code id}; al cerrarlo se
+     *         cierra la conexión.
+     * @throws IllegalArgumentException si {@code tamanioFetch} no es positivo.
+     * @throws Exception si ocurre un error al ejecutar la consulta.
+     */
+    public Stream<CodigoBarras> stream(int tamanioFetch) throws Exception {
+        if (tamanioFetch <= 0) {
+            throw new IllegalArgumentException("El tamaño de fetch debe ser mayor a 0.");
+        }
+        String sql = "SELECT * FROM codigo_barras WHERE eliminado = false ORDER BY id";
+        Connection conn = DatabaseConnection.getConnection();
+        PreparedStatement stmt = null;
+        ResultSet rs = null;
+        try {
+            stmt = conn.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            stmt.setFetchSize(tamanioFetch);
+            rs = stmt.executeQuery();
+            return ResultSetStream.crear(conn, stmt, rs, this::mapRow);
+        } catch (SQLException e) {
+            ResultSetStream.cerrar(conn, stmt, rs);
+            throw e;
+        }
+    }
+
+    /**
+     * Recorre los valores de todos los códigos de barras de la tabla, incluidos
+     * los eliminados lógicamente (la restricción UNIQUE de {@code valor} también
+     * los alcanza).
+     *
+     * <p>Solo lee la columna {@code valor}, de a bloques de filas como
+     * {@link #stream(int)}. El stream debe cerrarse para liberar la conexión.</p>
+     *
+     * @return stream de valores; al cerrarlo se cierra la conexión.
+     * @throws Exception si ocurre un error al ejecutar la consulta.
+     */
+    public Stream<String> streamValores() throws Exception {
+        String sql = "SELECT valor FROM codigo_barras";
+        Connection conn = DatabaseConnection.getConnection();
+        PreparedStatement stmt = null;
+        ResultSet rs = null;
+        try {
+            stmt = conn.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            stmt.setFetchSize(TAMANIO_FETCH_DEFECTO);
+            rs = stmt.executeQuery();
+            return ResultSetStream.crear(conn, stmt, rs, fila -> fila.getString("valor"));
+        } catch (SQLException e) {
+            ResultSetStream.cerrar(conn, stmt, rs);
+            throw e;
+        }
+    }
+
+    /**
+     * Obtiene una página de códigos de barras activos ordenados por {@code id}.
+     *
+     * <p>Usa paginación por clave ({@code WHERE id > ? ORDER BY id LIMIT ?})
+     * en lugar de {@code OFFSET}.</p>
+     *
+     * @param despuesDeId se devuelven códigos con {@code id} mayor a este
+     *                    valor; {@code 0} para la primera página.
+     * @param limite      cantidad máxima de códigos. Debe ser mayor a 0.
+     * @return códigos de barras de la página. Nunca es {@code null}.
+     * @throws IllegalArgumentException si {@code limite} no es positivo.
+     * @throws Exception si ocurre un error al acceder a la base de datos.
+     */
+    @Override
+    public List<CodigoBarras> getPage(long despuesDeId, int limite) throws Exception {
+        if (limite <= 0) {
+            throw new IllegalArgumentException("El límite de la página debe ser mayor a 0.");
+        }
+        List<CodigoBarras> lista = new ArrayList<>();
+        String sql = SQL_PAGINA;
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+
+            stmt.setLong(1, despuesDeId);
+            stmt.setInt(2, limite);
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) lista.add(mapRow(rs));
+            }
+        }
+        return lista;
+    }
+
         /**
      * Obtiene un código de barras por su valor, usando una conexión propia.
      *
@@ -303,7 +902,7 @@ public void recuperar(long id, Connection conn) throws Exception {
      * @throws Exception si ocurre un error al ejecutar la consulta.
      */
     public CodigoBarras getByValor(String valor, Connection conn) throws Exception {
-        String sql = "SELECT * FROM codigo_barras WHERE valor = ? AND eliminado = false";
+        String sql = SQL_POR_VALOR;
         boolean usarConexionExterna = (conn != null);
         
         if (!usarConexionExterna) {
@@ -324,6 +923,183 @@ public void recuperar(long id, Connection conn) throws Exception {
         return null;
     }
 
+    /**
+     * Obtiene varios códigos de barras por su identificador en un solo viaje por bloque.
+     *
+     * <p>Resuelve la búsqueda con consultas {@code WHERE id IN (...)} en
+     * bloques de {@link #TAMANIO_LOTE_DEFECTO} IDs sobre una única conexión,
+     * en lugar de una consulta y una conexión por ID. Solo devuelve
+     * registros no eliminados; los IDs repetidos se consultan una vez.</p>
+     *
+     * <p>Cada bloque se completa hasta uno de los tamaños fijos de
+     * {@link ClausulaIn}, para que distintas cantidades de IDs reutilicen las
+     * mismas sentencias preparadas.</p>
+     *
+     * @param ids identificadores a buscar. No debe ser {@code null}.
+     * @return mapa ID → código de barras en el orden de {@code ids}; los IDs
+     *         inexistentes o eliminados no aparecen. Nunca es {@code null}.
+     * @throws Exception si ocurre un error al acceder a la base de datos.
+     */
+    public Map<Long, CodigoBarras> getByIds(Collection<Long> ids) throws Exception {
+        List<Long> lista = new ArrayList<>(new LinkedHashSet<>(ids));
+        Map<Long, CodigoBarras> encontrados = new HashMap<>();
+        if (!lista.isEmpty()) {
+            try (Connection conn = DatabaseConnection.getConnection()) {
+                for (int desde = 0; desde < lista.size(); desde += TAMANIO_LOTE_DEFECTO) {
+                    List<Long> bloque = lista.subList(desde, Math.min(desde + TAMANIO_LOTE_DEFECTO, lista.size()));
+                    try (PreparedStatement stmt = conn.prepareStatement(sqlPorIds(bloque.size()))) {
+                        ClausulaIn.setLongs(stmt, 1, bloque);
+                        try (ResultSet rs = stmt.executeQuery()) {
+                            while (rs.next()) {
+                                CodigoBarras codigo = mapRow(rs);
+                                encontrados.put(codigo.getId(), codigo);
+                            }
+                        }
+                    }
+                }
+            }
+        }
+
+        Map<Long, CodigoBarras> resultado = new LinkedHashMap<>();
+        for (Long id : lista) {
+            CodigoBarras codigo = encontrados.get(id);
+            if (codigo != null) resultado.put(id, codigo);
+        }
+        return resultado;
+    }
+
+    /**
+     * Obtiene varios códigos de barras por su valor, usando una conexión propia.
+     *
+     * @param valores valores exactos a buscar. No debe ser {@code null}.
+     * @return mapa valor → código de barras en el orden de {@code valores}.
+     * @throws Exception si ocurre un error al acceder a la base de datos.
+     * @see #getByValores(Collection, Connection)
+     */
+    public Map<String, CodigoBarras> getByValores(Collection<String> valores) throws Exception {
+        return getByValores(valores, null);
+    }
+
+    /**
+     * Obtiene varios códigos de barras por su valor usando una conexión existente.
+     *
+     * <p>Resuelve la búsqueda con consultas {@code WHERE valor IN (...)} en
+     * bloques de {@link #TAMANIO_LOTE_DEFECTO} valores, en lugar de una
+     * consulta por valor. Solo se tienen en cuenta registros no eliminados;
+     * los valores repetidos se consultan una vez.</p>
+     *
+     * @param valores valores exactos a buscar. No debe ser {@code null}.
+     * @param conn    conexión a reutilizar, o {@code null} para crear una nueva.
+     * @return mapa valor → código de barras en el orden de {@code valores}; los
+     *         valores no registrados no aparecen. Nunca es {@code null}.
+     * @throws Exception si ocurre un error al ejecutar la consulta.
+     */
+    public Map<String, CodigoBarras> getByValores(Collection<String> valores, Connection conn) throws Exception {
+        List<String> lista = new ArrayList<>(new LinkedHashSet<>(valores));
+        Map<String, CodigoBarras> encontrados = new HashMap<>();
+        if (!lista.isEmpty()) {
+            boolean usarConexionExterna = (conn != null);
+
+            if (!usarConexionExterna) {
+                conn = DatabaseConnection.getConnection();
+            }
+
+            try {
+                for (int desde = 0; desde < lista.size(); desde += TAMANIO_LOTE_DEFECTO) {
+                    List<String> bloque = lista.subList(desde, Math.min(desde + TAMANIO_LOTE_DEFECTO, lista.size()));
+                    try (PreparedStatement stmt = conn.prepareStatement(sqlPorValores(bloque.size()))) {
+                        ClausulaIn.setStrings(stmt, 1, bloque);
+                        try (ResultSet rs = stmt.executeQuery()) {
+                            while (rs.next()) {
+                                CodigoBarras codigo = mapRow(rs);
+                                encontrados.put(codigo.getValor(), codigo);
+                            }
+                        }
+                    }
+                }
+            } finally {
+                if (!usarConexionExterna && conn != null) {
+                    conn.close();
+                }
+            }
+        }
+
+        Map<String, CodigoBarras> resultado = new LinkedHashMap<>();
+        for (String valor : lista) {
+            CodigoBarras codigo = encontrados.get(valor);
+            if (codigo != null) resultado.put(valor, codigo);
+        }
+        return resultado;
+    }
+
+    /**
+     * Devuelve cuáles de los valores indicados ya existen en la tabla.
+     *
+     * <p>Resuelve la verificación con consultas {@code WHERE valor IN (...)}
+     * en bloques de {@link #TAMANIO_LOTE_DEFECTO} valores, en lugar de una
+     * consulta por valor. Se consideran también los registros eliminados,
+     * ya que la restricción {@code UNIQUE} de la columna los incluye.</p>
+     *
+     * @param valores valores a verificar. No debe ser {@code null}.
+     * @param conn    conexión a reutilizar, o {@code null} para crear una nueva.
+     * @return conjunto con los valores ya registrados. Nunca es {@code null}.
+     * @throws Exception si ocurre un error al ejecutar la consulta.
+     */
+    public Set<String> getValoresExistentes(Collection<String> valores, Connection conn) throws Exception {
+        Set<String> existentes = new HashSet<>();
+        if (valores.isEmpty()) {
+            return existentes;
+        }
+        List<String> lista = new ArrayList<>(valores);
+        boolean usarConexionExterna = (conn != null);
+        
+        if (!usarConexionExterna) {
+            conn = DatabaseConnection.getConnection();
+        }
+        
+        try {
+            for (int desde = 0; desde < lista.size(); desde += TAMANIO_LOTE_DEFECTO) {
+                List<String> bloque = lista.subList(desde, Math.min(desde + TAMANIO_LOTE_DEFECTO, lista.size()));
+                try (PreparedStatement stmt = conn.prepareStatement(sqlValoresExistentes(bloque.size()))) {
+                    ClausulaIn.setStrings(stmt, 1, bloque);
+                    try (ResultSet rs = stmt.executeQuery()) {
+                        while (rs.next()) existentes.add(rs.getString("valor"));
+                    }
+                }
+            }
+        } finally {
+            if (!usarConexionExterna && conn != null) {
+                conn.close();
+            }
+        }
+        return existentes;
+    }
+
+    /**
+     * Indica si un error de escritura se debe a que el valor del código de
+     * barras ya existe (restricción {@code UNIQUE} de la columna {@code valor}).
+     *
+     * <p>Permite insertar o actualizar sin consultar antes el valor: la base
+     * de datos rechaza el duplicado de forma atómica y el servicio traduce el
+     * error a su excepción de negocio. Revisa también las causas encadenadas,
+     * ya que en los lotes JDBC el error llega dentro de un
+     * {@link BatchUpdateException}.</p>
+     *
+     * @param e error devuelto por {@link #insertar(CodigoBarras, Connection)},
+     *          {@link #insertarLote(List, int, Connection)} o
+     *          {@link #actualizar(CodigoBarras, Connection)}.
+     * @return {@code true} si es un error de clave duplicada.
+     */
+    public static boolean esValorDuplicado(SQLException e) {
+        for (Throwable t = e; t != null; t = t.getCause()) {
+            if (t instanceof SQLException sql && sql.getErrorCode() == ERROR_CLAVE_DUPLICADA) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+
     /**
      * Mapea la fila actual de un {@link ResultSet} a un objeto {@link CodigoBarras}.
      *
@@ -350,6 +1126,9 @@ public void recuperar(long id, Connection conn) throws Exception {
 
         String observaciones = rs.getString("observaciones");
 
-        return new CodigoBarras(id, eliminado, tipo, valor, fecha, observaciones);
+        CodigoBarras codigo = new CodigoBarras(id, eliminado, tipo, valor, fecha, observaciones);
+        codigo.setVersion(rs.getLong("version"));
+        codigo.iniciarSeguimientoCambios();
+        return codigo;
     }
 }
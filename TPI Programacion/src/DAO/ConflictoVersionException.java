@@ -0,0 +1,51 @@
+package DAO;
+/**
+ * @authors
+ * Gaston Alberto Cejas,
+ * Hernan Cóceres,
+ * Claudio Rodriguez,
+ * Hernan E.Bula
+ */
+
+/**
+ * Indica que una actualización no se aplicó porque la fila fue modificada
+ * (o eliminada) por otra transacción desde que se leyó la entidad.
+ *
+ * <p>Es el resultado del control de concurrencia optimista: el
+ * {@code UPDATE} incluye {@code WHERE version = ?} y no afecta ninguna fila
+ * si la versión cambió. Quien la recibe puede volver a leer la entidad,
+ * reaplicar sus cambios y reintentar.</p>
+ */
+public class ConflictoVersionException extends Exception {
+
+    private static final long serialVersionUID = 1L;
+
+    private final String entidad;
+    private final long id;
+    private final long versionEsperada;
+
+    /**
+     * @param entidad         nombre de la entidad (por ejemplo "producto").
+     * @param id              identificador de la fila.
+     * @param versionEsperada versión con la que se intentó actualizar.
+     */
+    public ConflictoVersionException(String entidad, long id, long versionEsperada) {
+        super("El " + entidad + " con ID " + id + " fue modificado o eliminado por otro usuario "
+                + "(versión leída: " + versionEsperada + "). Vuelva a cargarlo e intente nuevamente.");
+        this.entidad = entidad;
+        this.id = id;
+        this.versionEsperada = versionEsperada;
+    }
+
+    public String getEntidad() {
+        return entidad;
+    }
+
+    public long getId() {
+        return id;
+    }
+
+    public long getVersionEsperada() {
+        return versionEsperada;
+    }
+}
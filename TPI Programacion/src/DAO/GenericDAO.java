@@ -7,6 +7,8 @@ package DAO;
  * Claudio Rodriguez, 
  * Hernan E.Bula
  */
+import model.ResultadoOperacion;
+
 import java.util.List;
 
 public interface GenericDAO<T> {
@@ -28,9 +30,10 @@ public interface GenericDAO<T> {
      * Marca como eliminada o elimina una entidad según su identificador.
      *
      * @param id identificador de la entidad a eliminar.
+     * @return resultado según las filas afectadas: eliminada, inexistente o ya eliminada.
      * @throws Exception si ocurre un error al acceder a la fuente de datos.
      */
-    void eliminar(long id) throws Exception;
+    ResultadoOperacion eliminar(long id) throws Exception;
         /**
      * Obtiene una entidad por su identificador.
      *
@@ -46,4 +49,14 @@ public interface GenericDAO<T> {
      * @throws Exception si ocurre un error al acceder a la fuente de datos.
      */
     List<T> getAll() throws Exception;
+        /**
+     * Obtiene una página de entidades ordenadas por identificador
+     * (paginación por clave).
+     *
+     * @param despuesDeId se devuelven entidades con identificador mayor a este valor.
+     * @param limite      cantidad máxima de entidades a devolver.
+     * @return lista de entidades de la página. Nunca debe ser {@code null}.
+     * @throws Exception si ocurre un error al acceder a la fuente de datos.
+     */
+    List<T> getPage(long despuesDeId, int limite) throws Exception;
 }
\ No newline at end of file
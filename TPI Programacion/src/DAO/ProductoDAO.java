@@ -15,14 +15,129 @@ import model.Producto;
 import model.CategoriaProducto;
 import model.CodigoBarras;
 import model.EnumTipo;
+import model.ResultadoOperacion;
 
 import java.sql.*;
 import java.time.LocalDate;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
 
 public class ProductoDAO implements GenericDAO<Producto> {
 
+    /** Cantidad de filas por lote JDBC y de IDs por cláusula IN. */
+    public static final int TAMANIO_LOTE_DEFECTO = 500;
+
+    /**
+     * Largo mínimo de palabra indexado por FULLTEXT en InnoDB
+     * ({@code innodb_ft_min_token_size}); las palabras más cortas no se buscan
+     * en el índice.
+     */
+    private static final int LARGO_MINIMO_TERMINO = 3;
+
+    /** Cantidad de filas por viaje a la base de datos usada por {@link #stream()}. */
+    public static final int TAMANIO_FETCH_DEFECTO = 1000;
+
+    /** Columnas de producto ({@code p}) y de su código de barras ({@code c}) usadas por {@link #mapRowWithJoin(ResultSet)}. */
+    private static final String SQL_COLUMNAS =
+            "SELECT p.id, p.nombre, p.marca, p.categoria, p.precio, p.peso, p.stock, p.eliminado, " +
+            "p.codigo_barras_id, p.version, " +
+            "c.id AS codigo_id, c.tipo AS codigo_tipo, c.valor AS codigo_valor, " +
+            "c.fecha_asignacion AS codigo_fecha, c.observaciones AS codigo_obs, " +
+            "c.eliminado AS codigo_eliminado, c.version AS codigo_version ";
+
+    /** Productos con su código de barras, si tienen (LEFT JOIN). */
+    private static final String SQL_SELECT_CON_CODIGO = SQL_COLUMNAS +
+            "FROM producto p " +
+            "LEFT JOIN codigo_barras c ON p.codigo_barras_id = c.id AND c.eliminado = false ";
+
+    /**
+     * Productos buscados a partir del valor de su código de barras: la consulta
+     * parte de {@code codigo_barras} por el índice único de {@code valor} y
+     * llega a {@code producto} por el índice único de {@code codigo_barras_id}.
+     */
+    private static final String SQL_SELECT_POR_CODIGO = SQL_COLUMNAS +
+            "FROM codigo_barras c " +
+            "JOIN producto p ON p.codigo_barras_id = c.id ";
+
+    private static final String SQL_INSERTAR = "INSERT INTO producto (nombre, marca, categoria, precio, peso, stock, codigo_barras_id) VALUES (?, ?, ?, ?, ?, ?, ?)";
+
+    /** Campos que puede escribir {@link #actualizar(Producto, Connection)}, en el orden de las columnas. */
+    private static final List<String> CAMPOS_ACTUALIZABLES = List.of(
+            Producto.CAMPO_NOMBRE, Producto.CAMPO_MARCA, Producto.CAMPO_CATEGORIA, Producto.CAMPO_PRECIO,
+            Producto.CAMPO_PESO, Producto.CAMPO_STOCK, Producto.CAMPO_CODIGO_BARRAS);
+
+    /** Código de error de MySQL/MariaDB para una clave única duplicada ({@code ER_DUP_ENTRY}). */
+    private static final int ERROR_CLAVE_DUPLICADA = 1062;
+
+    /*
+     * Sentencias con filtro, visibles en el paquete para que
+     * VerificadorPlanes revise con EXPLAIN el mismo texto que se ejecuta.
+     */
+
+    static final String SQL_AJUSTAR_STOCK = "UPDATE producto SET stock = stock + ?, version = version + 1 WHERE id = ? AND eliminado = false AND stock + ? >= 0";
+
+    static final String SQL_ASIGNAR_CODIGO_CON_VERSION = "UPDATE producto SET codigo_barras_id = ?, version = version + 1 WHERE id = ? AND version = ?";
+
+    static final String SQL_ASIGNAR_CODIGO =
+            "UPDATE producto SET codigo_barras_id = ?, version = version + 1 " +
+            "WHERE id = ? AND eliminado = false AND NOT (codigo_barras_id <=> ?) " +
+            "AND EXISTS (SELECT 1 FROM codigo_barras c WHERE c.id = ? AND c.eliminado = false)";
+
+    static final String SQL_MOTIVO_SIN_ASIGNACION =
+            "SELECT (SELECT COUNT(*) FROM codigo_barras c WHERE c.id = ? AND c.eliminado = false) AS codigo_activo " +
+            "FROM producto p WHERE p.id = ? AND p.eliminado = false";
+
+    static final String SQL_ELIMINAR = "UPDATE producto SET eliminado = true, fecha_eliminacion = NOW(), version = version + 1 WHERE id = ? AND eliminado = false";
+
+    static final String SQL_RECUPERAR = "UPDATE producto SET eliminado = false, fecha_eliminacion = NULL, version = version + 1 WHERE id = ? AND eliminado = true";
+
+    static final String SQL_EXISTE_ACTIVO_O_ARCHIVADO = "SELECT 1 FROM producto WHERE id = ? UNION ALL SELECT 1 FROM producto_archivo WHERE id = ?";
+
+    static final String SQL_ARCHIVABLES =
+            "SELECT id FROM producto " +
+            "WHERE eliminado = true AND fecha_eliminacion < NOW() - INTERVAL ? DAY " +
+            "ORDER BY id LIMIT ? FOR UPDATE";
+
+    static final String SQL_ARCHIVADOS_POR_CATEGORIA = "SELECT id FROM producto_archivo WHERE categoria = ? FOR UPDATE";
+
+    static final String SQL_POR_ID = SQL_SELECT_CON_CODIGO +
+            "WHERE p.id = ? AND p.eliminado = false";
+
+    static final String SQL_PAGINA = SQL_SELECT_CON_CODIGO +
+            "WHERE p.id > ? AND p.eliminado = false " +
+            "ORDER BY p.id LIMIT ?";
+
+    static final String SQL_PAGINA_POR_CATEGORIA = SQL_SELECT_CON_CODIGO +
+            "WHERE p.categoria = ? AND p.eliminado = false AND p.id > ? " +
+            "ORDER BY p.id LIMIT ?";
+
+    static final String SQL_CONTAR_POR_CATEGORIA =
+            "SELECT categoria, COUNT(*) AS cantidad FROM producto " +
+            "WHERE eliminado = false AND categoria IS NOT NULL GROUP BY categoria";
+
+    static final String SQL_BUSCAR_FULLTEXT = SQL_SELECT_CON_CODIGO +
+            "WHERE p.eliminado = false AND MATCH(p.nombre, p.marca) AGAINST (? IN BOOLEAN MODE) " +
+            "ORDER BY MATCH(p.nombre, p.marca) AGAINST (? IN BOOLEAN MODE) DESC, p.id " +
+            "LIMIT ? OFFSET ?";
+
+    static final String SQL_BUSCAR_PREFIJO = SQL_SELECT_CON_CODIGO +
+            "WHERE p.eliminado = false AND (p.nombre LIKE ? OR p.marca LIKE ?) " +
+            "ORDER BY p.nombre, p.id " +
+            "LIMIT ? OFFSET ?";
+
+    static final String SQL_POR_NOMBRE = SQL_SELECT_CON_CODIGO +
+            "WHERE p.nombre = ? AND p.eliminado = false";
+
+    static final String SQL_POR_CODIGO_VALOR = SQL_SELECT_POR_CODIGO +
+            "WHERE c.valor = ? AND c.eliminado = false AND p.eliminado = false";
+
         /**
      * Inserta un nuevo producto usando una conexión propia.
      *
@@ -51,153 +166,940 @@ public class ProductoDAO implements GenericDAO<Producto> {
      * @throws Exception si ocurre un error al ejecutar la sentencia SQL.
      */
     public void insertar(Producto entidad, Connection conn) throws Exception {
-        String sql = "INSERT INTO producto (nombre, marca, categoria, precio, peso, stock, codigo_barras_id) VALUES (?, ?, ?, ?, ?, ?, ?)";
         boolean usarConexionExterna = (conn != null);
         
         if (!usarConexionExterna) {
             conn = DatabaseConnection.getConnection();
         }
         
-        try (PreparedStatement stmt = conn.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
+        try (PreparedStatement stmt = conn.prepareStatement(SQL_INSERTAR, Statement.RETURN_GENERATED_KEYS)) {
+            
+            setParametrosInsertar(stmt, entidad);
             
-            stmt.setString(1, entidad.getNombre());
-            stmt.setString(2, entidad.getMarca());
+            stmt.executeUpdate();
+            
+            try (ResultSet rs = stmt.getGeneratedKeys()) {
+                if (rs.next()) {
+                    entidad.setId(rs.getLong(1));
+                    entidad.iniciarSeguimientoCambios();
+                }
+            }
+            
+            if (!usarConexionExterna) {
+                conn.commit();
+            }
+        } finally {
+            if (!usarConexionExterna && conn != null) {
+                conn.close();
+            }
+        }
+    }
+    
+    /**
+     * Inserta varios productos usando lotes JDBC y una conexión propia.
+     *
+     * @param entidades productos a insertar. No debe ser {@code null}.
+     * @throws Exception si ocurre un error al acceder a la base de datos.
+     * @see #insertarLote(List, int, Connection)
+     */
+    public void insertarLote(List<Producto> entidades) throws Exception {
+        insertarLote(entidades, TAMANIO_LOTE_DEFECTO, null);
+    }
+
+    /**
+     * Inserta varios productos usando lotes JDBC ({@code addBatch}/{@code executeBatch}).
+     *
+     * <p>Los productos se envían en bloques de {@code tamanioLote} filas, lo que
+     * reduce los viajes a la base de datos. Al terminar cada bloque se leen
+     * las claves generadas y se asigna el {@code id} a cada entidad en el mismo
+     * orden de la lista.</p>
+     *
+     * <p>Si {@code conn} es {@code null}, el método crea una nueva conexión
+     * y realiza <em>commit</em> al finalizar. Si se pasa una conexión externa,
+     * no se modifica su estado de transacción.</p>
+     *
+     * @param entidades   productos a insertar. No debe ser {@code null}.
+     * @param tamanioLote cantidad máxima de filas por lote. Debe ser mayor a 0.
+     * @param conn        conexión a reutilizar, o {@code null} para crear una nueva.
+     * @throws IllegalArgumentException si {@code tamanioLote} no es positivo.
+     * @throws Exception si ocurre un error al ejecutar la sentencia SQL o si
+     *                   el driver no devuelve una clave por cada fila.
+     */
+    public void insertarLote(List<Producto> entidades, int tamanioLote, Connection conn) throws Exception {
+        if (tamanioLote <= 0) {
+            throw new IllegalArgumentException("El tamaño de lote debe ser mayor a 0.");
+        }
+        if (entidades.isEmpty()) {
+            return;
+        }
+        boolean usarConexionExterna = (conn != null);
+        
+        if (!usarConexionExterna) {
+            conn = DatabaseConnection.getConnection();
+        }
+        
+        try (PreparedStatement stmt = conn.prepareStatement(SQL_INSERTAR, Statement.RETURN_GENERATED_KEYS)) {
+            
+            for (int desde = 0; desde < entidades.size(); desde += tamanioLote) {
+                List<Producto> bloque = entidades.subList(desde, Math.min(desde + tamanioLote, entidades.size()));
+                
+                for (Producto entidad : bloque) {
+                    setParametrosInsertar(stmt, entidad);
+                    stmt.addBatch();
+                }
+                stmt.executeBatch();
+                
+                int i = 0;
+                try (ResultSet rs = stmt.getGeneratedKeys()) {
+                    while (rs.next() && i < bloque.size()) {
+                        bloque.get(i).setId(rs.getLong(1));
+                        bloque.get(i++).iniciarSeguimientoCambios();
+                    }
+                }
+                if (i != bloque.size()) {
+                    throw new SQLException("El driver devolvió " + i + " claves generadas para " + bloque.size() + " productos.");
+                }
+            }
+            
+            if (!usarConexionExterna) {
+                conn.commit();
+            }
+        } finally {
+            if (!usarConexionExterna && conn != null) {
+                conn.close();
+            }
+        }
+    }
+    
+    /**
+     * Asigna los parámetros de {@link #SQL_INSERTAR} a partir de un producto.
+     *
+     * @param stmt    sentencia de inserción.
+     * @param entidad producto con los datos a insertar.
+     * @throws SQLException si ocurre un error al asignar los parámetros.
+     */
+    private void setParametrosInsertar(PreparedStatement stmt, Producto entidad) throws SQLException {
+        stmt.setString(1, entidad.getNombre());
+        stmt.setString(2, entidad.getMarca());
+        
+        String categoriaStr = (entidad.getCategoria() != null) ? entidad.getCategoria().name() : null;
+        stmt.setString(3, categoriaStr);
+        
+        stmt.setDouble(4, entidad.getPrecio());
+        stmt.setDouble(5, entidad.getPeso());
+        stmt.setInt(6, entidad.getStock());
+        
+        if (entidad.getCodigoBarras() != null && entidad.getCodigoBarras().getId() > 0) {
+            stmt.setLong(7, entidad.getCodigoBarras().getId());
+        } else {
+            stmt.setNull(7, Types.BIGINT);
+        }
+    }
+    
+        /**
+     * Actualiza un producto usando una conexión propia.
+     *
+     * <p>Este método crea y gestiona su propia conexión. Para usarlo dentro
+     * de una transacción externa, ver la sobrecarga con {@link Connection}.</p>
+     *
+     * @param entidad producto con los datos actualizados.
+     * @throws Exception si ocurre un error al acceder a la base de datos.
+     * @see #actualizar(Producto, Connection)
+     */
+
+    @Override
+    public void actualizar(Producto entidad) throws Exception {
+        actualizar(entidad, null);
+    }
+    
+      /**
+     * Actualiza un producto usando una conexión existente.
+     *
+     * <p>Solo se escriben las columnas de los campos modificados desde que el
+     * producto se leyó o se guardó (ver {@link model.Base#getCamposModificados()});
+     * si no hubo cambios no se ejecuta ninguna sentencia.</p>
+     *
+     * <p><b>Estado de la entidad:</b> con conexión propia, tras el commit se
+     * incrementa la versión de la entidad y el estado actual pasa a
+     * considerarse el persistido. Con una conexión externa la entidad no se
+     * modifica, porque la transacción todavía puede deshacerse: quien hace el
+     * commit debe actualizarla después, si este método devolvió {@code true}.</p>
+     *
+     * <p><b>Concurrencia optimista:</b> la sentencia exige que la columna
+     * {@code version} coincida con la versión leída y la incrementa. Si otra
+     * transacción modificó o eliminó la fila, no se actualiza nada y se lanza
+     * {@link ConflictoVersionException}, sin haber bloqueado la fila al leerla.</p>
+     *
+     * <p>Si {@code conn} es {@code null}, el método crea una nueva conexión
+     * y realiza <em>commit</em> al finalizar. Si se pasa una conexión externa,
+     * no se modifica su estado de transacción.</p>
+     *
+     * @param entidad producto a actualizar. Debe tener un {@code id} válido.
+     * @param conn    conexión a reutilizar, o {@code null} para crear una nueva.
+     * @return {@code true} si se escribió la fila; {@code false} si no había cambios.
+     * @throws ConflictoVersionException si la fila cambió desde que se leyó el producto.
+     * @throws Exception si ocurre un error al ejecutar la sentencia SQL.
+     */
+    public boolean actualizar(Producto entidad, Connection conn) throws Exception {
+        List<String> campos = camposAActualizar(entidad);
+        if (campos.isEmpty()) {
+            return false;
+        }
+
+        String sql = sqlActualizar(campos);
+        boolean usarConexionExterna = (conn != null);
+        
+        if (!usarConexionExterna) {
+            conn = DatabaseConnection.getConnection();
+        }
+        
+        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
             
-            String categoriaStr = (entidad.getCategoria() != null) ? entidad.getCategoria().name() : null;
-            stmt.setString(3, categoriaStr);
+            int indice = 1;
+            for (String campo : campos) {
+                setParametroCampo(stmt, indice++, entidad, campo);
+            }
             
-            stmt.setDouble(4, entidad.getPrecio());
-            stmt.setDouble(5, entidad.getPeso());
-            stmt.setInt(6, entidad.getStock());
+            stmt.setLong(indice++, entidad.getId());
+            stmt.setLong(indice, entidad.getVersion());
+            if (stmt.executeUpdate() == 0) {
+                throw new ConflictoVersionException("producto", entidad.getId(), entidad.getVersion());
+            }
+            
+            if (!usarConexionExterna) {
+                conn.commit();
+                entidad.setVersion(entidad.getVersion() + 1);
+                entidad.iniciarSeguimientoCambios();
+            }
+        } finally {
+            if (!usarConexionExterna && conn != null) {
+                conn.close();
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Determina qué campos debe escribir {@link #actualizar(Producto, Connection)}.
+     *
+     * <p>Si la entidad registra sus cambios, son solo los campos modificados;
+     * si no (por ejemplo, un producto armado a mano con su {@code id}), son
+     * todos. Se devuelven siempre en el mismo orden para que el mismo conjunto
+     * de cambios genere el mismo SQL y aproveche la caché de sentencias.</p>
+     *
+     * @param entidad producto a actualizar.
+     * @return campos a escribir; vacío si no hubo cambios.
+     */
+    private List<String> camposAActualizar(Producto entidad) {
+        List<String> campos = new ArrayList<>();
+        for (String campo : CAMPOS_ACTUALIZABLES) {
+            if (!entidad.isSeguimientoCambios() || entidad.getCamposModificados().contains(campo)) {
+                campos.add(campo);
+            }
+        }
+        return campos;
+    }
+
+    /**
+     * @param campos campos a escribir, en el orden de {@link #CAMPOS_ACTUALIZABLES}.
+     * @return sentencia de {@link #actualizar(Producto, Connection)} para esos campos.
+     */
+    static String sqlActualizar(List<String> campos) {
+        StringBuilder sql = new StringBuilder("UPDATE producto SET ");
+        for (int i = 0; i < campos.size(); i++) {
+            sql.append(i > 0 ? ", " : "").append(columna(campos.get(i))).append(" = ?");
+        }
+        return sql.append(", version = version + 1 WHERE id = ? AND version = ?").toString();
+    }
+
+    /**
+     * @param eliminar {@code true} para eliminar, {@code false} para recuperar.
+     * @param cantidad cantidad de IDs del bloque.
+     * @return sentencia de {@link #cambiarEstadoPorIds(Collection, boolean, Connection)}.
+     */
+    static String sqlCambiarEstadoPorIds(boolean eliminar, int cantidad) {
+        return "UPDATE producto SET eliminado = ?, fecha_eliminacion = " + (eliminar ? "NOW()" : "NULL") +
+               ", version = version + 1 " +
+               "WHERE id IN (" + ClausulaIn.marcadores(cantidad) + ") AND eliminado = ?";
+    }
+
+    /**
+     * @param eliminar {@code true} para eliminar, {@code false} para recuperar.
+     * @return sentencia de {@link #cambiarEstadoPorCategoria(CategoriaProducto, boolean, Connection)}.
+     */
+    static String sqlCambiarEstadoPorCategoria(boolean eliminar) {
+        return "UPDATE producto SET eliminado = ?, fecha_eliminacion = " + (eliminar ? "NOW()" : "NULL") +
+               ", version = version + 1 WHERE categoria = ? AND eliminado = ?";
+    }
+
+    /**
+     * @param cantidad cantidad de IDs del bloque.
+     * @return copia al archivo de {@link #archivarEliminados(int, int)}.
+     */
+    static String sqlCopiarAlArchivo(int cantidad) {
+        return "INSERT INTO producto_archivo (id, nombre, marca, categoria, precio, peso, stock, codigo_barras_id, version, fecha_eliminacion, fecha_archivado) " +
+               "SELECT id, nombre, marca, categoria, precio, peso, stock, codigo_barras_id, version, fecha_eliminacion, NOW() " +
+               "FROM producto WHERE id IN (" + ClausulaIn.marcadores(cantidad) + ")";
+    }
+
+    /**
+     * @param cantidad cantidad de IDs del bloque.
+     * @return borrado de la tabla activa de {@link #archivarEliminados(int, int)}.
+     */
+    static String sqlBorrarPorIds(int cantidad) {
+        return "DELETE FROM producto WHERE id IN (" + ClausulaIn.marcadores(cantidad) + ")";
+    }
+
+    /**
+     * @param cantidad cantidad de IDs del bloque; la lista se asigna dos veces.
+     * @return copia desde el archivo de {@link #restaurarDesdeArchivo(List, Connection)}.
+     */
+    static String sqlRestaurarDesdeArchivo(int cantidad) {
+        String enIds = "(" + ClausulaIn.marcadores(cantidad) + ")";
+        return "INSERT INTO producto (id, nombre, marca, categoria, precio, peso, stock, codigo_barras_id, version, eliminado, fecha_eliminacion) " +
+               "SELECT a.id, a.nombre, a.marca, a.categoria, a.precio, a.peso, a.stock, " +
+               "CASE WHEN EXISTS (SELECT 1 FROM codigo_barras c WHERE c.id = a.codigo_barras_id AND c.eliminado = false) " +
+               "AND NOT EXISTS (SELECT 1 FROM producto p WHERE p.codigo_barras_id = a.codigo_barras_id) " +
+               "AND NOT EXISTS (SELECT 1 FROM producto_archivo o WHERE o.codigo_barras_id = a.codigo_barras_id " +
+               "AND o.id < a.id AND o.id IN " + enIds + ") " +
+               "THEN a.codigo_barras_id END, a.version + 1, false, NULL " +
+               "FROM producto_archivo a WHERE a.id IN " + enIds;
+    }
+
+    /**
+     * @param cantidad cantidad de IDs del bloque.
+     * @return borrado del archivo de {@link #restaurarDesdeArchivo(List, Connection)}.
+     */
+    static String sqlBorrarDelArchivo(int cantidad) {
+        return "DELETE FROM producto_archivo WHERE id IN (" + ClausulaIn.marcadores(cantidad) + ")";
+    }
+
+    /**
+     * @param cantidad cantidad de IDs del bloque.
+     * @return consulta de {@link #getByIds(Collection)}.
+     */
+    static String sqlPorIds(int cantidad) {
+        return SQL_SELECT_CON_CODIGO +
+               "WHERE p.id IN (" + ClausulaIn.marcadores(cantidad) + ") AND p.eliminado = false";
+    }
+
+    /**
+     * @param cantidad cantidad de IDs de códigos de barras del bloque.
+     * @return consulta de {@link #getByCodigoBarrasIds(Collection)}.
+     */
+    static String sqlPorCodigoBarrasIds(int cantidad) {
+        return SQL_SELECT_CON_CODIGO +
+               "WHERE p.codigo_barras_id IN (" + ClausulaIn.marcadores(cantidad) + ") AND p.eliminado = false";
+    }
+
+    /**
+     * @param cantidad cantidad de valores del bloque.
+     * @return consulta de {@link #getByCodigoValores(Collection)}.
+     */
+    static String sqlPorCodigoValores(int cantidad) {
+        return SQL_SELECT_POR_CODIGO +
+               "WHERE c.valor IN (" + ClausulaIn.marcadores(cantidad) + ") " +
+               "AND c.eliminado = false AND p.eliminado = false";
+    }
+
+    /**
+     * @param campo nombre de campo de {@link Producto}.
+     * @return columna de la tabla {@code producto} que lo almacena.
+     */
+    private static String columna(String campo) {
+        return switch (campo) {
+            case Producto.CAMPO_CODIGO_BARRAS -> "codigo_barras_id";
+            default -> campo;
+        };
+    }
+
+    /**
+     * Asigna el valor de un campo del producto a un parámetro de la sentencia.
+     *
+     * @param stmt    sentencia de actualización.
+     * @param indice  posición del parámetro.
+     * @param entidad producto con los datos.
+     * @param campo   nombre de campo de {@link Producto}.
+     * @throws SQLException si ocurre un error al asignar el parámetro.
+     */
+    private void setParametroCampo(PreparedStatement stmt, int indice, Producto entidad, String campo) throws SQLException {
+        switch (campo) {
+            case Producto.CAMPO_NOMBRE -> stmt.setString(indice, entidad.getNombre());
+            case Producto.CAMPO_MARCA -> stmt.setString(indice, entidad.getMarca());
+            case Producto.CAMPO_CATEGORIA ->
+                stmt.setString(indice, (entidad.getCategoria() != null) ? entidad.getCategoria().name() : null);
+            case Producto.CAMPO_PRECIO -> stmt.setDouble(indice, entidad.getPrecio());
+            case Producto.CAMPO_PESO -> stmt.setDouble(indice, entidad.getPeso());
+            case Producto.CAMPO_STOCK -> stmt.setInt(indice, entidad.getStock());
+            case Producto.CAMPO_CODIGO_BARRAS -> {
+                if (entidad.getCodigoBarras() != null && entidad.getCodigoBarras().getId() > 0) {
+                    stmt.setLong(indice, entidad.getCodigoBarras().getId());
+                } else {
+                    stmt.setNull(indice, Types.BIGINT);
+                }
+            }
+            default -> throw new IllegalArgumentException("Campo de producto desconocido: " + campo);
+        }
+    }
+    
+        /**
+     * Actualiza solo el código de barras asociado a un producto.
+     *
+     * <p>Este método permite asignar o quitar el código de barras sin modificar
+     * el resto de los campos del producto. Al igual que
+     * {@link #actualizar(Producto, Connection)}, verifica la versión leída y,
+     * con una conexión externa, deja a quien hace el commit el incremento de
+     * la versión de la entidad.</p>
+     *
+     * @param entidad producto con el código de barras actualizado.
+     * @param conn    conexión a reutilizar, o {@code null} para crear una nueva.
+     * @throws ConflictoVersionException si la fila cambió desde que se leyó el producto.
+     * @throws Exception si ocurre un error al ejecutar la sentencia SQL.
+     */
+    
+     public void asignarCodigoDeBarras(Producto entidad, Connection conn) throws Exception {
+        String sql = SQL_ASIGNAR_CODIGO_CON_VERSION;
+        boolean usarConexionExterna = (conn != null);
+        
+        if (!usarConexionExterna) {
+            conn = DatabaseConnection.getConnection();
+        }
+        
+        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
             
             if (entidad.getCodigoBarras() != null && entidad.getCodigoBarras().getId() > 0) {
-                stmt.setLong(7, entidad.getCodigoBarras().getId());
+                stmt.setLong(1, entidad.getCodigoBarras().getId());
             } else {
-                stmt.setNull(7, Types.BIGINT);
+                stmt.setNull(1, Types.BIGINT);
             }
             
-            stmt.executeUpdate();
+            stmt.setLong(2, entidad.getId());
+            stmt.setLong(3, entidad.getVersion());
+            if (stmt.executeUpdate() == 0) {
+                throw new ConflictoVersionException("producto", entidad.getId(), entidad.getVersion());
+            }
             
-            try (ResultSet rs = stmt.getGeneratedKeys()) {
-                if (rs.next()) {
-                    entidad.setId(rs.getLong(1));
+            if (!usarConexionExterna) {
+                conn.commit();
+                entidad.setVersion(entidad.getVersion() + 1);
+            }
+        } finally {
+            if (!usarConexionExterna && conn != null) {
+                conn.close();
+            }
+        }
+    }
+
+    /**
+     * Marca como eliminados (soft delete) varios productos por su identificador.
+     *
+     * <p>Usa {@code UPDATE ... WHERE id IN (...)} en bloques de
+     * {@link #TAMANIO_LOTE_DEFECTO} IDs sobre la misma conexión, en lugar de
+     * una sentencia (y una transacción) por ID. Los ya eliminados o
+     * inexistentes no se cuentan.</p>
+     *
+     * <p>Si {@code conn} es {@code null}, el método crea una nueva conexión
+     * y hace <em>commit</em> al finalizar. Si se pasa una conexión externa,
+     * no se modifica su estado de transacción.</p>
+     *
+     * @param ids  identificadores de los productos a eliminar. No debe ser {@code null}.
+     * @param conn conexión a reutilizar, o {@code null} para crear una nueva.
+     * @return cantidad de productos efectivamente eliminados.
+     * @throws Exception si ocurre un error al ejecutar la sentencia SQL.
+     */
+    public int eliminarPorIds(Collection<Long> ids, Connection conn) throws Exception {
+        return cambiarEstadoPorIds(ids, true, conn);
+    }
+
+    /**
+     * Recupera (revierte el soft delete) varios productos por su identificador.
+     *
+     * @param ids  identificadores de los productos a recuperar. No debe ser {@code null}.
+     * @param conn conexión a reutilizar, o {@code null} para crear una nueva.
+     * @return cantidad de productos efectivamente recuperados.
+     * @throws Exception si ocurre un error al ejecutar la sentencia SQL.
+     * @see #eliminarPorIds(Collection, Connection)
+     */
+    public int recuperarPorIds(Collection<Long> ids, Connection conn) throws Exception {
+        return cambiarEstadoPorIds(ids, false, conn);
+    }
+
+    private int cambiarEstadoPorIds(Collection<Long> ids, boolean eliminar, Connection conn) throws Exception {
+        List<Long> lista = new ArrayList<>(new LinkedHashSet<>(ids));
+        if (lista.isEmpty()) {
+            return 0;
+        }
+        boolean usarConexionExterna = (conn != null);
+        
+        if (!usarConexionExterna) {
+            conn = DatabaseConnection.getConnection();
+        }
+        
+        try {
+            int filas = 0;
+            for (int desde = 0; desde < lista.size(); desde += TAMANIO_LOTE_DEFECTO) {
+                List<Long> bloque = lista.subList(desde, Math.min(desde + TAMANIO_LOTE_DEFECTO, lista.size()));
+                try (PreparedStatement stmt = conn.prepareStatement(sqlCambiarEstadoPorIds(eliminar, bloque.size()))) {
+                    stmt.setBoolean(1, eliminar);
+                    int indice = ClausulaIn.setLongs(stmt, 2, bloque);
+                    stmt.setBoolean(indice, !eliminar);
+                    filas += stmt.executeUpdate();
                 }
             }
+            if (!eliminar) {
+                filas += restaurarDesdeArchivo(lista, conn);
+            }
             
             if (!usarConexionExterna) {
                 conn.commit();
             }
+            return filas;
         } finally {
             if (!usarConexionExterna && conn != null) {
                 conn.close();
             }
         }
     }
-    
-        /**
-     * Actualiza un producto usando una conexión propia.
+
+    /**
+     * Marca como eliminados todos los productos activos de una categoría con
+     * un único {@code UPDATE}.
+     *
+     * <p>Si {@code conn} es {@code null}, el método crea una nueva conexión
+     * y hace <em>commit</em> al finalizar. Si se pasa una conexión externa,
+     * no se modifica su estado de transacción.</p>
+     *
+     * @param categoria categoría de los productos a eliminar. No debe ser {@code null}.
+     * @param conn      conexión a reutilizar, o {@code null} para crear una nueva.
+     * @return cantidad de productos eliminados.
+     * @throws Exception si ocurre un error al ejecutar la sentencia SQL.
+     */
+    public int eliminarPorCategoria(CategoriaProducto categoria, Connection conn) throws Exception {
+        return cambiarEstadoPorCategoria(categoria, true, conn);
+    }
+
+    /**
+     * Recupera todos los productos eliminados de una categoría con un único
+     * {@code UPDATE}, incluidos los que ya se movieron al archivo.
+     *
+     * <p>Los productos archivados de la categoría se bloquean y se restauran
+     * en bloques, como en {@link #recuperarPorIds(Collection, Connection)}.</p>
+     *
+     * @param categoria categoría de los productos a recuperar. No debe ser {@code null}.
+     * @param conn      conexión a reutilizar, o {@code null} para crear una nueva.
+     * @return cantidad de productos recuperados.
+     * @throws Exception si ocurre un error al ejecutar la sentencia SQL.
+     * @see #eliminarPorCategoria(CategoriaProducto, Connection)
+     */
+    public int recuperarPorCategoria(CategoriaProducto categoria, Connection conn) throws Exception {
+        return cambiarEstadoPorCategoria(categoria, false, conn);
+    }
+
+    private int cambiarEstadoPorCategoria(CategoriaProducto categoria, boolean eliminar, Connection conn) throws Exception {
+        String sql = sqlCambiarEstadoPorCategoria(eliminar);
+        boolean usarConexionExterna = (conn != null);
+        
+        if (!usarConexionExterna) {
+            conn = DatabaseConnection.getConnection();
+        }
+        
+        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+            stmt.setBoolean(1, eliminar);
+            stmt.setString(2, categoria.name());
+            stmt.setBoolean(3, !eliminar);
+            int filas = stmt.executeUpdate();
+            if (!eliminar) {
+                filas += restaurarDesdeArchivo(idsArchivadosPorCategoria(categoria, conn), conn);
+            }
+            
+            if (!usarConexionExterna) {
+                conn.commit();
+            }
+            return filas;
+        } finally {
+            if (!usarConexionExterna && conn != null) {
+                conn.close();
+            }
+        }
+    }
+
+    /**
+     * Asigna un código de barras a un producto a partir de sus IDs, en una
+     * sola sentencia condicional y sin leer antes el producto ni el código.
+     *
+     * <p>El {@code UPDATE} solo afecta la fila si el producto está activo, el
+     * código de barras existe y no está eliminado, y el producto no tiene ya
+     * ese código. Si no se afectó ninguna fila, una consulta adicional
+     * determina el motivo. Si el código ya pertenece a otro producto, la
+     * restricción {@code UNIQUE} de {@code codigo_barras_id} rechaza la
+     * sentencia (ver {@link #esCodigoYaAsignado(SQLException)}).</p>
+     *
+     * <p>Si {@code conn} es {@code null}, el método crea una nueva conexión
+     * y hace <em>commit</em> al finalizar. Si se pasa una conexión externa,
+     * no se modifica su estado de transacción.</p>
+     *
+     * @param idProducto identificador del producto.
+     * @param idCodigo   identificador del código de barras a asignar.
+     * @param conn       conexión a reutilizar, o {@code null} para crear una nueva.
+     * @return {@link ResultadoOperacion#EXITO} si se asignó,
+     *         {@link ResultadoOperacion#NO_ENCONTRADO} si el producto no existe o está eliminado,
+     *         {@link ResultadoOperacion#SIN_CAMBIOS} si ya tenía ese código.
+     * @throws IllegalArgumentException si el código de barras no existe o está eliminado.
+     * @throws Exception si ocurre un error al ejecutar la sentencia SQL.
+     */
+    public ResultadoOperacion asignarCodigoDeBarras(long idProducto, long idCodigo, Connection conn) throws Exception {
+        String sql = SQL_ASIGNAR_CODIGO;
+        boolean usarConexionExterna = (conn != null);
+        
+        if (!usarConexionExterna) {
+            conn = DatabaseConnection.getConnection();
+        }
+        
+        try {
+            ResultadoOperacion resultado;
+            try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+                stmt.setLong(1, idCodigo);
+                stmt.setLong(2, idProducto);
+                stmt.setLong(3, idCodigo);
+                stmt.setLong(4, idCodigo);
+                resultado = (stmt.executeUpdate() == 1) ? ResultadoOperacion.EXITO : null;
+            }
+
+            if (resultado == null) {
+                try (PreparedStatement stmt = conn.prepareStatement(SQL_MOTIVO_SIN_ASIGNACION)) {
+                    stmt.setLong(1, idCodigo);
+                    stmt.setLong(2, idProducto);
+                    try (ResultSet rs = stmt.executeQuery()) {
+                        if (!rs.next()) {
+                            resultado = ResultadoOperacion.NO_ENCONTRADO;
+                        } else if (rs.getInt("codigo_activo") == 0) {
+                            throw new IllegalArgumentException("Código de barras no encontrado con ID: " + idCodigo);
+                        } else {
+                            resultado = ResultadoOperacion.SIN_CAMBIOS;
+                        }
+                    }
+                }
+            }
+            
+            if (!usarConexionExterna) {
+                conn.commit();
+            }
+            return resultado;
+        } finally {
+            if (!usarConexionExterna && conn != null) {
+                conn.close();
+            }
+        }
+    }
+
+    /**
+     * Indica si un error de {@link #asignarCodigoDeBarras(long, long, Connection)}
+     * se debe a que el código de barras ya está asignado a otro producto
+     * (restricción {@code UNIQUE} de {@code codigo_barras_id}).
+     *
+     * @param e error devuelto por la asignación.
+     * @return {@code true} si es un error de clave duplicada.
+     */
+    public static boolean esCodigoYaAsignado(SQLException e) {
+        for (Throwable t = e; t != null; t = t.getCause()) {
+            if (t instanceof SQLException sql && sql.getErrorCode() == ERROR_CLAVE_DUPLICADA) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Mueve a la tabla {@code producto_archivo} un bloque de productos
+     * eliminados lógicamente hace más de {@code diasRetencion} días.
+     *
+     * <p>Selecciona con {@code FOR UPDATE} hasta {@code tamanioLote} filas,
+     * las copia al archivo y las borra de la tabla activa, todo en una
+     * transacción corta sobre una conexión propia. Así las consultas de filas
+     * activas dejan de pagar por filas muertas sin bloquear la tabla durante
+     * mucho tiempo. Para archivar todo, se llama repetidamente hasta que
+     * devuelva {@code 0}.</p>
+     *
+     * @param diasRetencion días que una fila debe llevar eliminada para archivarse.
+     * @param tamanioLote   cantidad máxima de filas a mover en esta llamada.
+     * @return cantidad de productos archivados.
+     * @throws Exception si ocurre un error al acceder a la base de datos.
+     */
+    public int archivarEliminados(int diasRetencion, int tamanioLote) throws Exception {
+        try (Connection conn = DatabaseConnection.getConnection()) {
+            conn.setAutoCommit(false);
+            try {
+                List<Long> ids = new ArrayList<>();
+                try (PreparedStatement stmt = conn.prepareStatement(SQL_ARCHIVABLES)) {
+                    stmt.setInt(1, diasRetencion);
+                    stmt.setInt(2, tamanioLote);
+                    try (ResultSet rs = stmt.executeQuery()) {
+                        while (rs.next()) {
+                            ids.add(rs.getLong(1));
+                        }
+                    }
+                }
+                if (!ids.isEmpty()) {
+                    try (PreparedStatement stmt = conn.prepareStatement(sqlCopiarAlArchivo(ids.size()))) {
+                        ClausulaIn.setLongs(stmt, 1, ids);
+                        stmt.executeUpdate();
+                    }
+                    try (PreparedStatement stmt = conn.prepareStatement(sqlBorrarPorIds(ids.size()))) {
+                        ClausulaIn.setLongs(stmt, 1, ids);
+                        stmt.executeUpdate();
+                    }
+                }
+                conn.commit();
+                return ids.size();
+            } catch (Exception e) {
+                conn.rollback();
+                throw e;
+            } finally {
+                conn.setAutoCommit(true);
+            }
+        }
+    }
+
+    /**
+     * Vuelve a insertar en la tabla activa los productos archivados indicados,
+     * ya recuperados (no eliminados), y los borra del archivo. Los IDs que no
+     * están en el archivo se ignoran.
+     *
+     * <p>Por cada bloque de {@link #TAMANIO_LOTE_DEFECTO} IDs ejecuta un
+     * {@code INSERT ... SELECT} y un {@code DELETE}. Debe ejecutarse dentro
+     * de la transacción de {@code conn} para que la copia y el borrado sean
+     * atómicos.</p>
+     *
+     * <p>El código de barras se conserva solo si sigue activo (existe y no
+     * está eliminado) y no fue asignado a otro producto; si no, el producto
+     * vuelve sin código. Si dos productos del mismo bloque tenían el mismo
+     * código, lo conserva el de menor ID.</p>
+     *
+     * @param ids  identificadores de los productos.
+     * @param conn conexión de la operación.
+     * @return cantidad de productos restaurados.
+     * @throws SQLException si ocurre un error al ejecutar las sentencias.
+     */
+    private int restaurarDesdeArchivo(List<Long> ids, Connection conn) throws SQLException {
+        int restaurados = 0;
+        for (int desde = 0; desde < ids.size(); desde += TAMANIO_LOTE_DEFECTO) {
+            List<Long> bloque = ids.subList(desde, Math.min(desde + TAMANIO_LOTE_DEFECTO, ids.size()));
+            int filas;
+            try (PreparedStatement stmt = conn.prepareStatement(sqlRestaurarDesdeArchivo(bloque.size()))) {
+                int indice = ClausulaIn.setLongs(stmt, 1, bloque);
+                ClausulaIn.setLongs(stmt, indice, bloque);
+                filas = stmt.executeUpdate();
+            }
+            if (filas > 0) {
+                try (PreparedStatement stmt = conn.prepareStatement(sqlBorrarDelArchivo(bloque.size()))) {
+                    ClausulaIn.setLongs(stmt, 1, bloque);
+                    stmt.executeUpdate();
+                }
+                restaurados += filas;
+            }
+        }
+        return restaurados;
+    }
+
+    /**
+     * Devuelve los IDs de los productos archivados de una categoría,
+     * bloqueándolos hasta el final de la transacción de {@code conn}.
+     */
+    private List<Long> idsArchivadosPorCategoria(CategoriaProducto categoria, Connection conn) throws SQLException {
+        List<Long> archivados = new ArrayList<>();
+        try (PreparedStatement stmt = conn.prepareStatement(SQL_ARCHIVADOS_POR_CATEGORIA)) {
+            stmt.setString(1, categoria.name());
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    archivados.add(rs.getLong(1));
+                }
+            }
+        }
+        return archivados;
+    }
+
+    /**
+     * Determina el resultado de un cambio de estado que no afectó filas:
+     * si el producto existe (activo o archivado), ya estaba en el estado pedido.
      *
-     * <p>Este método crea y gestiona su propia conexión. Para usarlo dentro
-     * de una transacción externa, ver la sobrecarga con {@link Connection}.</p>
+     * @param id   identificador del producto.
+     * @param conn conexión de la operación.
+     * @return {@link ResultadoOperacion#SIN_CAMBIOS} o {@link ResultadoOperacion#NO_ENCONTRADO}.
+     * @throws SQLException si ocurre un error al ejecutar la consulta.
+     */
+    private ResultadoOperacion resultadoSinFilasAfectadas(long id, Connection conn) throws SQLException {
+        try (PreparedStatement stmt = conn.prepareStatement(SQL_EXISTE_ACTIVO_O_ARCHIVADO)) {
+            stmt.setLong(1, id);
+            stmt.setLong(2, id);
+            try (ResultSet rs = stmt.executeQuery()) {
+                return rs.next() ? ResultadoOperacion.SIN_CAMBIOS : ResultadoOperacion.NO_ENCONTRADO;
+            }
+        }
+    }
+
+    /**
+     * Suma {@code delta} al stock de un producto usando una conexión propia.
      *
-     * @param entidad producto con los datos actualizados.
+     * @param id    identificador del producto.
+     * @param delta cantidad a sumar (negativa para descontar).
+     * @return {@code true} si se ajustó el stock; {@code false} si el producto
+     *         no existe, está eliminado o el stock quedaría negativo.
      * @throws Exception si ocurre un error al acceder a la base de datos.
-     * @see #actualizar(Producto, Connection)
+     * @see #ajustarStock(long, int, Connection)
      */
-
-    @Override
-    public void actualizar(Producto entidad) throws Exception {
-        actualizar(entidad, null);
+    public boolean ajustarStock(long id, int delta) throws Exception {
+        return ajustarStock(id, delta, null);
     }
-    
-      /**
-     * Actualiza un producto usando una conexión existente.
+
+    /**
+     * Suma {@code delta} al stock de un producto usando una conexión existente.
+     *
+     * <p>El ajuste se hace en una única sentencia condicional
+     * ({@code SET stock = stock + ? WHERE ... AND stock + ? >= 0}), sin leer
+     * la fila antes: dos ventas simultáneas del mismo producto no pisan sus
+     * cambios y el stock nunca queda negativo. El bloqueo de la fila dura
+     * solo lo que dura la sentencia (más la transacción externa, si hay).</p>
      *
      * <p>Si {@code conn} es {@code null}, el método crea una nueva conexión
-     * y realiza <em>commit</em> al finalizar. Si se pasa una conexión externa,
+     * y hace <em>commit</em> al finalizar. Si se pasa una conexión externa,
      * no se modifica su estado de transacción.</p>
      *
-     * @param entidad producto a actualizar. Debe tener un {@code id} válido.
-     * @param conn    conexión a reutilizar, o {@code null} para crear una nueva.
+     * @param id    identificador del producto.
+     * @param delta cantidad a sumar (negativa para descontar).
+     * @param conn  conexión a reutilizar, o {@code null} para crear una nueva.
+     * @return {@code true} si se ajustó el stock; {@code false} si el producto
+     *         no existe, está eliminado o el stock quedaría negativo.
      * @throws Exception si ocurre un error al ejecutar la sentencia SQL.
      */
-    public void actualizar(Producto entidad, Connection conn) throws Exception {
-        String sql = "UPDATE producto SET nombre = ?, marca = ?, categoria = ?, precio = ?, peso = ?, stock = ?, codigo_barras_id = ? WHERE id = ?";
+    public boolean ajustarStock(long id, int delta, Connection conn) throws Exception {
         boolean usarConexionExterna = (conn != null);
         
         if (!usarConexionExterna) {
             conn = DatabaseConnection.getConnection();
         }
         
-        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
-            
-            stmt.setString(1, entidad.getNombre());
-            stmt.setString(2, entidad.getMarca());
-            
-            String categoriaStr = (entidad.getCategoria() != null) ? entidad.getCategoria().name() : null;
-            stmt.setString(3, categoriaStr);
-            
-            stmt.setDouble(4, entidad.getPrecio());
-            stmt.setDouble(5, entidad.getPeso());
-            stmt.setInt(6, entidad.getStock());
-            
-            if (entidad.getCodigoBarras() != null && entidad.getCodigoBarras().getId() > 0) {
-                stmt.setLong(7, entidad.getCodigoBarras().getId());
-            } else {
-                stmt.setNull(7, Types.BIGINT);
-            }
-            
-            stmt.setLong(8, entidad.getId());
-            stmt.executeUpdate();
+        try (PreparedStatement stmt = conn.prepareStatement(SQL_AJUSTAR_STOCK)) {
+            setParametrosAjustarStock(stmt, id, delta);
+            boolean ajustado = stmt.executeUpdate() == 1;
             
             if (!usarConexionExterna) {
                 conn.commit();
             }
+            return ajustado;
         } finally {
             if (!usarConexionExterna && conn != null) {
                 conn.close();
             }
         }
     }
-    
-        /**
-     * Actualiza solo el código de barras asociado a un producto.
+
+    /**
+     * Ajusta el stock de varios productos con un lote JDBC de la misma
+     * sentencia condicional que {@link #ajustarStock(long, int, Connection)}.
      *
-     * <p>Este método permite asignar o quitar el código de barras sin modificar
-     * el resto de los campos del producto.</p>
+     * <p>Los ajustes se envían en el orden de iteración de {@code ajustes};
+     * conviene pasar un mapa ordenado por ID para que transacciones
+     * concurrentes bloqueen las filas en el mismo orden.</p>
      *
-     * @param entidad producto con el código de barras actualizado.
+     * <p><b>Resultado del lote:</b> JDBC permite que el driver informe
+     * {@link Statement#SUCCESS_NO_INFO} (u otro valor distinto de 0 o 1) en
+     * lugar de las filas afectadas por cada sentencia del lote. En ese caso no
+     * se sabe qué líneas se aplicaron: se vuelve al savepoint tomado antes del
+     * lote y las líneas se ejecutan de a una, en la misma transacción.</p>
+     *
+     * <p>Si {@code conn} es {@code null}, el método crea una nueva conexión,
+     * trabaja en una transacción propia y hace <em>commit</em> al finalizar.
+     * Si se pasa una conexión externa, debe tener el autocommit desactivado;
+     * no se modifica su estado de transacción.</p>
+     *
+     * @param ajustes mapa ID de producto → cantidad a sumar. No debe ser {@code null}.
      * @param conn    conexión a reutilizar, o {@code null} para crear una nueva.
+     * @return IDs cuyo stock no se ajustó (inexistentes, eliminados o sin stock
+     *         suficiente), en el orden de {@code ajustes}. Nunca es {@code null}.
      * @throws Exception si ocurre un error al ejecutar la sentencia SQL.
      */
-    
-     public void asignarCodigoDeBarras(Producto entidad, Connection conn) throws Exception {
-        String sql = "UPDATE producto SET  codigo_barras_id = ? WHERE id = ?";
+    public List<Long> ajustarStockLote(Map<Long, Integer> ajustes, Connection conn) throws Exception {
+        List<Long> rechazados = new ArrayList<>();
+        if (ajustes.isEmpty()) {
+            return rechazados;
+        }
         boolean usarConexionExterna = (conn != null);
         
         if (!usarConexionExterna) {
             conn = DatabaseConnection.getConnection();
+            conn.setAutoCommit(false);
         }
         
-        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
-            
-            if (entidad.getCodigoBarras() != null && entidad.getCodigoBarras().getId() > 0) {
-                stmt.setLong(1, entidad.getCodigoBarras().getId());
+        try {
+            List<Long> ids = new ArrayList<>(ajustes.keySet());
+            Savepoint antesDelLote = conn.setSavepoint();
+            int[] filas;
+            try (PreparedStatement stmt = conn.prepareStatement(SQL_AJUSTAR_STOCK)) {
+                for (Long id : ids) {
+                    setParametrosAjustarStock(stmt, id, ajustes.get(id));
+                    stmt.addBatch();
+                }
+                filas = stmt.executeBatch();
+            }
+
+            if (resultadoPorLinea(filas, ids.size())) {
+                for (int i = 0; i < ids.size(); i++) {
+                    if (filas[i] == 0) {
+                        rechazados.add(ids.get(i));
+                    }
+                }
             } else {
-                stmt.setNull(1, Types.BIGINT);
+                conn.rollback(antesDelLote);
+                try (PreparedStatement stmt = conn.prepareStatement(SQL_AJUSTAR_STOCK)) {
+                    for (Long id : ids) {
+                        setParametrosAjustarStock(stmt, id, ajustes.get(id));
+                        if (stmt.executeUpdate() == 0) {
+                            rechazados.add(id);
+                        }
+                    }
+                }
             }
             
-            stmt.setLong(2, entidad.getId());
-            stmt.executeUpdate();
-            
             if (!usarConexionExterna) {
                 conn.commit();
             }
+        } catch (Exception e) {
+            if (!usarConexionExterna) {
+                conn.rollback();
+            }
+            throw e;
         } finally {
             if (!usarConexionExterna && conn != null) {
+                conn.setAutoCommit(true);
                 conn.close();
             }
         }
+        return rechazados;
+    }
+
+    /**
+     * Indica si el resultado de un lote informa, para cada sentencia, si
+     * afectó una fila ({@code 1}) o ninguna ({@code 0}).
+     */
+    private static boolean resultadoPorLinea(int[] filas, int sentencias) {
+        if (filas.length != sentencias) {
+            return false;
+        }
+        for (int f : filas) {
+            if (f != 0 && f != 1) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Asigna los parámetros de {@link #SQL_AJUSTAR_STOCK}.
+     */
+    private void setParametrosAjustarStock(PreparedStatement stmt, long id, int delta) throws SQLException {
+        stmt.setInt(1, delta);
+        stmt.setLong(2, id);
+        stmt.setInt(3, delta);
     }
 
      /**
@@ -207,13 +1109,14 @@ public class ProductoDAO implements GenericDAO<Producto> {
      * para el registro indicado.</p>
      *
      * @param id identificador del producto a eliminar.
+     * @return resultado de la operación según las filas afectadas.
      * @throws Exception si ocurre un error al acceder a la base de datos.
      * @see #eliminar(long, Connection)
      */
      
     @Override
-    public void eliminar(long id) throws Exception {
-        eliminar(id, null);
+    public ResultadoOperacion eliminar(long id) throws Exception {
+        return eliminar(id, null);
     }
     
      /**
@@ -223,13 +1126,20 @@ public class ProductoDAO implements GenericDAO<Producto> {
      * y realiza <em>commit</em> al finalizar. Si se pasa una conexión externa,
      * no se modifica su estado de transacción.</p>
      *
+     * <p>El resultado sale de la cantidad de filas afectadas por el
+     * {@code UPDATE} condicional, sin leer el producto antes. Solo si no se
+     * afectó ninguna fila se consulta si el producto existe, para distinguir
+     * {@link ResultadoOperacion#NO_ENCONTRADO} de
+     * {@link ResultadoOperacion#SIN_CAMBIOS} (ya estaba eliminado).</p>
+     *
      * @param id   identificador del producto a eliminar.
      * @param conn conexión a reutilizar, o {@code null} para crear una nueva.
+     * @return resultado de la operación.
      * @throws Exception si ocurre un error al ejecutar la sentencia SQL.
      */
     
-    public void eliminar(long id, Connection conn) throws Exception {
-        String sql = "UPDATE producto SET eliminado = true WHERE id = ? AND eliminado = false";
+    public ResultadoOperacion eliminar(long id, Connection conn) throws Exception {
+        String sql = SQL_ELIMINAR;
         boolean usarConexionExterna = (conn != null);
         
         if (!usarConexionExterna) {
@@ -238,11 +1148,14 @@ public class ProductoDAO implements GenericDAO<Producto> {
         
         try (PreparedStatement stmt = conn.prepareStatement(sql)) {
             stmt.setLong(1, id);
-            stmt.executeUpdate();
+            ResultadoOperacion resultado = (stmt.executeUpdate() == 1)
+                    ? ResultadoOperacion.EXITO
+                    : resultadoSinFilasAfectadas(id, conn);
             
             if (!usarConexionExterna) {
                 conn.commit();
             }
+            return resultado;
         } finally {
             if (!usarConexionExterna && conn != null) {
                 conn.close();
@@ -254,26 +1167,33 @@ public class ProductoDAO implements GenericDAO<Producto> {
      * Recupera (revierte el soft delete) de un producto usando una conexión propia.
      *
      * @param id identificador del producto a recuperar.
+     * @return resultado de la operación según las filas afectadas.
      * @throws Exception si ocurre un error al acceder a la base de datos.
      * @see #recuperar(long, Connection)
      */
     
-    public void recuperar(long id) throws Exception {
-        recuperar(id, null);
+    public ResultadoOperacion recuperar(long id) throws Exception {
+        return recuperar(id, null);
     }
 
       /**
      * Recupera (revierte el soft delete) de un producto usando una conexión existente.
      *
      * <p>Cambia la bandera <code>eliminado</code> a {@code false} si el registro
-     * estaba previamente marcado como eliminado.</p>
+     * estaba previamente marcado como eliminado. Si el producto ya no está en la
+     * tabla activa porque fue archivado, se restaura desde el archivo.</p>
+     *
+     * <p>Igual que {@link #eliminar(long, Connection)}, informa el resultado a
+     * partir de las filas afectadas; {@link ResultadoOperacion#SIN_CAMBIOS}
+     * indica que el producto no estaba eliminado.</p>
      *
      * @param id   identificador del producto a recuperar.
      * @param conn conexión a reutilizar, o {@code null} para crear una nueva.
+     * @return resultado de la operación.
      * @throws Exception si ocurre un error al ejecutar la sentencia SQL.
      */
-    public void recuperar(long id, Connection conn) throws Exception {
-        String sql = "UPDATE producto SET eliminado = false WHERE id = ? AND eliminado = true";
+    public ResultadoOperacion recuperar(long id, Connection conn) throws Exception {
+        String sql = SQL_RECUPERAR;
         boolean usarConexionExterna = (conn != null);
 
         if (!usarConexionExterna) {
@@ -282,11 +1202,14 @@ public class ProductoDAO implements GenericDAO<Producto> {
 
         try (PreparedStatement stmt = conn.prepareStatement(sql)) {
             stmt.setLong(1, id);
-            stmt.executeUpdate();
+            ResultadoOperacion resultado = (stmt.executeUpdate() == 1)
+                    ? ResultadoOperacion.EXITO
+                    : restaurarDesdeArchivo(List.of(id), conn) == 1 ? ResultadoOperacion.EXITO : resultadoSinFilasAfectadas(id, conn);
 
             if (!usarConexionExterna) {
                 conn.commit();
             }
+            return resultado;
         } finally {
             if (!usarConexionExterna && conn != null) {
                 conn.close();
@@ -306,14 +1229,7 @@ public class ProductoDAO implements GenericDAO<Producto> {
      */
     @Override
     public Producto getById(long id) throws Exception {
-        String sql = "SELECT p.id, p.nombre, p.marca, p.categoria, p.precio, p.peso, p.stock, p.eliminado, " +
-                     "p.codigo_barras_id, " +
-                     "c.id AS codigo_id, c.tipo AS codigo_tipo, c.valor AS codigo_valor, " +
-                     "c.fecha_asignacion AS codigo_fecha, c.observaciones AS codigo_obs, " +
-                     "c.eliminado AS codigo_eliminado " +
-                     "FROM producto p " +
-                     "LEFT JOIN codigo_barras c ON p.codigo_barras_id = c.id AND c.eliminado = false " +
-                     "WHERE p.id = ? AND p.eliminado = false";
+        String sql = SQL_POR_ID;
         try (Connection conn = DatabaseConnection.getConnection();
              PreparedStatement stmt = conn.prepareStatement(sql)) {
             stmt.setLong(1, id);
@@ -326,6 +1242,88 @@ public class ProductoDAO implements GenericDAO<Producto> {
         return null;
     }
     
+    /**
+     * Obtiene varios productos por su identificador en un solo viaje por bloque.
+     *
+     * <p>Resuelve la búsqueda con consultas {@code WHERE p.id IN (...)} en
+     * bloques de {@link #TAMANIO_LOTE_DEFECTO} IDs sobre una única conexión,
+     * en lugar de una consulta y una conexión por ID. Incluye el código de
+     * barras asociado y solo devuelve productos no eliminados; los IDs
+     * repetidos se consultan una vez.</p>
+     *
+     * <p>Cada bloque se completa hasta uno de los tamaños fijos de
+     * {@link ClausulaIn}, para que distintas cantidades de IDs reutilicen las
+     * mismas sentencias preparadas.</p>
+     *
+     * @param ids identificadores a buscar. No debe ser {@code null}.
+     * @return mapa ID → producto en el orden de {@code ids}; los IDs
+     *         inexistentes o eliminados no aparecen. Nunca es {@code null}.
+     * @throws Exception si ocurre un error al acceder a la base de datos.
+     */
+    public Map<Long, Producto> getByIds(Collection<Long> ids) throws Exception {
+        List<Long> lista = new ArrayList<>(new LinkedHashSet<>(ids));
+        Map<Long, Producto> encontrados = new HashMap<>();
+        if (!lista.isEmpty()) {
+            try (Connection conn = DatabaseConnection.getConnection()) {
+                for (int desde = 0; desde < lista.size(); desde += TAMANIO_LOTE_DEFECTO) {
+                    List<Long> bloque = lista.subList(desde, Math.min(desde + TAMANIO_LOTE_DEFECTO, lista.size()));
+                    try (PreparedStatement stmt = conn.prepareStatement(sqlPorIds(bloque.size()))) {
+                        ClausulaIn.setLongs(stmt, 1, bloque);
+                        try (ResultSet rs = stmt.executeQuery()) {
+                            while (rs.next()) {
+                                Producto producto = mapRowWithJoin(rs);
+                                encontrados.put(producto.getId(), producto);
+                            }
+                        }
+                    }
+                }
+            }
+        }
+
+        Map<Long, Producto> resultado = new LinkedHashMap<>();
+        for (Long id : lista) {
+            Producto producto = encontrados.get(id);
+            if (producto != null) {
+                resultado.put(id, producto);
+            }
+        }
+        return resultado;
+    }
+
+    /**
+     * Obtiene los productos activos que referencian alguno de los códigos de
+     * barras indicados, con una consulta por bloque de IDs.
+     *
+     * <p>Filtra por la columna {@code codigo_barras_id} del producto, por lo
+     * que también encuentra los productos cuyo código está eliminado (en ese
+     * caso se devuelven sin código, como en {@link #getById(long)}).</p>
+     *
+     * @param idsCodigo IDs de códigos de barras. No debe ser {@code null}.
+     * @return productos encontrados, sin orden definido. Nunca es {@code null}.
+     * @throws Exception si ocurre un error al acceder a la base de datos.
+     */
+    public List<Producto> getByCodigoBarrasIds(Collection<Long> idsCodigo) throws Exception {
+        List<Long> lista = new ArrayList<>(new LinkedHashSet<>(idsCodigo));
+        List<Producto> encontrados = new ArrayList<>();
+        if (lista.isEmpty()) {
+            return encontrados;
+        }
+        try (Connection conn = DatabaseConnection.getConnection()) {
+            for (int desde = 0; desde < lista.size(); desde += TAMANIO_LOTE_DEFECTO) {
+                List<Long> bloque = lista.subList(desde, Math.min(desde + TAMANIO_LOTE_DEFECTO, lista.size()));
+                try (PreparedStatement stmt = conn.prepareStatement(sqlPorCodigoBarrasIds(bloque.size()))) {
+                    ClausulaIn.setLongs(stmt, 1, bloque);
+                    try (ResultSet rs = stmt.executeQuery()) {
+                        while (rs.next()) {
+                            encontrados.add(mapRowWithJoin(rs));
+                        }
+                    }
+                }
+            }
+        }
+        return encontrados;
+    }
+
         /**
      * Obtiene todos los productos activos del sistema.
      *
@@ -338,13 +1336,7 @@ public class ProductoDAO implements GenericDAO<Producto> {
     @Override
     public List<Producto> getAll() throws Exception {
         List<Producto> lista = new ArrayList<>();
-        String sql = "SELECT p.id, p.nombre, p.marca, p.categoria, p.precio, p.peso, p.stock, p.eliminado, " +
-                     "p.codigo_barras_id, " +
-                     "c.id AS codigo_id, c.tipo AS codigo_tipo, c.valor AS codigo_valor, " +
-                     "c.fecha_asignacion AS codigo_fecha, c.observaciones AS codigo_obs, " +
-                     "c.eliminado AS codigo_eliminado " +
-                     "FROM producto p " +
-                     "LEFT JOIN codigo_barras c ON p.codigo_barras_id = c.id AND c.eliminado = false " +
+        String sql = SQL_SELECT_CON_CODIGO +
                      "WHERE p.eliminado = false";
         try (Connection conn = DatabaseConnection.getConnection();
              PreparedStatement stmt = conn.prepareStatement(sql);
@@ -356,6 +1348,242 @@ public class ProductoDAO implements GenericDAO<Producto> {
         return lista;
     }
 
+    /**
+     * Recorre todos los productos activos como un {@link Stream}, con el tamaño
+     * de fetch por defecto.
+     *
+     * @return stream de productos; debe cerrarse para liberar la conexión.
+     * @throws Exception si ocurre un error al ejecutar la consulta.
+     * @see #stream(int)
+     */
+    public Stream<Producto> stream() throws Exception {
+        return stream(TAMANIO_FETCH_DEFECTO);
+    }
+
+    /**
+     * Recorre todos los productos activos como un {@link Stream} sin cargarlos
+     * en una lista.
+     *
+     * <p>El driver trae las filas de a {@code tamanioFetch} por vez (con MySQL,
+     * mediante un cursor del lado del servidor; con MariaDB, leyendo el
+     * resultado a medida que se recorre), por lo que la memoria usada es
+     * constante sin importar el tamaño de la tabla. El stream mantiene ocupada una conexión del pool
+     * hasta que se cierra, por lo que debe usarse con try-with-resources:</p>
+     * <pre>
+     * {@code
+     * try (Stream<Producto> productos = dao.stream(1000)) {
+     *     productos.forEach(exportador::escribir);
+     * }
+     * }
+     * </pre>
+     *
+     * @param tamanioFetch cantidad de filas por viaje a la base de datos. Debe ser mayor a 0.
+     * @return stream de productos ordenados por {@code id}; al cerrarlo se
+     *         cierra la conexión.
+     * @throws IllegalArgumentException si {@code tamanioFetch} no es positivo.
+     * @throws Exception si ocurre un error al ejecutar la consulta.
+     */
+    public Stream<Producto> stream(int tamanioFetch) throws Exception {
+        if (tamanioFetch <= 0) {
+            throw new IllegalArgumentException("El tamaño de fetch debe ser mayor a 0.");
+        }
+        String sql = SQL_SELECT_CON_CODIGO +
+                     "WHERE p.eliminado = false ORDER BY p.id";
+        Connection conn = DatabaseConnection.getConnection();
+        PreparedStatement stmt = null;
+        ResultSet rs = null;
+        try {
+            stmt = conn.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            stmt.setFetchSize(tamanioFetch);
+            rs = stmt.executeQuery();
+            return ResultSetStream.crear(conn, stmt, rs, this::mapRowWithJoin);
+        } catch (SQLException e) {
+            ResultSetStream.cerrar(conn, stmt, rs);
+            throw e;
+        }
+    }
+
+    /**
+     * Obtiene una página de productos activos ordenados por {@code id}.
+     *
+     * <p>Usa paginación por clave ({@code WHERE p.id > ? ORDER BY p.id LIMIT ?})
+     * en lugar de {@code OFFSET}: cada página se resuelve recorriendo la clave
+     * primaria desde {@code despuesDeId}, con costo constante sin importar
+     * cuántas páginas se hayan leído antes.</p>
+     *
+     * @param despuesDeId se devuelven productos con {@code id} mayor a este
+     *                    valor; {@code 0} para la primera página.
+     * @param limite      cantidad máxima de productos. Debe ser mayor a 0.
+     * @return productos de la página. Nunca es {@code null}.
+     * @throws IllegalArgumentException si {@code limite} no es positivo.
+     * @throws Exception si ocurre un error al acceder a la base de datos.
+     */
+    @Override
+    public List<Producto> getPage(long despuesDeId, int limite) throws Exception {
+        if (limite <= 0) {
+            throw new IllegalArgumentException("El límite de la página debe ser mayor a 0.");
+        }
+        List<Producto> lista = new ArrayList<>();
+        String sql = SQL_PAGINA;
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+            stmt.setLong(1, despuesDeId);
+            stmt.setInt(2, limite);
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    lista.add(mapRowWithJoin(rs));
+                }
+            }
+        }
+        return lista;
+    }
+
+    /**
+     * Obtiene una página de productos activos de una categoría, ordenados por {@code id}.
+     *
+     * <p>El filtro se resuelve en la base de datos usando el índice
+     * {@code idx_categoria_eliminado} (que en InnoDB incluye la clave primaria), con
+     * paginación por clave igual que {@link #getPage(long, int)}.</p>
+     *
+     * @param categoria   categoría a filtrar. No debe ser {@code null}.
+     * @param despuesDeId se devuelven productos con {@code id} mayor a este
+     *                    valor; {@code 0} para la primera página.
+     * @param limite      cantidad máxima de productos. Debe ser mayor a 0.
+     * @return productos de la página. Nunca es {@code null}.
+     * @throws IllegalArgumentException si {@code limite} no es positivo.
+     * @throws Exception si ocurre un error al acceder a la base de datos.
+     */
+    public List<Producto> getByCategoria(CategoriaProducto categoria, long despuesDeId, int limite) throws Exception {
+        if (limite <= 0) {
+            throw new IllegalArgumentException("El límite de la página debe ser mayor a 0.");
+        }
+        List<Producto> lista = new ArrayList<>();
+        String sql = SQL_PAGINA_POR_CATEGORIA;
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+            stmt.setString(1, categoria.name());
+            stmt.setLong(2, despuesDeId);
+            stmt.setInt(3, limite);
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    lista.add(mapRowWithJoin(rs));
+                }
+            }
+        }
+        return lista;
+    }
+
+    /**
+     * Cuenta los productos activos de cada categoría sin traer las filas.
+     *
+     * <p>Las categorías sin productos aparecen con cantidad {@code 0}. Los
+     * productos sin categoría o con una categoría desconocida no se cuentan.</p>
+     *
+     * @return cantidad de productos activos por categoría. Nunca es {@code null}.
+     * @throws Exception si ocurre un error al acceder a la base de datos.
+     */
+    public Map<CategoriaProducto, Integer> contarPorCategoria() throws Exception {
+        Map<CategoriaProducto, Integer> conteo = new EnumMap<>(CategoriaProducto.class);
+        for (CategoriaProducto categoria : CategoriaProducto.values()) {
+            conteo.put(categoria, 0);
+        }
+        String sql = SQL_CONTAR_POR_CATEGORIA;
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql);
+             ResultSet rs = stmt.executeQuery()) {
+            while (rs.next()) {
+                try {
+                    CategoriaProducto categoria = CategoriaProducto.valueOf(rs.getString("categoria").trim().toUpperCase());
+                    conteo.merge(categoria, rs.getInt("cantidad"), Integer::sum);
+                } catch (IllegalArgumentException e) {
+                    System.err.println("Advertencia: Categoría inválida en BD: " + rs.getString("categoria"));
+                }
+            }
+        }
+        return conteo;
+    }
+
+    /**
+     * Busca productos activos por palabras del nombre o la marca, ordenados por relevancia.
+     *
+     * <p>Usa el índice {@code FULLTEXT ft_nombre_marca (nombre, marca)} en modo
+     * booleano: cada palabra del texto debe aparecer como comienzo de alguna
+     * palabra del nombre o la marca ({@code +palabra*}). La intercalación
+     * {@code utf8mb4_unicode_ci} de las columnas hace que la búsqueda ignore
+     * mayúsculas y acentos ("cafe" encuentra "Café").</p>
+     *
+     * <p>Las palabras de menos de {@value #LARGO_MINIMO_TERMINO} caracteres no
+     * están en el índice; si el texto solo contiene palabras cortas se busca
+     * por prefijo del nombre o la marca con {@code LIKE}, que puede combinar
+     * los índices {@code (nombre, eliminado)} y {@code (marca, eliminado)}.</p>
+     *
+     * @param texto         texto a buscar. No debe ser {@code null}.
+     * @param pagina        número de página, comenzando en {@code 0}.
+     * @param tamanioPagina cantidad máxima de productos por página. Debe ser mayor a 0.
+     * @return productos de la página, del más al menos relevante. Nunca es {@code null}.
+     * @throws IllegalArgumentException si la página o su tamaño no son válidos.
+     * @throws Exception si ocurre un error al acceder a la base de datos.
+     */
+    public List<Producto> buscar(String texto, int pagina, int tamanioPagina) throws Exception {
+        if (pagina < 0 || tamanioPagina <= 0) {
+            throw new IllegalArgumentException("Página o tamaño de página inválidos.");
+        }
+        List<Producto> lista = new ArrayList<>();
+        String consulta = armarConsultaFullText(texto);
+        
+        String sql = consulta.isEmpty() ? SQL_BUSCAR_PREFIJO : SQL_BUSCAR_FULLTEXT;
+        
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+            if (!consulta.isEmpty()) {
+                stmt.setString(1, consulta);
+                stmt.setString(2, consulta);
+            } else {
+                String prefijo = escaparLike(texto.trim()) + "%";
+                stmt.setString(1, prefijo);
+                stmt.setString(2, prefijo);
+            }
+            stmt.setInt(3, tamanioPagina);
+            stmt.setLong(4, (long) pagina * tamanioPagina);
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    lista.add(mapRowWithJoin(rs));
+                }
+            }
+        }
+        return lista;
+    }
+    
+    /**
+     * Convierte un texto libre en una consulta FULLTEXT booleana donde cada
+     * palabra es obligatoria y se busca como prefijo.
+     *
+     * @param texto texto ingresado por el usuario.
+     * @return consulta del tipo {@code +pala* +otra*}, o cadena vacía si no
+     *         quedan palabras indexables.
+     */
+    private static String armarConsultaFullText(String texto) {
+        StringBuilder sb = new StringBuilder();
+        for (String palabra : texto.split("\\s+")) {
+            // Se quitan los operadores del modo booleano para que no alteren la búsqueda
+            String limpia = palabra.replaceAll("[+\\-<>()~*\"@]", "");
+            if (limpia.length() >= LARGO_MINIMO_TERMINO) {
+                if (sb.length() > 0) {
+                    sb.append(' ');
+                }
+                sb.append('+').append(limpia).append('*');
+            }
+        }
+        return sb.toString();
+    }
+    
+    /**
+     * Escapa los comodines de {@code LIKE} para buscar el texto literal.
+     */
+    private static String escaparLike(String texto) {
+        return texto.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+    }
+
         /**
      * Obtiene un producto por su nombre usando una conexión propia.
      *
@@ -382,14 +1610,7 @@ public class ProductoDAO implements GenericDAO<Producto> {
      */
     
     public Producto getByNombre(String nombre, Connection conn) throws Exception {
-        String sql = "SELECT p.id, p.nombre, p.marca, p.categoria, p.precio, p.peso, p.stock, p.eliminado, " +
-                     "p.codigo_barras_id, " +
-                     "c.id AS codigo_id, c.tipo AS codigo_tipo, c.valor AS codigo_valor, " +
-                     "c.fecha_asignacion AS codigo_fecha, c.observaciones AS codigo_obs, " +
-                     "c.eliminado AS codigo_eliminado " +
-                     "FROM producto p " +
-                     "LEFT JOIN codigo_barras c ON p.codigo_barras_id = c.id AND c.eliminado = false " +
-                     "WHERE p.nombre = ? AND p.eliminado = false";
+        String sql = SQL_POR_NOMBRE;
         boolean usarConexionExterna = (conn != null);
         
         if (!usarConexionExterna) {
@@ -411,6 +1632,99 @@ public class ProductoDAO implements GenericDAO<Producto> {
         return null;
     }
     
+
+    /**
+     * Obtiene el producto asociado a un código de barras a partir de su valor,
+     * usando una conexión propia.
+     *
+     * @param valor valor exacto del código de barras (por ejemplo, el leído por un escáner).
+     * @return producto con su código de barras cargado, o {@code null} si no se encuentra.
+     * @throws Exception si ocurre un error al acceder a la base de datos.
+     * @see #getByCodigoValor(String, Connection)
+     */
+    public Producto getByCodigoValor(String valor) throws Exception {
+        return getByCodigoValor(valor, null);
+    }
+
+    /**
+     * Obtiene el producto asociado a un código de barras a partir de su valor
+     * usando una conexión existente.
+     *
+     * <p>Resuelve el código y el producto en una sola consulta con
+     * {@code JOIN}, ambos por índice único, en lugar de buscar primero el
+     * código y luego el producto. Solo se tienen en cuenta productos y
+     * códigos no eliminados.</p>
+     *
+     * @param valor valor exacto del código de barras.
+     * @param conn  conexión a reutilizar, o {@code null} para crear una nueva.
+     * @return producto con su código de barras cargado, o {@code null} si no se encuentra.
+     * @throws Exception si ocurre un error al ejecutar la consulta.
+     */
+    public Producto getByCodigoValor(String valor, Connection conn) throws Exception {
+        String sql = SQL_POR_CODIGO_VALOR;
+        boolean usarConexionExterna = (conn != null);
+        
+        if (!usarConexionExterna) {
+            conn = DatabaseConnection.getConnection();
+        }
+        
+        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+            stmt.setString(1, valor);
+            try (ResultSet rs = stmt.executeQuery()) {
+                if (rs.next()) {
+                    return mapRowWithJoin(rs);
+                }
+            }
+        } finally {
+            if (!usarConexionExterna && conn != null) {
+                conn.close();
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Obtiene los productos asociados a varios valores de código de barras.
+     *
+     * <p>Usa la misma consulta que {@link #getByCodigoValor(String, Connection)}
+     * con {@code WHERE c.valor IN (...)} en bloques de
+     * {@link #TAMANIO_LOTE_DEFECTO} valores sobre una única conexión. Los
+     * valores repetidos se consultan una vez.</p>
+     *
+     * @param valores valores exactos de los códigos de barras. No debe ser {@code null}.
+     * @return mapa valor → producto en el orden de {@code valores}; los valores
+     *         sin producto activo no aparecen. Nunca es {@code null}.
+     * @throws Exception si ocurre un error al acceder a la base de datos.
+     */
+    public Map<String, Producto> getByCodigoValores(Collection<String> valores) throws Exception {
+        List<String> lista = new ArrayList<>(new LinkedHashSet<>(valores));
+        Map<String, Producto> encontrados = new HashMap<>();
+        if (!lista.isEmpty()) {
+            try (Connection conn = DatabaseConnection.getConnection()) {
+                for (int desde = 0; desde < lista.size(); desde += TAMANIO_LOTE_DEFECTO) {
+                    List<String> bloque = lista.subList(desde, Math.min(desde + TAMANIO_LOTE_DEFECTO, lista.size()));
+                    try (PreparedStatement stmt = conn.prepareStatement(sqlPorCodigoValores(bloque.size()))) {
+                        ClausulaIn.setStrings(stmt, 1, bloque);
+                        try (ResultSet rs = stmt.executeQuery()) {
+                            while (rs.next()) {
+                                encontrados.put(rs.getString("codigo_valor"), mapRowWithJoin(rs));
+                            }
+                        }
+                    }
+                }
+            }
+        }
+
+        Map<String, Producto> resultado = new LinkedHashMap<>();
+        for (String valor : lista) {
+            Producto producto = encontrados.get(valor);
+            if (producto != null) {
+                resultado.put(valor, producto);
+            }
+        }
+        return resultado;
+    }
+
     /**
      * Método auxiliar para mapear un {@link ResultSet} con JOIN a un objeto {@link Producto}.
      *
@@ -444,6 +1758,7 @@ public class ProductoDAO implements GenericDAO<Producto> {
         Producto producto = new Producto(nombre, marca, precio, peso, stock, id);
         producto.setCategoria(categoria);
         producto.setEliminado(eliminado);
+        producto.setVersion(rs.getLong("version"));
         
         long codigoId = rs.getLong("codigo_id");
         if (!rs.wasNull() && codigoId > 0) {
@@ -464,9 +1779,12 @@ public class ProductoDAO implements GenericDAO<Producto> {
             boolean codigoEliminado = rs.getBoolean("codigo_eliminado");
             
             CodigoBarras codigo = new CodigoBarras(codigoId, codigoEliminado, tipo, valor, fecha, observaciones);
+            codigo.setVersion(rs.getLong("codigo_version"));
+            codigo.iniciarSeguimientoCambios();
             producto.setCodigoBarras(codigo);
         }
         
+        producto.iniciarSeguimientoCambios();
         return producto;
     }
 }
\ No newline at end of file
@@ -0,0 +1,88 @@
+package DAO;
+/**
+ * @authors
+ * Gaston Alberto Cejas,
+ * Hernan Cóceres,
+ * Claudio Rodriguez,
+ * Hernan E.Bula
+ */
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Adapta un {@link ResultSet} abierto a un {@link Stream} perezoso.
+ *
+ * <p>Cada fila se lee y se mapea recién cuando el stream la consume, por lo
+ * que la memoria usada no depende del tamaño de la consulta. Al cerrar el
+ * stream se cierran el {@link ResultSet}, la sentencia y la conexión.</p>
+ */
+final class ResultSetStream {
+
+    /**
+     * Convierte la fila actual de un {@link ResultSet} en una entidad.
+     *
+     * @param <T> tipo de entidad.
+     */
+    @FunctionalInterface
+    interface Mapeador<T> {
+        T mapear(ResultSet rs) throws SQLException;
+    }
+
+    private ResultSetStream() {
+    }
+
+    /**
+     * Crea un stream sobre las filas de {@code rs}.
+     *
+     * @param conn     conexión dueña de la consulta; se cierra junto con el stream.
+     * @param stmt     sentencia que produjo {@code rs}; se cierra junto con el stream.
+     * @param rs       resultado a recorrer.
+     * @param mapeador función que convierte cada fila en una entidad.
+     * @return stream secuencial que debe cerrarse (por ejemplo con try-with-resources).
+     */
+    static <T> Stream<T> crear(Connection conn, Statement stmt, ResultSet rs, Mapeador<T> mapeador) {
+        Spliterator<T> filas = new Spliterators.AbstractSpliterator<T>(Long.MAX_VALUE, Spliterator.ORDERED | Spliterator.NONNULL) {
+            @Override
+            public boolean tryAdvance(Consumer<? super T> accion) {
+                try {
+                    if (!rs.next()) {
+                        return false;
+                    }
+                    accion.accept(mapeador.mapear(rs));
+                    return true;
+                } catch (SQLException e) {
+                    throw new RuntimeException("Error al leer el resultado de la consulta: " + e.getMessage(), e);
+                }
+            }
+        };
+        return StreamSupport.stream(filas, false).onClose(() -> cerrar(conn, stmt, rs));
+    }
+
+    /**
+     * Cierra los recursos de una consulta ignorando los que sean {@code null}.
+     */
+    static void cerrar(Connection conn, Statement stmt, ResultSet rs) {
+        try {
+            if (rs != null) rs.close();
+        } catch (SQLException e) {
+            System.err.println("Error al cerrar resultado: " + e.getMessage());
+        }
+        try {
+            if (stmt != null) stmt.close();
+        } catch (SQLException e) {
+            System.err.println("Error al cerrar sentencia: " + e.getMessage());
+        }
+        try {
+            if (conn != null) conn.close();
+        } catch (SQLException e) {
+            System.err.println("Error al cerrar conexión: " + e.getMessage());
+        }
+    }
+}
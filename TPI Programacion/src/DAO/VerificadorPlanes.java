@@ -0,0 +1,191 @@
+package DAO;
+/**
+ * @authors
+ * Gaston Alberto Cejas,
+ * Hernan Cóceres,
+ * Claudio Rodriguez,
+ * Hernan E.Bula
+ */
+import config.DatabaseConnection;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import model.CategoriaProducto;
+import model.CodigoBarras;
+import model.Producto;
+
+/**
+ * Verifica con {@code EXPLAIN} que las sentencias de {@link ProductoDAO} y
+ * {@link CodigoBarrasDAO} usen índices.
+ *
+ * <p>Las sentencias se toman de las constantes y los métodos {@code sql...}
+ * de los propios DAOs, así que se revisa el mismo texto que se ejecuta,
+ * incluidos los {@code UPDATE}, {@code DELETE} e {@code INSERT ... SELECT}
+ * de los cambios de estado masivos y del archivo. Las que llevan una lista
+ * {@code IN} se revisan con cada tamaño de {@link ClausulaIn#TAMANIOS}. Si el
+ * plan de alguna recorre completa una tabla ({@code type = ALL}), se informa
+ * como regresión; la fila de la tabla destino de un {@code INSERT} no cuenta,
+ * porque no se lee. Las consultas que por diseño leen todas las filas
+ * activas ({@code getAll}, {@code stream} y {@code streamValores}) no se
+ * incluyen.</p>
+ *
+ * <p>Con tablas casi vacías el optimizador puede preferir un recorrido
+ * completo aunque exista el índice adecuado, por lo que conviene ejecutarlo
+ * contra una base con un volumen de datos representativo. Se ejecuta con
+ * {@link #main(String[])}, que termina con código 1 si encuentra
+ * regresiones.</p>
+ */
+public final class VerificadorPlanes {
+
+    private record Consulta(String descripcion, String sql, Object... parametros) {
+    }
+
+    private static final List<Consulta> CONSULTAS = armarConsultas();
+
+    private VerificadorPlanes() {
+    }
+
+    private static List<Consulta> armarConsultas() {
+        String categoria = CategoriaProducto.ALIMENTOS.name();
+        String valor = "7791234567890";
+        List<Consulta> consultas = new ArrayList<>(List.of(
+                new Consulta("ProductoDAO.getById", ProductoDAO.SQL_POR_ID, 1L),
+                new Consulta("ProductoDAO.getPage", ProductoDAO.SQL_PAGINA, 0L, 20),
+                new Consulta("ProductoDAO.getByCategoria", ProductoDAO.SQL_PAGINA_POR_CATEGORIA, categoria, 0L, 20),
+                new Consulta("ProductoDAO.contarPorCategoria", ProductoDAO.SQL_CONTAR_POR_CATEGORIA),
+                new Consulta("ProductoDAO.getByNombre", ProductoDAO.SQL_POR_NOMBRE, "Leche Entera"),
+                new Consulta("ProductoDAO.buscar (FULLTEXT)", ProductoDAO.SQL_BUSCAR_FULLTEXT, "+leche*", "+leche*", 20, 0L),
+                new Consulta("ProductoDAO.buscar (prefijo con LIKE)", ProductoDAO.SQL_BUSCAR_PREFIJO, "le%", "le%", 20, 0L),
+                new Consulta("ProductoDAO.getByCodigoValor", ProductoDAO.SQL_POR_CODIGO_VALOR, valor),
+                new Consulta("ProductoDAO.actualizar",
+                        ProductoDAO.sqlActualizar(List.of(Producto.CAMPO_STOCK)), 10, 1L, 0L),
+                new Consulta("ProductoDAO.asignarCodigoDeBarras (con versión)",
+                        ProductoDAO.SQL_ASIGNAR_CODIGO_CON_VERSION, 1L, 1L, 0L),
+                new Consulta("ProductoDAO.asignarCodigoDeBarras", ProductoDAO.SQL_ASIGNAR_CODIGO, 1L, 1L, 1L, 1L),
+                new Consulta("ProductoDAO.asignarCodigoDeBarras (motivo)", ProductoDAO.SQL_MOTIVO_SIN_ASIGNACION, 1L, 1L),
+                new Consulta("ProductoDAO.ajustarStock", ProductoDAO.SQL_AJUSTAR_STOCK, 1, 1L, 1),
+                new Consulta("ProductoDAO.eliminar", ProductoDAO.SQL_ELIMINAR, 1L),
+                new Consulta("ProductoDAO.recuperar", ProductoDAO.SQL_RECUPERAR, 1L),
+                new Consulta("ProductoDAO.eliminarPorCategoria",
+                        ProductoDAO.sqlCambiarEstadoPorCategoria(true), true, categoria, false),
+                new Consulta("ProductoDAO.recuperarPorCategoria",
+                        ProductoDAO.sqlCambiarEstadoPorCategoria(false), false, categoria, true),
+                new Consulta("ProductoDAO.recuperarPorCategoria (archivo)", ProductoDAO.SQL_ARCHIVADOS_POR_CATEGORIA, categoria),
+                new Consulta("ProductoDAO.archivarEliminados", ProductoDAO.SQL_ARCHIVABLES, 30, 200),
+                new Consulta("ProductoDAO (activo o archivado)", ProductoDAO.SQL_EXISTE_ACTIVO_O_ARCHIVADO, 1L, 1L),
+                new Consulta("CodigoBarrasDAO.getById", CodigoBarrasDAO.SQL_POR_ID, 1L),
+                new Consulta("CodigoBarrasDAO.getPage", CodigoBarrasDAO.SQL_PAGINA, 0L, 20),
+                new Consulta("CodigoBarrasDAO.getByValor", CodigoBarrasDAO.SQL_POR_VALOR, valor),
+                new Consulta("CodigoBarrasDAO.actualizar",
+                        CodigoBarrasDAO.sqlActualizar(List.of(CodigoBarras.CAMPO_OBSERVACIONES)), "-", 1L, 0L),
+                new Consulta("CodigoBarrasDAO.eliminar", CodigoBarrasDAO.SQL_ELIMINAR, 1L),
+                new Consulta("CodigoBarrasDAO.recuperar", CodigoBarrasDAO.SQL_RECUPERAR, 1L),
+                new Consulta("CodigoBarrasDAO.archivarEliminados", CodigoBarrasDAO.SQL_ARCHIVABLES, 30, 200),
+                new Consulta("CodigoBarrasDAO (activo o archivado)", CodigoBarrasDAO.SQL_EXISTE_ACTIVO_O_ARCHIVADO, 1L, 1L)));
+
+        for (int tamanio : ClausulaIn.TAMANIOS) {
+            String sufijo = " (IN de " + tamanio + ")";
+            Object[] ids = new Object[tamanio];
+            Object[] valores = new Object[tamanio];
+            for (int i = 0; i < tamanio; i++) {
+                ids[i] = i + 1L;
+                valores[i] = String.valueOf(7791234567890L + i);
+            }
+            consultas.add(new Consulta("ProductoDAO.getByIds" + sufijo, ProductoDAO.sqlPorIds(tamanio), ids));
+            consultas.add(new Consulta("ProductoDAO.getByCodigoBarrasIds" + sufijo, ProductoDAO.sqlPorCodigoBarrasIds(tamanio), ids));
+            consultas.add(new Consulta("ProductoDAO.getByCodigoValores" + sufijo, ProductoDAO.sqlPorCodigoValores(tamanio), valores));
+            consultas.add(new Consulta("ProductoDAO.eliminarPorIds" + sufijo,
+                    ProductoDAO.sqlCambiarEstadoPorIds(true, tamanio), unir(new Object[] {true}, ids, new Object[] {false})));
+            consultas.add(new Consulta("ProductoDAO.recuperarPorIds" + sufijo,
+                    ProductoDAO.sqlCambiarEstadoPorIds(false, tamanio), unir(new Object[] {false}, ids, new Object[] {true})));
+            consultas.add(new Consulta("ProductoDAO.archivarEliminados (copia)" + sufijo, ProductoDAO.sqlCopiarAlArchivo(tamanio), ids));
+            consultas.add(new Consulta("ProductoDAO.archivarEliminados (borrado)" + sufijo, ProductoDAO.sqlBorrarPorIds(tamanio), ids));
+            consultas.add(new Consulta("ProductoDAO.restaurarDesdeArchivo (copia)" + sufijo,
+                    ProductoDAO.sqlRestaurarDesdeArchivo(tamanio), unir(ids, ids)));
+            consultas.add(new Consulta("ProductoDAO.restaurarDesdeArchivo (borrado)" + sufijo, ProductoDAO.sqlBorrarDelArchivo(tamanio), ids));
+            consultas.add(new Consulta("CodigoBarrasDAO.getByIds" + sufijo, CodigoBarrasDAO.sqlPorIds(tamanio), ids));
+            consultas.add(new Consulta("CodigoBarrasDAO.getByValores" + sufijo, CodigoBarrasDAO.sqlPorValores(tamanio), valores));
+            consultas.add(new Consulta("CodigoBarrasDAO.getValoresExistentes" + sufijo, CodigoBarrasDAO.sqlValoresExistentes(tamanio), valores));
+            consultas.add(new Consulta("CodigoBarrasDAO.eliminarPorIds" + sufijo,
+                    CodigoBarrasDAO.sqlCambiarEstadoPorIds(true, tamanio), unir(new Object[] {true}, ids, new Object[] {false})));
+            consultas.add(new Consulta("CodigoBarrasDAO.recuperarPorIds" + sufijo,
+                    CodigoBarrasDAO.sqlCambiarEstadoPorIds(false, tamanio), unir(new Object[] {false}, ids, new Object[] {true})));
+            consultas.add(new Consulta("CodigoBarrasDAO.archivarEliminados (copia)" + sufijo, CodigoBarrasDAO.sqlCopiarAlArchivo(tamanio), ids));
+            consultas.add(new Consulta("CodigoBarrasDAO.archivarEliminados (borrado)" + sufijo, CodigoBarrasDAO.sqlBorrarPorIds(tamanio), ids));
+            consultas.add(new Consulta("CodigoBarrasDAO.restaurarDesdeArchivo (copia)" + sufijo,
+                    CodigoBarrasDAO.sqlRestaurarDesdeArchivo(tamanio), ids));
+            consultas.add(new Consulta("CodigoBarrasDAO.restaurarDesdeArchivo (borrado)" + sufijo,
+                    CodigoBarrasDAO.sqlBorrarDelArchivo(tamanio), ids));
+        }
+        return List.copyOf(consultas);
+    }
+
+    private static Object[] unir(Object[]... partes) {
+        List<Object> parametros = new ArrayList<>();
+        for (Object[] parte : partes) {
+            parametros.addAll(List.of(parte));
+        }
+        return parametros.toArray();
+    }
+
+    /**
+     * Ejecuta {@code EXPLAIN} sobre cada consulta y devuelve las que
+     * recorren completa alguna tabla.
+     *
+     * @return descripciones de las consultas con recorrido completo; vacía si no hay regresiones.
+     * @throws SQLException si falla la conexión o alguna consulta.
+     */
+    public static List<String> buscarRecorridosCompletos() throws SQLException {
+        List<String> regresiones = new ArrayList<>();
+        try (Connection conn = DatabaseConnection.getConnection()) {
+            for (Consulta consulta : CONSULTAS) {
+                try (PreparedStatement stmt = conn.prepareStatement("EXPLAIN " + consulta.sql())) {
+                    for (int i = 0; i < consulta.parametros().length; i++) {
+                        stmt.setObject(i + 1, consulta.parametros()[i]);
+                    }
+                    try (ResultSet rs = stmt.executeQuery()) {
+                        while (rs.next()) {
+                            if ("ALL".equals(rs.getString("type")) && !"INSERT".equals(rs.getString("select_type"))) {
+                                regresiones.add(consulta.descripcion() + ": recorrido completo de " + rs.getString("table"));
+                            }
+                        }
+                    }
+                }
+            }
+        }
+        return regresiones;
+    }
+
+    /**
+     * Imprime el resultado de la verificación.
+     *
+     * @return {@code 0} si todas las consultas usan índices, {@code 1} si alguna recorre completa una tabla.
+     * @throws SQLException si falla la conexión o alguna consulta.
+     */
+    private static int verificar() throws SQLException {
+        List<String> regresiones = buscarRecorridosCompletos();
+        if (regresiones.isEmpty()) {
+            System.out.println("✓ Las " + CONSULTAS.size() + " consultas verificadas usan índices.");
+            return 0;
+        }
+        regresiones.forEach(r -> System.err.println("✗ " + r));
+        return 1;
+    }
+
+    /**
+     * Ejecuta la verificación y cierra el pool de conexiones.
+     * Termina con código 1 si alguna consulta recorre completa una tabla.
+     */
+    public static void main(String[] args) throws Exception {
+        int codigoSalida;
+        try {
+            codigoSalida = verificar();
+        } finally {
+            DatabaseConnection.cerrarPool();
+        }
+        System.exit(codigoSalida);
+    }
+}
@@ -0,0 +1,474 @@
+package config;
+/**
+ * @authors
+ * Gaston Alberto Cejas,
+ * Hernan Cóceres,
+ * Claudio Rodriguez,
+ * Hernan E.Bula
+ */
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Pool de conexiones JDBC reutilizables.
+ *
+ * <p>Mantiene un conjunto de conexiones físicas abiertas entre {@code minimo}
+ * y {@code maximo}. Las conexiones se entregan envueltas en un proxy cuyo
+ * {@code close()} las devuelve al pool en lugar de cerrarlas, por lo que los
+ * DAOs y servicios siguen usando try-with-resources sin cambios.</p>
+ *
+ * <p><b>Comportamiento:</b>
+ * <ul>
+ *   <li>Validación al prestar: si la conexión estuvo ociosa más de
+ *       {@link #VALIDACION_OMITIR_MS} ms se verifica con {@link Connection#isValid(int)}</li>
+ *   <li>Tiempo máximo de espera al prestar: si no hay conexiones libres y se
+ *       alcanzó el máximo, se espera hasta {@code esperaMaximaMs} y luego se
+ *       lanza {@link SQLException}</li>
+ *   <li>Desalojo de ociosas: una tarea periódica cierra las conexiones que
+ *       superan {@code ociosaMaximaMs} sin uso, respetando el mínimo</li>
+ *   <li>Al devolver una conexión con una transacción abierta se hace rollback
+ *       y se restablece {@code autoCommit = true}</li>
+ *   <li>Cada conexión física tiene su propia {@link StatementCache}: las
+ *       llamadas a {@code prepareStatement(sql)} y
+ *       {@code prepareStatement(sql, autoGeneratedKeys)} reutilizan la
+ *       sentencia ya preparada con el mismo SQL</li>
+ * </ul>
+ * </p>
+ *
+ * @see DatabaseConnection#getConnection()
+ */
+public class ConnectionPool {
+
+    /** Si la conexión se usó hace menos de este tiempo, no se valida al prestarla. */
+    private static final long VALIDACION_OMITIR_MS = 500;
+
+    private final String url;
+    private final String usuario;
+    private final String password;
+    private final int minimo;
+    private final int maximo;
+    private final long ociosaMaximaMs;
+    private final long esperaMaximaMs;
+    private final int validacionTimeoutSeg;
+    private final int capacidadCacheSentencias;
+
+    private final LongAdder aciertosSentencias = new LongAdder();
+    private final LongAdder fallosSentencias = new LongAdder();
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition disponible = lock.newCondition();
+
+    /** Conexiones libres; la primera es la usada más recientemente. */
+    private final Deque<ConexionFisica> libres = new ArrayDeque<>();
+
+    /** Conexiones abiertas o en proceso de apertura (libres + prestadas). */
+    private int totales;
+
+    private boolean cerrado;
+
+    private final ScheduledExecutorService limpiador;
+
+    /**
+     * Crea un pool de conexiones.
+     *
+     * @param url                  URL JDBC de la base de datos.
+     * @param usuario              usuario de la base de datos.
+     * @param password             contraseña del usuario.
+     * @param minimo               cantidad mínima de conexiones a mantener abiertas.
+     * @param maximo               cantidad máxima de conexiones simultáneas.
+     * @param ociosaMaximaMs       tiempo sin uso tras el cual una conexión puede cerrarse.
+     * @param esperaMaximaMs       tiempo máximo de espera al pedir una conexión.
+     * @param validacionTimeoutSeg timeout en segundos para validar una conexión.
+     * @param capacidadCacheSentencias cantidad máxima de sentencias preparadas
+     *                             en caché por conexión; {@code 0} la desactiva.
+     * @throws IllegalArgumentException si los tamaños o tiempos son inválidos.
+     */
+    public ConnectionPool(String url, String usuario, String password, int minimo, int maximo,
+                          long ociosaMaximaMs, long esperaMaximaMs, int validacionTimeoutSeg,
+                          int capacidadCacheSentencias) {
+        if (minimo < 0 || maximo <= 0 || minimo > maximo) {
+            throw new IllegalArgumentException("Tamaños de pool inválidos: mínimo=" + minimo + ", máximo=" + maximo);
+        }
+        if (ociosaMaximaMs <= 0 || esperaMaximaMs < 0 || validacionTimeoutSeg < 0) {
+            throw new IllegalArgumentException("Los tiempos del pool no pueden ser negativos.");
+        }
+        if (capacidadCacheSentencias < 0) {
+            throw new IllegalArgumentException("La capacidad de la caché de sentencias no puede ser negativa.");
+        }
+        this.url = url;
+        this.usuario = usuario;
+        this.password = password;
+        this.minimo = minimo;
+        this.maximo = maximo;
+        this.ociosaMaximaMs = ociosaMaximaMs;
+        this.esperaMaximaMs = esperaMaximaMs;
+        this.validacionTimeoutSeg = validacionTimeoutSeg;
+        this.capacidadCacheSentencias = capacidadCacheSentencias;
+
+        this.limpiador = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "pool-conexiones-limpieza");
+            t.setDaemon(true);
+            return t;
+        });
+        long periodo = Math.max(1000, ociosaMaximaMs / 2);
+        limpiador.scheduleWithFixedDelay(this::mantenimiento, periodo, periodo, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Presta una conexión del pool.
+     *
+     * <p>Reutiliza una conexión libre si la hay; si no, abre una nueva mientras
+     * no se haya alcanzado el máximo. En caso contrario espera a que otra
+     * conexión sea devuelta.</p>
+     *
+     * @return conexión lista para usar; al cerrarla vuelve al pool.
+     * @throws SQLException si el pool está cerrado, si se agota el tiempo de
+     *                      espera o si falla la apertura de una conexión nueva.
+     */
+    public Connection obtenerConexion() throws SQLException {
+        long limite = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(esperaMaximaMs);
+
+        while (true) {
+            ConexionFisica candidata = null;
+            boolean crear = false;
+
+            lock.lock();
+            try {
+                while (candidata == null && !crear) {
+                    if (cerrado) {
+                        throw new SQLException("El pool de conexiones está cerrado.");
+                    }
+                    candidata = libres.pollFirst();
+                    if (candidata == null) {
+                        if (totales < maximo) {
+                            totales++;
+                            crear = true;
+                        } else {
+                            long restante = limite - System.nanoTime();
+                            if (restante <= 0) {
+                                throw new SQLException("Tiempo de espera agotado: no hay conexiones disponibles en el pool (máximo "
+                                        + maximo + ").");
+                            }
+                            disponible.awaitNanos(restante);
+                        }
+                    }
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new SQLException("Interrumpido mientras se esperaba una conexión del pool.", e);
+            } finally {
+                lock.unlock();
+            }
+
+            if (crear) {
+                return envolver(abrirConexion());
+            }
+
+            if (esValida(candidata)) {
+                return envolver(candidata);
+            }
+            descartar(candidata);
+        }
+    }
+
+    /**
+     * @return cantidad de {@code prepareStatement} resueltos desde la caché.
+     */
+    public long getAciertosCacheSentencias() {
+        return aciertosSentencias.sum();
+    }
+
+    /**
+     * @return cantidad de {@code prepareStatement} que debieron prepararse en el driver.
+     */
+    public long getFallosCacheSentencias() {
+        return fallosSentencias.sum();
+    }
+
+    /**
+     * Cierra el pool y todas las conexiones libres. Las conexiones prestadas
+     * se cierran cuando son devueltas.
+     */
+    public void cerrar() {
+        List<ConexionFisica> aCerrar;
+        lock.lock();
+        try {
+            if (cerrado) {
+                return;
+            }
+            cerrado = true;
+            aCerrar = new ArrayList<>(libres);
+            totales -= libres.size();
+            libres.clear();
+            disponible.signalAll();
+        } finally {
+            lock.unlock();
+        }
+        limpiador.shutdownNow();
+        for (ConexionFisica c : aCerrar) {
+            cerrarSilencioso(c);
+        }
+    }
+
+    /**
+     * Abre una conexión física. Debe llamarse después de haber reservado el
+     * lugar incrementando {@link #totales}.
+     */
+    private ConexionFisica abrirConexion() throws SQLException {
+        try {
+            StatementCache cache = (capacidadCacheSentencias > 0)
+                    ? new StatementCache(capacidadCacheSentencias, aciertosSentencias, fallosSentencias)
+                    : null;
+            return new ConexionFisica(DriverManager.getConnection(url, usuario, password), cache);
+        } catch (SQLException e) {
+            lock.lock();
+            try {
+                totales--;
+                disponible.signal();
+            } finally {
+                lock.unlock();
+            }
+            throw e;
+        }
+    }
+
+    private boolean esValida(ConexionFisica c) {
+        if (System.nanoTime() - c.ultimoUso < TimeUnit.MILLISECONDS.toNanos(VALIDACION_OMITIR_MS)) {
+            return true;
+        }
+        try {
+            return c.conexion.isValid(validacionTimeoutSeg);
+        } catch (SQLException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Devuelve una conexión al pool dejando su estado como recién abierta.
+     */
+    private void devolver(ConexionFisica c) {
+        boolean reutilizable = !c.rota;
+        if (reutilizable) {
+            try {
+                if (!c.conexion.getAutoCommit()) {
+                    c.conexion.rollback();
+                    c.conexion.setAutoCommit(true);
+                }
+                c.conexion.clearWarnings();
+            } catch (SQLException e) {
+                reutilizable = false;
+            }
+        }
+
+        lock.lock();
+        try {
+            if (reutilizable && !cerrado) {
+                c.ultimoUso = System.nanoTime();
+                libres.addFirst(c);
+                disponible.signal();
+                return;
+            }
+        } finally {
+            lock.unlock();
+        }
+        descartar(c);
+    }
+
+    private void descartar(ConexionFisica c) {
+        lock.lock();
+        try {
+            totales--;
+            disponible.signal();
+        } finally {
+            lock.unlock();
+        }
+        cerrarSilencioso(c);
+    }
+
+    /**
+     * Tarea periódica: cierra las conexiones ociosas que superan el tiempo
+     * máximo (empezando por las más antiguas) y repone el mínimo.
+     */
+    private void mantenimiento() {
+        List<ConexionFisica> vencidas = new ArrayList<>();
+        int faltantes;
+        lock.lock();
+        try {
+            if (cerrado) {
+                return;
+            }
+            long ahora = System.nanoTime();
+            long maxOciosa = TimeUnit.MILLISECONDS.toNanos(ociosaMaximaMs);
+            Iterator<ConexionFisica> it = libres.descendingIterator();
+            while (it.hasNext() && totales > minimo) {
+                ConexionFisica c = it.next();
+                if (ahora - c.ultimoUso < maxOciosa) {
+                    break;
+                }
+                it.remove();
+                totales--;
+                vencidas.add(c);
+            }
+            faltantes = Math.max(0, minimo - totales);
+            totales += faltantes;
+        } finally {
+            lock.unlock();
+        }
+
+        for (ConexionFisica c : vencidas) {
+            cerrarSilencioso(c);
+        }
+
+        for (int i = 0; i < faltantes; i++) {
+            try {
+                ConexionFisica nueva = abrirConexion();
+                nueva.ultimoUso = 0;
+                lock.lock();
+                try {
+                    if (cerrado) {
+                        totales--;
+                    } else {
+                        libres.addLast(nueva);
+                        disponible.signal();
+                        nueva = null;
+                    }
+                } finally {
+                    lock.unlock();
+                }
+                if (nueva != null) {
+                    cerrarSilencioso(nueva);
+                }
+            } catch (SQLException e) {
+                int restantes = faltantes - i - 1;
+                lock.lock();
+                try {
+                    totales -= restantes;
+                } finally {
+                    lock.unlock();
+                }
+                System.err.println("⚠ Advertencia: No se pudo reponer el mínimo de conexiones del pool: " + e.getMessage());
+                return;
+            }
+        }
+    }
+
+    private static void cerrarSilencioso(ConexionFisica c) {
+        try {
+            c.conexion.close();
+        } catch (SQLException e) {
+            System.err.println("Error al cerrar conexión del pool: " + e.getMessage());
+        }
+    }
+
+    private Connection envolver(ConexionFisica c) {
+        return (Connection) Proxy.newProxyInstance(
+                Connection.class.getClassLoader(),
+                new Class<?>[]{Connection.class},
+                new ManejadorConexion(c));
+    }
+
+    /**
+     * Conexión física junto con su estado dentro del pool.
+     */
+    private static final class ConexionFisica {
+        final Connection conexion;
+        /** Caché de sentencias de esta conexión, o {@code null} si está desactivada. */
+        final StatementCache sentencias;
+        long ultimoUso = System.nanoTime();
+        /** Se marca cuando el driver informa un error de conexión (SQLState 08xxx). */
+        volatile boolean rota;
+
+        ConexionFisica(Connection conexion, StatementCache sentencias) {
+            this.conexion = conexion;
+            this.sentencias = sentencias;
+        }
+    }
+
+    /**
+     * Proxy de {@link Connection}: delega todo en la conexión física salvo
+     * {@code close()}, que la devuelve al pool, y {@code prepareStatement},
+     * que pasa por la caché de sentencias.
+     */
+    private final class ManejadorConexion implements InvocationHandler {
+        private ConexionFisica fisica;
+
+        ManejadorConexion(ConexionFisica fisica) {
+            this.fisica = fisica;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "close":
+                    if (fisica != null) {
+                        ConexionFisica f = fisica;
+                        fisica = null;
+                        devolver(f);
+                    }
+                    return null;
+                case "isClosed":
+                    return fisica == null || fisica.conexion.isClosed();
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "toString":
+                    return "ConexionPool[" + (fisica != null ? fisica.conexion : "devuelta") + "]";
+                default:
+                    break;
+            }
+
+            if (fisica == null) {
+                throw new SQLException("La conexión ya fue devuelta al pool.");
+            }
+            if (fisica.sentencias != null && method.getName().equals("prepareStatement")) {
+                Class<?>[] tipos = method.getParameterTypes();
+                if (tipos.length == 1) {
+                    return preparar(proxy, (String) args[0], Statement.NO_GENERATED_KEYS);
+                }
+                if (tipos.length == 2 && tipos[1] == int.class) {
+                    return preparar(proxy, (String) args[0], (Integer) args[1]);
+                }
+            }
+            try {
+                return method.invoke(fisica.conexion, args);
+            } catch (InvocationTargetException e) {
+                Throwable causa = e.getCause();
+                if (causa instanceof SQLException sqlEx
+                        && sqlEx.getSQLState() != null && sqlEx.getSQLState().startsWith("08")) {
+                    fisica.rota = true;
+                }
+                throw causa;
+            }
+        }
+
+        private PreparedStatement preparar(Object proxy, String sql, int generatedKeys) throws SQLException {
+            try {
+                return fisica.sentencias.preparar(fisica.conexion, (Connection) proxy, sql, generatedKeys);
+            } catch (SQLException e) {
+                if (e.getSQLState() != null && e.getSQLState().startsWith("08")) {
+                    fisica.rota = true;
+                }
+                throw e;
+            }
+        }
+    }
+}
@@ -19,9 +19,19 @@ public class DatabaseConnection {
     private static final String USER = "root";
     private static final String PASSWORD = "Laia1002";
     
+    // Configuración del pool de conexiones
+    private static final int POOL_MINIMO = 2;
+    private static final int POOL_MAXIMO = 10;
+    private static final long POOL_OCIOSA_MAXIMA_MS = 5 * 60 * 1000;
+    private static final long POOL_ESPERA_MAXIMA_MS = 5 * 1000;
+    private static final int POOL_VALIDACION_TIMEOUT_SEG = 2;
+    private static final int POOL_CACHE_SENTENCIAS = 50;
+    
     private static final String JDBC_PROTOCOL;
     private static final String URL_WITH_DB;
     private static final String URL_WITHOUT_DB;
+    
+    private static ConnectionPool pool;
 
     static {
         String protocol = "mysql"; // Por defecto MySQL
@@ -42,38 +52,103 @@ public class DatabaseConnection {
         }
         
         JDBC_PROTOCOL = protocol;
-        URL_WITH_DB = "jdbc:" + JDBC_PROTOCOL + "://" + HOST + ":" + PORT + "/" + DB_NAME;
+        // Sentencias preparadas del lado del servidor: se reutilizan gracias a la
+        // caché de sentencias de cada conexión del pool (ver StatementCache).
+        // Las opciones de lotes y streaming dependen del driver:
+        // - MySQL Connector/J: rewriteBatchedStatements agrupa los lotes de INSERT
+        //   en una sola sentencia y useCursorFetch hace que setFetchSize(n) traiga
+        //   las filas de a n.
+        // - MariaDB Connector/J 3.x (el que incluye el proyecto) no reconoce esas
+        //   opciones: useBulkStmts envía los lotes con el protocolo bulk del
+        //   servidor, y con setFetchSize(n) > 0 ya lee las filas de a n sin
+        //   opciones adicionales.
+        String opcionesDriver = "mysql".equals(JDBC_PROTOCOL)
+                ? "&rewriteBatchedStatements=true&useCursorFetch=true"
+                : "&useBulkStmts=true";
+        URL_WITH_DB = "jdbc:" + JDBC_PROTOCOL + "://" + HOST + ":" + PORT + "/" + DB_NAME
+                + "?useServerPrepStmts=true" + opcionesDriver;
         URL_WITHOUT_DB = "jdbc:" + JDBC_PROTOCOL + "://" + HOST + ":" + PORT;
     }
 
     /**
-     * Inicializa la base de datos si no existe.
+     * Inicializa la base de datos: la crea si no existe y aplica las
+     * migraciones de esquema pendientes (ver {@link MigradorEsquema}).
+     * Si el esquema ya está al día, solo se consulta su versión.
      * Debe llamarse al inicio de la aplicación antes de usar getConnection().
      */
     public static void inicializarBaseDatos() throws SQLException {
-        try (Connection conn = DriverManager.getConnection(URL_WITH_DB, USER, PASSWORD)) {
-            return;
+        try (Connection conn = conectarCreandoBaseDatos()) {
+            MigradorEsquema.migrar(conn);
+        }
+    }
+    
+    /**
+     * Abre una conexión directa (fuera del pool) a la base de datos,
+     * creándola primero si no existe.
+     */
+    private static Connection conectarCreandoBaseDatos() throws SQLException {
+        try {
+            return DriverManager.getConnection(URL_WITH_DB, USER, PASSWORD);
         } catch (SQLException e) {
             if (e.getErrorCode() == 1049 || e.getMessage().contains("Unknown database")) {
                 System.out.println("⚠ Base de datos '" + DB_NAME + "' no encontrada. Intentando crearla...");
                 crearBaseDatosSiNoExiste();
-            } else {
-                throw e;
+                return DriverManager.getConnection(URL_WITH_DB, USER, PASSWORD);
             }
+            throw e;
         }
     }
     
+    /**
+     * Obtiene una conexión del pool.
+     * Al cerrarla (por ejemplo con try-with-resources) vuelve al pool en lugar
+     * de cerrarse físicamente.
+     */
     public static Connection getConnection() throws SQLException {
         if (URL_WITH_DB == null || URL_WITH_DB.isEmpty() || USER == null || USER.isEmpty()) {
             throw new SQLException("Configuración de la base de datos incompleta o inválida.");
         }
         
-        return DriverManager.getConnection(URL_WITH_DB, USER, PASSWORD);
+        return getPool().obtenerConexion();
     }
     
     /**
-     * Crea la base de datos y las tablas si no existen.
-     * Se ejecuta automáticamente si la base de datos no existe.
+     * Cierra el pool de conexiones. Debe llamarse al finalizar la aplicación.
+     */
+    public static synchronized void cerrarPool() {
+        if (pool != null) {
+            pool.cerrar();
+            pool = null;
+        }
+    }
+    
+    /**
+     * Devuelve un resumen de uso de la caché de sentencias preparadas.
+     *
+     * @return texto con aciertos, fallos y tasa de aciertos.
+     */
+    public static String getEstadisticasCacheSentencias() {
+        ConnectionPool actual = getPool();
+        long aciertos = actual.getAciertosCacheSentencias();
+        long fallos = actual.getFallosCacheSentencias();
+        long total = aciertos + fallos;
+        double tasa = (total == 0) ? 0 : (aciertos * 100.0 / total);
+        return String.format("Caché de sentencias: %d aciertos, %d fallos (%.1f%% aciertos)", aciertos, fallos, tasa);
+    }
+    
+    private static synchronized ConnectionPool getPool() {
+        if (pool == null) {
+            pool = new ConnectionPool(URL_WITH_DB, USER, PASSWORD,
+                    POOL_MINIMO, POOL_MAXIMO,
+                    POOL_OCIOSA_MAXIMA_MS, POOL_ESPERA_MAXIMA_MS, POOL_VALIDACION_TIMEOUT_SEG,
+                    POOL_CACHE_SENTENCIAS);
+        }
+        return pool;
+    }
+    
+    /**
+     * Crea la base de datos vacía. Las tablas y los datos de prueba los crean
+     * las migraciones (ver {@link MigradorEsquema}).
      */
     private static void crearBaseDatosSiNoExiste() throws SQLException {
         try (Connection conn = DriverManager.getConnection(URL_WITHOUT_DB, USER, PASSWORD);
@@ -82,83 +157,8 @@ public class DatabaseConnection {
             stmt.executeUpdate("CREATE DATABASE IF NOT EXISTS " + DB_NAME);
             System.out.println("✓ Base de datos '" + DB_NAME + "' creada exitosamente.");
             
-            stmt.executeUpdate("USE " + DB_NAME);
-            
-            String sqlCodigoBarras = 
-                "CREATE TABLE IF NOT EXISTS codigo_barras (" +
-                "  id BIGINT AUTO_INCREMENT PRIMARY KEY, " +
-                "  tipo VARCHAR(10) NOT NULL COMMENT 'EAN13, EAN8, UPC', " +
-                "  valor VARCHAR(20) NOT NULL UNIQUE, " +
-                "  fecha_asignacion DATE, " +
-                "  observaciones VARCHAR(255), " +
-                "  eliminado BOOLEAN DEFAULT FALSE, " +
-                "  INDEX idx_eliminado (eliminado), " +
-                "  INDEX idx_valor (valor), " +
-                "  INDEX idx_tipo (tipo)" +
-                ") ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci";
-            stmt.executeUpdate(sqlCodigoBarras);
-            
-            String sqlProducto =
-                "CREATE TABLE IF NOT EXISTS producto (" +
-                "  id BIGINT AUTO_INCREMENT PRIMARY KEY, " +
-                "  nombre VARCHAR(120) NOT NULL, " +
-                "  marca VARCHAR(80), " +
-                "  categoria VARCHAR(80), " +
-                "  precio DECIMAL(10,2) NOT NULL, " +
-                "  peso DECIMAL(10,3), " +
-                "  stock INT DEFAULT 0, " +
-                "  eliminado BOOLEAN DEFAULT FALSE, " +
-                "  codigo_barras_id BIGINT UNIQUE, " +
-                "  INDEX idx_eliminado (eliminado), " +
-                "  INDEX idx_categoria (categoria), " +
-                "  INDEX idx_nombre (nombre), " +
-                "  INDEX idx_marca (marca), " +
-                "  CONSTRAINT fk_producto_codigo " +
-                "    FOREIGN KEY (codigo_barras_id) " +
-                "    REFERENCES codigo_barras(id) " +
-                "    ON DELETE SET NULL " +
-                "    ON UPDATE CASCADE" +
-                ") ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci";
-            stmt.executeUpdate(sqlProducto);
-            
-            System.out.println("✓ Base de datos y tablas inicializadas correctamente.\n");
-            
-            insertarDatosPrueba(conn);
-            
         } catch (SQLException e) {
             throw new SQLException("Error al crear la base de datos: " + e.getMessage(), e);
         }
     }
-    
-    /**
-     * Inserta algunos productos de prueba con códigos de barras en la base de datos.
-     */
-    private static void insertarDatosPrueba(Connection conn) throws SQLException {
-        System.out.println("✓ Insertando productos de prueba...");
-
-        try (Statement stmt = conn.createStatement()) {
-
-            String insertCodigos
-                    = "INSERT IGNORE INTO codigo_barras (id, tipo, valor, fecha_asignacion, observaciones) VALUES "
-                    + "(1, 'EAN13', '7791234567890', '2025-10-01', 'Lote L123 - Leche entera premium'), "
-                    + "(2, 'EAN8', '7791234567891', '2025-10-02', 'Pan integral sin conservantes'), "
-                    + "(3, 'UPC', '7791234567892', '2025-10-03', 'Arroz largo fino calidad exportación') ";
-
-
-            stmt.executeUpdate(insertCodigos);
-
-            String insertProductos
-                    = "INSERT IGNORE INTO producto (id, nombre, marca, categoria, precio, peso, stock, codigo_barras_id) VALUES "
-                    + "(1, 'Leche Entera', 'La Serenísima', 'ALIMENTOS', 1937.50, 1.000, 45, 1), "
-                    + "(2, 'Pan de Molde', 'Bimbo', 'ALIMENTOS', 1519.75, 0.500, 32, 2), "
-                    + "(3, 'Arroz Largo Fino', 'Gallo', 'ALIMENTOS', 2867.50, 1.000, 67, 3) ";
-
-
-            int productosInsertados = stmt.executeUpdate(insertProductos);
-            System.out.println("✓ " + productosInsertados + " productos de prueba insertados correctamente.");
-
-        } catch (SQLException e) {
-            System.err.println("⚠ Advertencia: No se pudieron insertar los datos de prueba: " + e.getMessage());
-        }
-    }
 }
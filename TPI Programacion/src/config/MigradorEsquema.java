@@ -0,0 +1,467 @@
+package config;
+/**
+ * @authors
+ * Gaston Alberto Cejas,
+ * Hernan Cóceres,
+ * Claudio Rodriguez,
+ * Hernan E.Bula
+ */
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+/**
+ * Aplica las migraciones versionadas del esquema de la base de datos.
+ *
+ * <p>Cada {@link Migracion} tiene un número de versión, una descripción y
+ * las sentencias SQL a ejecutar. Las aplicadas se registran en la tabla
+ * {@code schema_version} junto con un checksum de sus sentencias: si una
+ * migración ya aplicada se modifica en el código, el arranque falla en lugar
+ * de dejar el esquema en un estado desconocido. Los cambios de esquema se
+ * hacen agregando una migración nueva al final de {@link #MIGRACIONES}.</p>
+ *
+ * <p><b>Arranque rápido:</b> si la versión registrada ya es la última, la
+ * única sentencia ejecutada es {@code SELECT MAX(version)}.</p>
+ *
+ * <p><b>Arranques concurrentes:</b> las migraciones se aplican con el
+ * bloqueo con nombre de MySQL ({@code GET_LOCK}); una segunda instancia
+ * espera a que termine la primera y luego encuentra todo aplicado.</p>
+ *
+ * <p><b>Bases anteriores a las migraciones:</b> si las tablas existen pero
+ * {@code schema_version} está vacía, se completan las columnas, tablas e
+ * índices que pudieran faltar y se registran como aplicadas las migraciones
+ * hasta {@link #VERSION_BASE}.</p>
+ */
+final class MigradorEsquema {
+
+    /**
+     * Una migración del esquema.
+     *
+     * @param version     número de versión, consecutivo desde 1.
+     * @param descripcion texto breve que se guarda en {@code schema_version}.
+     * @param sentencias  sentencias SQL a ejecutar en orden.
+     */
+    private record Migracion(int version, String descripcion, List<String> sentencias) {
+
+        /**
+         * @return CRC32 del texto de las sentencias.
+         */
+        long checksum() {
+            CRC32 crc = new CRC32();
+            for (String sentencia : sentencias) {
+                crc.update(sentencia.getBytes(StandardCharsets.UTF_8));
+                crc.update('\n');
+            }
+            return crc.getValue();
+        }
+    }
+
+    private static final String NOMBRE_BLOQUEO = "depositotpi.migraciones";
+    private static final int ESPERA_BLOQUEO_SEG = 60;
+
+    /** Última versión que cubre la actualización de bases anteriores a las migraciones. */
+    private static final int VERSION_BASE = 2;
+
+    /** Error de MySQL: la tabla no existe. */
+    private static final int ERROR_TABLA_INEXISTENTE = 1146;
+
+    private static final List<Migracion> MIGRACIONES = List.of(
+        new Migracion(1, "Esquema inicial", List.of(
+            "CREATE TABLE IF NOT EXISTS codigo_barras (" +
+            "  id BIGINT AUTO_INCREMENT PRIMARY KEY, " +
+            "  tipo VARCHAR(10) NOT NULL COMMENT 'EAN13, EAN8, UPC', " +
+            "  valor VARCHAR(20) NOT NULL UNIQUE, " +
+            "  fecha_asignacion DATE, " +
+            "  observaciones VARCHAR(255), " +
+            "  eliminado BOOLEAN DEFAULT FALSE, " +
+            "  version BIGINT NOT NULL DEFAULT 0, " +
+            "  fecha_eliminacion DATETIME NULL, " +
+            "  INDEX idx_eliminado_fecha (eliminado, fecha_eliminacion)" +
+            ") ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci",
+
+            "CREATE TABLE IF NOT EXISTS producto (" +
+            "  id BIGINT AUTO_INCREMENT PRIMARY KEY, " +
+            "  nombre VARCHAR(120) NOT NULL, " +
+            "  marca VARCHAR(80), " +
+            "  categoria VARCHAR(80), " +
+            "  precio DECIMAL(10,2) NOT NULL, " +
+            "  peso DECIMAL(10,3), " +
+            "  stock INT DEFAULT 0, " +
+            "  eliminado BOOLEAN DEFAULT FALSE, " +
+            "  codigo_barras_id BIGINT UNIQUE, " +
+            "  version BIGINT NOT NULL DEFAULT 0, " +
+            "  fecha_eliminacion DATETIME NULL, " +
+            "  INDEX idx_categoria_eliminado (categoria, eliminado), " +
+            "  INDEX idx_nombre_eliminado (nombre, eliminado), " +
+            "  INDEX idx_eliminado_fecha (eliminado, fecha_eliminacion), " +
+            "  FULLTEXT INDEX ft_nombre_marca (nombre, marca), " +
+            "  CONSTRAINT fk_producto_codigo " +
+            "    FOREIGN KEY (codigo_barras_id) " +
+            "    REFERENCES codigo_barras(id) " +
+            "    ON DELETE SET NULL " +
+            "    ON UPDATE CASCADE" +
+            ") ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci",
+
+            // Tablas de archivo: mismas columnas, sin unicidad ni claves foráneas
+            "CREATE TABLE IF NOT EXISTS codigo_barras_archivo (" +
+            "  id BIGINT PRIMARY KEY, " +
+            "  tipo VARCHAR(10) NOT NULL, " +
+            "  valor VARCHAR(20) NOT NULL, " +
+            "  fecha_asignacion DATE, " +
+            "  observaciones VARCHAR(255), " +
+            "  version BIGINT NOT NULL DEFAULT 0, " +
+            "  fecha_eliminacion DATETIME NULL, " +
+            "  fecha_archivado DATETIME NOT NULL" +
+            ") ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci",
+
+            "CREATE TABLE IF NOT EXISTS producto_archivo (" +
+            "  id BIGINT PRIMARY KEY, " +
+            "  nombre VARCHAR(120) NOT NULL, " +
+            "  marca VARCHAR(80), " +
+            "  categoria VARCHAR(80), " +
+            "  precio DECIMAL(10,2) NOT NULL, " +
+            "  peso DECIMAL(10,3), " +
+            "  stock INT DEFAULT 0, " +
+            "  codigo_barras_id BIGINT, " +
+            "  version BIGINT NOT NULL DEFAULT 0, " +
+            "  fecha_eliminacion DATETIME NULL, " +
+            "  fecha_archivado DATETIME NOT NULL" +
+            ") ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci"
+        )),
+        new Migracion(2, "Datos de prueba", List.of(
+            "INSERT IGNORE INTO codigo_barras (id, tipo, valor, fecha_asignacion, observaciones) VALUES " +
+            "(1, 'EAN13', '7791234567890', '2025-10-01', 'Lote L123 - Leche entera premium'), " +
+            "(2, 'EAN8', '7791234567891', '2025-10-02', 'Pan integral sin conservantes'), " +
+            "(3, 'UPC', '7791234567892', '2025-10-03', 'Arroz largo fino calidad exportación')",
+
+            "INSERT IGNORE INTO producto (id, nombre, marca, categoria, precio, peso, stock, codigo_barras_id) VALUES " +
+            "(1, 'Leche Entera', 'La Serenísima', 'ALIMENTOS', 1937.50, 1.000, 45, 1), " +
+            "(2, 'Pan de Molde', 'Bimbo', 'ALIMENTOS', 1519.75, 0.500, 32, 2), " +
+            "(3, 'Arroz Largo Fino', 'Gallo', 'ALIMENTOS', 2867.50, 1.000, 67, 3)"
+        )),
+        new Migracion(3, "Índice por marca para la búsqueda por prefijo", List.of(
+            "CREATE INDEX idx_marca_eliminado ON producto (marca, eliminado)"
+        )),
+        new Migracion(4, "Índice por categoría del archivo de productos", List.of(
+            "CREATE INDEX idx_archivo_categoria ON producto_archivo (categoria)"
+        ))
+    );
+
+    private MigradorEsquema() {
+    }
+
+    /**
+     * Lleva el esquema de la base de datos de {@code conn} a la última versión.
+     *
+     * @param conn conexión a la base de datos, en modo autocommit.
+     * @throws SQLException si una migración falla, si una ya aplicada fue
+     *                      modificada, si la base es más nueva que la aplicación
+     *                      o si no se obtiene el bloqueo a tiempo.
+     */
+    static void migrar(Connection conn) throws SQLException {
+        int ultima = MIGRACIONES.get(MIGRACIONES.size() - 1).version();
+        int actual = versionActual(conn);
+        if (actual == ultima) {
+            return;
+        }
+        if (actual > ultima) {
+            throw new SQLException("La base de datos está en la versión " + actual
+                    + ", más nueva que la que conoce la aplicación (" + ultima + ").");
+        }
+
+        bloquear(conn);
+        try {
+            crearTablaVersiones(conn);
+            Map<Integer, Long> aplicadas = leerAplicadas(conn);
+
+            if (aplicadas.isEmpty() && existeTabla(conn, "producto")) {
+                actualizarEsquemaHeredado(conn);
+                for (Migracion migracion : MIGRACIONES) {
+                    if (migracion.version() <= VERSION_BASE) {
+                        registrar(conn, migracion, 0);
+                        aplicadas.put(migracion.version(), migracion.checksum());
+                    }
+                }
+                System.out.println("✓ Esquema existente registrado en la versión " + VERSION_BASE + ".");
+            }
+
+            for (Migracion migracion : MIGRACIONES) {
+                Long checksum = aplicadas.get(migracion.version());
+                if (checksum == null) {
+                    aplicar(conn, migracion);
+                } else if (checksum != migracion.checksum()) {
+                    throw new SQLException("La migración V" + migracion.version() + " (" + migracion.descripcion()
+                            + ") fue modificada después de aplicarse (checksum distinto).");
+                }
+            }
+        } finally {
+            desbloquear(conn);
+        }
+    }
+
+    /**
+     * @return versión más alta registrada, o {@code 0} si la tabla de versiones no existe o está vacía.
+     */
+    private static int versionActual(Connection conn) throws SQLException {
+        try (Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT MAX(version) FROM schema_version")) {
+            return rs.next() ? rs.getInt(1) : 0;
+        } catch (SQLException e) {
+            if (e.getErrorCode() == ERROR_TABLA_INEXISTENTE) {
+                return 0;
+            }
+            throw e;
+        }
+    }
+
+    private static void bloquear(Connection conn) throws SQLException {
+        try (PreparedStatement stmt = conn.prepareStatement("SELECT GET_LOCK(?, ?)")) {
+            stmt.setString(1, NOMBRE_BLOQUEO);
+            stmt.setInt(2, ESPERA_BLOQUEO_SEG);
+            try (ResultSet rs = stmt.executeQuery()) {
+                if (!rs.next() || rs.getInt(1) != 1) {
+                    throw new SQLException("No se pudo obtener el bloqueo de migraciones en "
+                            + ESPERA_BLOQUEO_SEG + " segundos: otra instancia está migrando el esquema.");
+                }
+            }
+        }
+    }
+
+    private static void desbloquear(Connection conn) {
+        try (PreparedStatement stmt = conn.prepareStatement("SELECT RELEASE_LOCK(?)")) {
+            stmt.setString(1, NOMBRE_BLOQUEO);
+            stmt.executeQuery().close();
+        } catch (SQLException e) {
+            System.err.println("Error al liberar el bloqueo de migraciones: " + e.getMessage());
+        }
+    }
+
+    private static void crearTablaVersiones(Connection conn) throws SQLException {
+        try (Statement stmt = conn.createStatement()) {
+            stmt.executeUpdate(
+                "CREATE TABLE IF NOT EXISTS schema_version (" +
+                "  version INT PRIMARY KEY, " +
+                "  descripcion VARCHAR(200) NOT NULL, " +
+                "  checksum BIGINT NOT NULL, " +
+                "  fecha_aplicacion DATETIME NOT NULL, " +
+                "  duracion_ms BIGINT NOT NULL" +
+                ") ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci");
+        }
+    }
+
+    private static Map<Integer, Long> leerAplicadas(Connection conn) throws SQLException {
+        Map<Integer, Long> aplicadas = new HashMap<>();
+        try (Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT version, checksum FROM schema_version")) {
+            while (rs.next()) {
+                aplicadas.put(rs.getInt("version"), rs.getLong("checksum"));
+            }
+        }
+        return aplicadas;
+    }
+
+    /**
+     * Ejecuta las sentencias de una migración y la registra.
+     * MySQL confirma implícitamente cada sentencia DDL, por lo que una
+     * migración que falla a mitad de camino no se registra y debe corregirse
+     * con una migración nueva o a mano.
+     */
+    private static void aplicar(Connection conn, Migracion migracion) throws SQLException {
+        long inicio = System.nanoTime();
+        try (Statement stmt = conn.createStatement()) {
+            for (String sentencia : migracion.sentencias()) {
+                stmt.execute(sentencia);
+            }
+        } catch (SQLException e) {
+            throw new SQLException("Error al aplicar la migración V" + migracion.version() + " ("
+                    + migracion.descripcion() + "): " + e.getMessage(), e);
+        }
+        long duracionMs = (System.nanoTime() - inicio) / 1_000_000;
+        registrar(conn, migracion, duracionMs);
+        System.out.println("✓ Migración V" + migracion.version() + " aplicada: " + migracion.descripcion() + ".");
+    }
+
+    private static void registrar(Connection conn, Migracion migracion, long duracionMs) throws SQLException {
+        String sql = "INSERT INTO schema_version (version, descripcion, checksum, fecha_aplicacion, duracion_ms) " +
+                     "VALUES (?, ?, ?, NOW(), ?)";
+        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+            stmt.setInt(1, migracion.version());
+            stmt.setString(2, migracion.descripcion());
+            stmt.setLong(3, migracion.checksum());
+            stmt.setLong(4, duracionMs);
+            stmt.executeUpdate();
+        }
+    }
+
+    private static boolean existeTabla(Connection conn, String tabla) throws SQLException {
+        String sql = "SELECT 1 FROM information_schema.tables WHERE table_schema = DATABASE() AND table_name = ?";
+        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+            stmt.setString(1, tabla);
+            try (ResultSet rs = stmt.executeQuery()) {
+                return rs.next();
+            }
+        }
+    }
+
+    // ------------------------------------------------------------------
+    // Actualización de bases creadas antes de las migraciones
+    // ------------------------------------------------------------------
+
+    /**
+     * Lleva una base creada por versiones anteriores de la aplicación al
+     * esquema de {@link #VERSION_BASE}. Cada paso comprueba primero si hace
+     * falta, por lo que sirve para cualquier estado intermedio.
+     */
+    private static void actualizarEsquemaHeredado(Connection conn) throws SQLException {
+        // Las sentencias de la V1 son CREATE TABLE IF NOT EXISTS: solo crean lo que falte
+        try (Statement stmt = conn.createStatement()) {
+            for (String sentencia : MIGRACIONES.get(0).sentencias()) {
+                stmt.execute(sentencia);
+            }
+        }
+        asegurarIndiceBusqueda(conn);
+        asegurarColumnaVersion(conn, "codigo_barras");
+        asegurarColumnaVersion(conn, "producto");
+        asegurarColumnaFechaEliminacion(conn, "codigo_barras");
+        asegurarColumnaFechaEliminacion(conn, "producto");
+        asegurarIndices(conn);
+    }
+
+    /**
+     * Crea el índice FULLTEXT de búsqueda por nombre y marca en bases de datos
+     * creadas antes de que existiera.
+     */
+    private static void asegurarIndiceBusqueda(Connection conn) throws SQLException {
+        if (existeIndice(conn, "producto", "ft_nombre_marca")) {
+            return;
+        }
+        try (Statement stmt = conn.createStatement()) {
+            stmt.executeUpdate("ALTER TABLE producto ADD FULLTEXT INDEX ft_nombre_marca (nombre, marca)");
+            System.out.println("✓ Índice de búsqueda por nombre y marca creado.");
+        }
+    }
+
+    /**
+     * Lleva los índices de bases de datos existentes a la revisión actual.
+     *
+     * <p>Los índices de una sola columna se reemplazan por índices compuestos
+     * que siguen la forma de los predicados de los DAOs: primero la columna
+     * de igualdad selectiva y después {@code eliminado}, de modo que el filtro
+     * de filas activas se resuelve dentro del índice. Como InnoDB agrega la
+     * clave primaria al final de cada índice secundario, también quedan
+     * ordenados por {@code id} para la paginación por clave.</p>
+     *
+     * <ul>
+     *   <li>{@code producto(categoria, eliminado)}: listado paginado y conteo
+     *       por categoría, eliminación y recuperación por categoría.</li>
+     *   <li>{@code producto(nombre, eliminado)}: búsqueda exacta por nombre y
+     *       orden del listado por nombre.</li>
+     *   <li>{@code (eliminado, fecha_eliminacion)} en ambas tablas: selección
+     *       de filas a archivar.</li>
+     * </ul>
+     *
+     * <p>Se quitan {@code idx_valor} (redundante con {@code UNIQUE(valor)}),
+     * {@code idx_eliminado} (baja cardinalidad, cubierto por los compuestos),
+     * {@code idx_tipo} (ninguna consulta filtra por tipo) e {@code idx_marca},
+     * que la migración V3 reemplaza por {@code (marca, eliminado)} para la
+     * búsqueda por prefijo {@code nombre LIKE ? OR marca LIKE ?}.</p>
+     */
+    private static void asegurarIndices(Connection conn) throws SQLException {
+        crearIndiceSiNoExiste(conn, "producto", "idx_categoria_eliminado", "categoria, eliminado");
+        crearIndiceSiNoExiste(conn, "producto", "idx_nombre_eliminado", "nombre, eliminado");
+        crearIndiceSiNoExiste(conn, "producto", "idx_eliminado_fecha", "eliminado, fecha_eliminacion");
+        crearIndiceSiNoExiste(conn, "codigo_barras", "idx_eliminado_fecha", "eliminado, fecha_eliminacion");
+
+        eliminarIndiceSiExiste(conn, "producto", "idx_categoria");
+        eliminarIndiceSiExiste(conn, "producto", "idx_nombre");
+        eliminarIndiceSiExiste(conn, "producto", "idx_marca");
+        eliminarIndiceSiExiste(conn, "producto", "idx_eliminado");
+        eliminarIndiceSiExiste(conn, "producto", "idx_fecha_eliminacion");
+        eliminarIndiceSiExiste(conn, "codigo_barras", "idx_valor");
+        eliminarIndiceSiExiste(conn, "codigo_barras", "idx_tipo");
+        eliminarIndiceSiExiste(conn, "codigo_barras", "idx_eliminado");
+        eliminarIndiceSiExiste(conn, "codigo_barras", "idx_fecha_eliminacion");
+    }
+
+    private static boolean existeIndice(Connection conn, String tabla, String indice) throws SQLException {
+        String sql = "SELECT 1 FROM information_schema.statistics " +
+                     "WHERE table_schema = DATABASE() AND table_name = ? AND index_name = ?";
+        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+            stmt.setString(1, tabla);
+            stmt.setString(2, indice);
+            try (ResultSet rs = stmt.executeQuery()) {
+                return rs.next();
+            }
+        }
+    }
+
+    private static void crearIndiceSiNoExiste(Connection conn, String tabla, String indice, String columnas) throws SQLException {
+        if (existeIndice(conn, tabla, indice)) {
+            return;
+        }
+        try (Statement stmt = conn.createStatement()) {
+            stmt.executeUpdate("ALTER TABLE " + tabla + " ADD INDEX " + indice + " (" + columnas + ")");
+            System.out.println("✓ Índice " + indice + " creado en la tabla " + tabla + ".");
+        }
+    }
+
+    private static void eliminarIndiceSiExiste(Connection conn, String tabla, String indice) throws SQLException {
+        if (!existeIndice(conn, tabla, indice)) {
+            return;
+        }
+        try (Statement stmt = conn.createStatement()) {
+            stmt.executeUpdate("ALTER TABLE " + tabla + " DROP INDEX " + indice);
+            System.out.println("✓ Índice redundante " + indice + " eliminado de la tabla " + tabla + ".");
+        }
+    }
+
+    /**
+     * Agrega la columna {@code version} (concurrencia optimista) en bases de
+     * datos creadas antes de que existiera.
+     */
+    private static void asegurarColumnaVersion(Connection conn, String tabla) throws SQLException {
+        if (existeColumna(conn, tabla, "version")) {
+            return;
+        }
+        try (Statement stmt = conn.createStatement()) {
+            stmt.executeUpdate("ALTER TABLE " + tabla + " ADD COLUMN version BIGINT NOT NULL DEFAULT 0");
+            System.out.println("✓ Columna de versión agregada a la tabla " + tabla + ".");
+        }
+    }
+
+    /**
+     * Agrega la columna {@code fecha_eliminacion} (momento del soft delete) en
+     * bases de datos creadas antes de que existiera. A las filas ya eliminadas
+     * se les asigna la fecha actual, por lo que se archivan recién al cumplirse
+     * el período de retención a partir de la migración.
+     */
+    private static void asegurarColumnaFechaEliminacion(Connection conn, String tabla) throws SQLException {
+        if (existeColumna(conn, tabla, "fecha_eliminacion")) {
+            return;
+        }
+        try (Statement stmt = conn.createStatement()) {
+            stmt.executeUpdate("ALTER TABLE " + tabla + " ADD COLUMN fecha_eliminacion DATETIME NULL");
+            stmt.executeUpdate("UPDATE " + tabla + " SET fecha_eliminacion = NOW() WHERE eliminado = true");
+            System.out.println("✓ Columna de fecha de eliminación agregada a la tabla " + tabla + ".");
+        }
+    }
+
+    private static boolean existeColumna(Connection conn, String tabla, String columna) throws SQLException {
+        String sql = "SELECT 1 FROM information_schema.columns " +
+                     "WHERE table_schema = DATABASE() AND table_name = ? AND column_name = ?";
+        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+            stmt.setString(1, tabla);
+            stmt.setString(2, columna);
+            try (ResultSet rs = stmt.executeQuery()) {
+                return rs.next();
+            }
+        }
+    }
+}
@@ -0,0 +1,200 @@
+package config;
+/**
+ * @authors
+ * Gaston Alberto Cejas,
+ * Hernan Cóceres,
+ * Claudio Rodriguez,
+ * Hernan E.Bula
+ */
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Caché LRU de {@link PreparedStatement} asociada a una conexión física del pool.
+ *
+ * <p>Las sentencias se identifican por el texto SQL y el modo de claves
+ * generadas ({@link Statement#RETURN_GENERATED_KEYS} o
+ * {@link Statement#NO_GENERATED_KEYS}). Al cerrar la sentencia entregada, en
+ * lugar de cerrarse se limpian sus parámetros y queda disponible para el
+ * próximo {@code prepareStatement} con el mismo SQL, evitando que el driver
+ * vuelva a preparar la sentencia en el servidor.</p>
+ *
+ * <p>Una conexión del pool es usada por un único hilo a la vez, por lo que
+ * esta clase no está sincronizada. Los contadores de aciertos y fallos son
+ * compartidos por todo el pool.</p>
+ */
+final class StatementCache {
+
+    private final int capacidad;
+    private final LongAdder aciertos;
+    private final LongAdder fallos;
+    private final Map<Clave, Entrada> entradas;
+
+    /**
+     * @param capacidad cantidad máxima de sentencias en caché.
+     * @param aciertos  contador compartido de sentencias reutilizadas.
+     * @param fallos    contador compartido de sentencias preparadas de nuevo.
+     */
+    StatementCache(int capacidad, LongAdder aciertos, LongAdder fallos) {
+        this.capacidad = capacidad;
+        this.aciertos = aciertos;
+        this.fallos = fallos;
+        this.entradas = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Clave, Entrada> eldest) {
+                if (size() <= StatementCache.this.capacidad) {
+                    return false;
+                }
+                expulsar(eldest.getValue());
+                return true;
+            }
+        };
+    }
+
+    /**
+     * Devuelve una sentencia preparada para el SQL indicado, reutilizando la
+     * que esté en caché si no está en uso.
+     *
+     * @param fisica         conexión física sobre la que se prepara la sentencia.
+     * @param conexionProxy  conexión entregada al usuario (para {@code getConnection()}).
+     * @param sql            texto SQL.
+     * @param generatedKeys  {@link Statement#RETURN_GENERATED_KEYS} o {@link Statement#NO_GENERATED_KEYS}.
+     * @return sentencia lista para usar; su {@code close()} la devuelve a la caché.
+     * @throws SQLException si el driver no puede preparar la sentencia.
+     */
+    PreparedStatement preparar(Connection fisica, Connection conexionProxy, String sql, int generatedKeys)
+            throws SQLException {
+        Clave clave = new Clave(sql, generatedKeys);
+        Entrada entrada = entradas.get(clave);
+
+        if (entrada != null && !entrada.enUso) {
+            if (!entrada.sentencia.isClosed()) {
+                aciertos.increment();
+                return prestar(entrada, conexionProxy);
+            }
+            entradas.remove(clave);
+            entrada = null;
+        }
+
+        fallos.increment();
+        PreparedStatement sentencia = (generatedKeys == Statement.NO_GENERATED_KEYS)
+                ? fisica.prepareStatement(sql)
+                : fisica.prepareStatement(sql, generatedKeys);
+
+        if (entrada != null) {
+            // La misma sentencia ya está en uso (consultas anidadas): se entrega sin cachear.
+            return sentencia;
+        }
+
+        Entrada nueva = new Entrada(sentencia);
+        entradas.put(clave, nueva);
+        return prestar(nueva, conexionProxy);
+    }
+
+    private PreparedStatement prestar(Entrada entrada, Connection conexionProxy) {
+        entrada.enUso = true;
+        return (PreparedStatement) Proxy.newProxyInstance(
+                PreparedStatement.class.getClassLoader(),
+                new Class<?>[]{PreparedStatement.class},
+                new ManejadorSentencia(entrada, conexionProxy));
+    }
+
+    private void devolver(Entrada entrada) {
+        entrada.enUso = false;
+        if (entrada.expulsada) {
+            cerrarSilencioso(entrada.sentencia);
+            return;
+        }
+        try {
+            entrada.sentencia.clearParameters();
+            entrada.sentencia.clearBatch();
+            entrada.sentencia.clearWarnings();
+        } catch (SQLException e) {
+            entradas.values().remove(entrada);
+            cerrarSilencioso(entrada.sentencia);
+        }
+    }
+
+    private void expulsar(Entrada entrada) {
+        entrada.expulsada = true;
+        if (!entrada.enUso) {
+            cerrarSilencioso(entrada.sentencia);
+        }
+    }
+
+    private static void cerrarSilencioso(Statement s) {
+        try {
+            s.close();
+        } catch (SQLException e) {
+            System.err.println("Error al cerrar sentencia en caché: " + e.getMessage());
+        }
+    }
+
+    private record Clave(String sql, int generatedKeys) {
+    }
+
+    private static final class Entrada {
+        final PreparedStatement sentencia;
+        boolean enUso;
+        boolean expulsada;
+
+        Entrada(PreparedStatement sentencia) {
+            this.sentencia = sentencia;
+        }
+    }
+
+    /**
+     * Proxy de {@link PreparedStatement} válido durante un único préstamo:
+     * {@code close()} devuelve la sentencia a la caché.
+     */
+    private final class ManejadorSentencia implements InvocationHandler {
+        private final Entrada entrada;
+        private final Connection conexionProxy;
+        private boolean devuelta;
+
+        ManejadorSentencia(Entrada entrada, Connection conexionProxy) {
+            this.entrada = entrada;
+            this.conexionProxy = conexionProxy;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "close":
+                    if (!devuelta) {
+                        devuelta = true;
+                        devolver(entrada);
+                    }
+                    return null;
+                case "isClosed":
+                    return devuelta || entrada.sentencia.isClosed();
+                case "getConnection":
+                    return conexionProxy;
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                default:
+                    break;
+            }
+
+            if (devuelta) {
+                throw new SQLException("La sentencia ya fue cerrada.");
+            }
+            try {
+                return method.invoke(entrada.sentencia, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        }
+    }
+}
@@ -8,6 +8,8 @@ package main;
  * Hernan E.Bula
  */
 import java.util.Scanner;
+import java.util.concurrent.TimeUnit;
+import service.ArchivadorEliminados;
 import service.ProductoService;
 import service.CodigoBarrasService;
 
@@ -23,6 +25,9 @@ public class AppMenu {
     /** Manejador de operaciones del menú */
     private final MenuHandler menuHandler;
 
+    /** Tarea en segundo plano que archiva los registros eliminados hace tiempo */
+    private final ArchivadorEliminados archivador;
+
     /** Controla la ejecución del bucle principal */
     private boolean running;
 
@@ -35,6 +40,7 @@ public class AppMenu {
         ProductoService productoService = createProductoService();
         CodigoBarrasService codigoBarrasService = createCodigoBarrasService();
         this.menuHandler = new MenuHandler(scanner, productoService, codigoBarrasService);
+        this.archivador = new ArchivadorEliminados();
         this.running = true;
     }
 
@@ -43,6 +49,7 @@ public class AppMenu {
      * Muestra menú, procesa entrada y maneja excepciones hasta que el usuario sale.
      */
     public void run() {
+        archivador.iniciar(1, TimeUnit.HOURS);
         while (running) {
             try {
                 MenuDisplay.mostrarMenuPrincipal();
@@ -62,6 +69,7 @@ public class AppMenu {
                 System.out.flush();
             }
         }
+        archivador.detener();
         scanner.close();
     }
 
@@ -96,20 +104,39 @@ public class AppMenu {
     /**
      * Crea el servicio de productos con sus dependencias.
      * ProductoDAO → ProductoService
+     * Carga además el índice de búsqueda y el catálogo de productos en memoria.
      *
      * @return Instancia configurada de ProductoService
      */
     private ProductoService createProductoService() {
-        return new ProductoService();
+        ProductoService productoService = new ProductoService();
+        try {
+            productoService.cargarIndiceBusqueda();
+        } catch (Exception e) {
+            System.err.println("Advertencia: No se pudo cargar el índice de búsqueda: " + e.getMessage());
+        }
+        try {
+            productoService.cargarCatalogo();
+        } catch (Exception e) {
+            System.err.println("Advertencia: No se pudo cargar el catálogo en memoria: " + e.getMessage());
+        }
+        return productoService;
     }
 
     /**
      * Crea el servicio de códigos de barras con sus dependencias.
      * CodigoBarrasDAO → CodigoBarrasService
+     * Carga además el filtro de valores existentes en memoria.
      *
      * @return Instancia configurada de CodigoBarrasService
      */
     private CodigoBarrasService createCodigoBarrasService() {
-        return new CodigoBarrasService();
+        CodigoBarrasService codigoBarrasService = new CodigoBarrasService();
+        try {
+            codigoBarrasService.cargarFiltroValores();
+        } catch (Exception e) {
+            System.err.println("Advertencia: No se pudo cargar el filtro de valores: " + e.getMessage());
+        }
+        return codigoBarrasService;
     }
 }
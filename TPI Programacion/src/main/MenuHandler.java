@@ -9,8 +9,12 @@ package main;
  */
 
 import java.time.LocalDate;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Deque;
 import java.util.List;
+import java.util.Map;
+import model.Base;
 import model.Producto;
 import java.util.Scanner;
 import model.CategoriaProducto;
@@ -25,6 +29,20 @@ import service.CodigoBarrasService;
  */
 public class MenuHandler {
 
+    /** Cantidad de elementos por página en los listados paginados */
+    private static final int TAMANIO_PAGINA = 10;
+
+    /** Cantidad máxima de resultados mostrados en la búsqueda por nombre */
+    private static final int MAXIMO_RESULTADOS_BUSQUEDA = 50;
+
+    /**
+     * Fuente de páginas para {@link #navegarPaginas(String, Paginador)}.
+     */
+    @FunctionalInterface
+    private interface Paginador<T> {
+        List<T> getPage(long despuesDeId, int limite) throws Exception;
+    }
+
     /** Scanner para entrada de usuario, inyectado desde AppMenu */
     private final Scanner scanner;
 
@@ -103,7 +121,7 @@ public class MenuHandler {
 
     /**
      * Muestra submenú para listar productos con diferentes criterios. 
-     * Opciones: todos, por ID, por nombre, por categoría.
+     * Opciones: todos, por ID, por nombre, por categoría, paginado, por código de barras.
      */
     public void listarProductos() {
         try {
@@ -112,6 +130,8 @@ public class MenuHandler {
             System.out.println("2. Listar por ID");
             System.out.println("3. Listar por nombre");
             System.out.println("4. Listar por categoría");
+            System.out.println("5. Listar todos los productos (paginado)");
+            System.out.println("6. Listar por código de barras");
             System.out.println("0. ↩ Volver al menú anterior\n");
 
             int subopcion = validarIntPositivo("INGRESE OPCIÓN: ", scanner);
@@ -121,7 +141,15 @@ public class MenuHandler {
                 case 1 -> productos = listarTodosProductos();
                 case 2 -> productos = listarPorId();
                 case 3 -> productos = listarPorNombre();
-                case 4 -> productos = listarPorCategoria();
+                case 4 -> {
+                    listarPorCategoria();
+                    return;
+                }
+                case 5 -> {
+                    navegarPaginas("PRODUCTOS", productoService::getPage);
+                    return;
+                }
+                case 6 -> productos = listarPorCodigoBarras();
                 case 0 -> {
                     System.out.println("\n↩ Volviendo al menu principal...");
                     return;
@@ -162,6 +190,69 @@ public class MenuHandler {
         }
     }
 
+    /**
+     * Muestra las entidades activas de a una página, con navegación siguiente/anterior.
+     * Cada página se pide al servicio con paginación por clave, por lo que solo
+     * se cargan en memoria los elementos visibles.
+     *
+     * @param titulo Título a mostrar en el encabezado de cada página
+     * @param paginador Fuente de las páginas (por ejemplo {@code servicio::getPage})
+     */
+    private <T extends Base> void navegarPaginas(String titulo, Paginador<T> paginador) {
+        // IDs a partir de los cuales comienzan las páginas ya visitadas
+        Deque<Long> anteriores = new ArrayDeque<>();
+        long desde = 0;
+
+        while (true) {
+            List<T> pagina;
+            try {
+                // Se pide un elemento de más para saber si existe una página siguiente
+                pagina = paginador.getPage(desde, TAMANIO_PAGINA + 1);
+            } catch (Exception e) {
+                System.err.println("Error al obtener la página: " + e.getMessage());
+                return;
+            }
+
+            boolean haySiguiente = pagina.size() > TAMANIO_PAGINA;
+            if (haySiguiente) {
+                pagina = pagina.subList(0, TAMANIO_PAGINA);
+            }
+
+            if (pagina.isEmpty() && anteriores.isEmpty()) {
+                System.out.println("No se encontraron resultados.");
+                return;
+            }
+
+            System.out.println("\n**** " + titulo + " - PÁGINA " + (anteriores.size() + 1) + " ****");
+            for (T elemento : pagina) {
+                System.out.println(elemento);
+            }
+
+            System.out.println();
+            if (haySiguiente) {
+                System.out.println("S. Página siguiente");
+            }
+            if (!anteriores.isEmpty()) {
+                System.out.println("A. Página anterior");
+            }
+            System.out.println("0. ↩ Volver al menú anterior");
+            System.out.print("\nINGRESE OPCIÓN: ");
+            String opcion = scanner.nextLine().trim();
+
+            if (opcion.equalsIgnoreCase("s") && haySiguiente) {
+                anteriores.push(desde);
+                desde = pagina.get(pagina.size() - 1).getId();
+            } else if (opcion.equalsIgnoreCase("a") && !anteriores.isEmpty()) {
+                desde = anteriores.pop();
+            } else if (opcion.equals("0")) {
+                System.out.println("\n↩ Volviendo al menu principal...");
+                return;
+            } else {
+                System.out.println("\nOpción inválida.");
+            }
+        }
+    }
+
     /**
      * Busca producto por ID específico.
      *
@@ -187,9 +278,43 @@ public class MenuHandler {
     }
 
     /**
-     * Busca productos por nombre o parte del nombre.
+     * Busca los productos de uno o varios códigos de barras escaneados
+     * (separados por coma), resueltos en una sola consulta.
+     *
+     * @return Lista de productos encontrados, en el orden de los códigos ingresados
+     */
+    private List<Producto> listarPorCodigoBarras() {
+        try {
+            System.out.print("Ingrese el/los código(s) de barras separados por coma: ");
+            List<String> valores = new ArrayList<>();
+            for (String valor : scanner.nextLine().split(",")) {
+                if (!valor.trim().isEmpty()) {
+                    valores.add(valor.trim());
+                }
+            }
+            if (valores.isEmpty()) {
+                System.out.println("Debe ingresar al menos un código de barras.");
+                return new ArrayList<>();
+            }
+
+            Map<String, Producto> encontrados = productoService.getByCodigoValores(valores);
+            for (String valor : valores) {
+                if (!encontrados.containsKey(valor)) {
+                    System.out.println("Sin producto para el código: " + valor);
+                }
+            }
+            return new ArrayList<>(encontrados.values());
+        } catch (Exception e) {
+            System.err.println("Error al buscar productos por código de barras: " + e.getMessage());
+            return new ArrayList<>();
+        }
+    }
+
+    /**
+     * Busca productos por nombre exacto o, si no hay coincidencia, por palabras
+     * del nombre o la marca (búsqueda indexada en la base de datos).
      *
-     * @return Lista de productos que coinciden con el criterio
+     * @return Lista de productos que coinciden con el criterio, los más relevantes primero
      */
     private List<Producto> listarPorNombre() {
         try {
@@ -205,14 +330,10 @@ public class MenuHandler {
             if (producto != null) {
                 resultado.add(producto);
             } else {
-                List<Producto> todos = productoService.getAll();
-                if (todos != null) {
-                    for (Producto p : todos) {
-                        if (p.getNombre() != null
-                                && p.getNombre().toLowerCase().contains(filtro.toLowerCase())) {
-                            resultado.add(p);
-                        }
-                    }
+                resultado.addAll(productoService.buscar(filtro, 0, MAXIMO_RESULTADOS_BUSQUEDA));
+                if (resultado.size() == MAXIMO_RESULTADOS_BUSQUEDA) {
+                    System.out.println("Se muestran los " + MAXIMO_RESULTADOS_BUSQUEDA
+                            + " resultados más relevantes. Refine la búsqueda para ver otros.");
                 }
             }
             return resultado;
@@ -223,30 +344,26 @@ public class MenuHandler {
     }
 
     /**
-     * Filtra productos por categoría específica.
-     *
-     * @return Lista de productos de la categoría seleccionada
+     * Lista paginada de los productos de una categoría específica.
+     * Muestra primero la cantidad de productos de cada categoría y luego
+     * navega los resultados filtrados en la base de datos.
      */
-    private List<Producto> listarPorCategoria() {
+    private void listarPorCategoria() {
         try {
-            CategoriaProducto categoriaElegida = seleccionarCategoria();
-            System.out.println("\nBuscando productos de la categoría: " + categoriaElegida.name() + "\n");
+            Map<CategoriaProducto, Integer> conteo = productoService.contarPorCategoria();
+            System.out.println("\n**** PRODUCTOS POR CATEGORÍA ****");
+            for (Map.Entry<CategoriaProducto, Integer> entrada : conteo.entrySet()) {
+                System.out.println(" - " + entrada.getKey().name() + ": " + entrada.getValue() + " producto(s)");
+            }
 
-            List<Producto> todos = productoService.getAll();
-            List<Producto> productosCategoria = new ArrayList<>();
+            CategoriaProducto categoriaElegida = seleccionarCategoria();
+            System.out.println("\nBuscando productos de la categoría: " + categoriaElegida.name()
+                    + " (" + conteo.getOrDefault(categoriaElegida, 0) + " producto(s))\n");
 
-            if (todos != null) {
-                for (Producto producto : todos) {
-                    if (producto.getCategoria() != null
-                            && producto.getCategoria().equals(categoriaElegida)) {
-                        productosCategoria.add(producto);
-                    }
-                }
-            }
-            return productosCategoria;
+            navegarPaginas("CATEGORÍA " + categoriaElegida.name(),
+                    (desde, limite) -> productoService.getByCategoria(categoriaElegida, desde, limite));
         } catch (Exception e) {
             System.err.println("Error al buscar productos por categoría: " + e.getMessage());
-            return new ArrayList<>();
         }
     }
 
@@ -258,7 +375,7 @@ public class MenuHandler {
     public void actualizarProducto() {
         try {
             int id = validarIntPositivo("ID del producto a actualizar: ", scanner);
-            Producto productoActualizar = productoService.getById(id);
+            Producto productoActualizar = productoService.getByIdParaEditar(id);
 
             if (productoActualizar == null) {
                 System.out.println("Producto no encontrado con ID: " + id);
@@ -329,24 +446,21 @@ public class MenuHandler {
     /**
      * Elimina un producto mediante soft delete. 
      * Solicita confirmación antes de proceder con la eliminación.
+     * El resultado (eliminado, inexistente o ya eliminado) lo informa el servicio,
+     * sin buscar el producto antes.
      */
     public void eliminarProducto() {
         try {
             int id = validarIntPositivo("Ingrese el ID del producto a eliminar: ", scanner);
-            Producto productoEliminar = productoService.getById(id);
-
-            if (productoEliminar == null) {
-                System.out.println("Producto no encontrado con ID: " + id);
-                return;
-            }
-
-            System.out.println("\nEl producto a eliminar es: " + productoEliminar.getNombre());
-            System.out.print("\n¿Está seguro de que desea eliminar este producto? (ingrese \"s\" para Si o cualquier otro caracter para cancelar): ");
+            System.out.print("\n¿Está seguro de que desea eliminar el producto con ID " + id + "? (ingrese \"s\" para Si o cualquier otro caracter para cancelar): ");
             String confirmacion = scanner.nextLine().trim();
 
             if (confirmacion.equalsIgnoreCase("s")) {
-                productoService.eliminar(id);
-                System.out.println("\n✓ Producto eliminado exitosamente (soft delete)");
+                switch (productoService.eliminar(id)) {
+                    case EXITO -> System.out.println("\n✓ Producto eliminado exitosamente (soft delete)");
+                    case NO_ENCONTRADO -> System.out.println("Producto no encontrado con ID: " + id);
+                    case SIN_CAMBIOS -> System.out.println("El producto con ID " + id + " ya estaba eliminado.");
+                }
             } else {
                 System.out.println("\nEliminación cancelada.");
             }
@@ -365,30 +479,14 @@ public class MenuHandler {
     public void asignarCodigoDeBarras() {
         try {
             int idProducto = validarIntPositivo("ID del producto al que se le asignará un código de barras: ", scanner);
-            Producto productoActualizar = productoService.getById(idProducto);
-
-            if (productoActualizar == null) {
-                System.out.println("Producto no encontrado con ID: " + idProducto);
-                return;
-            }
-
-            System.out.println("\nEl producto a modificar es: " + productoActualizar.getNombre()
-                    + " - ID: " + productoActualizar.getId());
-            System.out.println("-".repeat(30));
-
             int idCodigo = validarIntPositivo("ID del código de barras a asignar: ", scanner);
-            CodigoBarras codigoParaAsignar = codigoBarrasService.getById(idCodigo);
-
-            if (codigoParaAsignar == null) {
-                System.out.println("Código de barras no encontrado con ID: " + idCodigo);
-                return;
-            }
-
-            productoActualizar.setCodigoBarras(codigoParaAsignar);
 
             try {
-                productoService.asignarCodigoDeBarras(productoActualizar);
-                System.out.println("\n✓ Código de barras asignado exitosamente");
+                switch (productoService.asignarCodigoDeBarras(idProducto, idCodigo)) {
+                    case EXITO -> System.out.println("\n✓ Código de barras asignado exitosamente");
+                    case NO_ENCONTRADO -> System.out.println("Producto no encontrado con ID: " + idProducto);
+                    case SIN_CAMBIOS -> System.out.println("El producto ya tiene asignado ese código de barras.");
+                }
             } catch (IllegalArgumentException e) {
                 System.err.println("Error de validación: " + e.getMessage());
             } catch (Exception e) {
@@ -413,9 +511,14 @@ public class MenuHandler {
 
             if (confirmacion.equalsIgnoreCase("s")) {
                 try {
-                    productoService.recuperar(id);
-                    System.out.println("\n✓ Producto recuperado exitosamente (soft undelete)");
-                    System.out.println(productoService.getById(id));
+                    switch (productoService.recuperar(id)) {
+                        case EXITO -> {
+                            System.out.println("\n✓ Producto recuperado exitosamente (soft undelete)");
+                            System.out.println(productoService.getById(id));
+                        }
+                        case NO_ENCONTRADO -> System.out.println("Producto no encontrado con ID: " + id);
+                        case SIN_CAMBIOS -> System.out.println("El producto con ID " + id + " no está borrado.");
+                    }
                 } catch (IllegalArgumentException e) {
                     System.out.println(e.getMessage());
                 } catch (Exception e) {
@@ -475,6 +578,7 @@ public class MenuHandler {
             System.out.println("\n**** LISTAR CODIGOS DE BARRA ****");
             System.out.println("1. Listar todos los codigos");
             System.out.println("2. Listar por ID");
+            System.out.println("3. Listar todos los codigos (paginado)");
             System.out.println("0. ↩ Volver al menú anterior\n");
 
             int subopcion = validarIntPositivo("INGRESE OPCIÓN: ", scanner);
@@ -485,6 +589,10 @@ public class MenuHandler {
                     codigoBarras = listarCodigoBarras();
                 case 2 ->
                     codigoBarras = listarPorIdCodigo();
+                case 3 -> {
+                    navegarPaginas("CÓDIGOS DE BARRAS", codigoBarrasService::getPage);
+                    return;
+                }
                 case 0 -> {
                     System.out.println("\n↩ Volviendo al menu principal...");
                     return;
@@ -608,20 +716,15 @@ public class MenuHandler {
     public void eliminarCodigoBarrasPorId() {
         try {
             int id = validarIntPositivo("Ingrese el ID del código de barras a eliminar: ", scanner);
-            CodigoBarras codigoEliminar = codigoBarrasService.getById(id);
-
-            if (codigoEliminar == null) {
-                System.out.println("Código de barras no encontrado con ID: " + id);
-                return;
-            }
-
-            System.out.println("\nEl código de barras a eliminar es: " + codigoEliminar.getValor());
-            System.out.print("¿Está seguro de que desea eliminar este producto? (ingrese \"s\" para Si o cualquier otro caracter para cancelar): ");
+            System.out.print("¿Está seguro de que desea eliminar el código de barras con ID " + id + "? (ingrese \"s\" para Si o cualquier otro caracter para cancelar): ");
             String confirmacion = scanner.nextLine().trim();
 
             if (confirmacion.equalsIgnoreCase("s")) {
-                codigoBarrasService.eliminar(id);
-                System.out.println("\n✓ Código de barras eliminado exitosamente (soft delete)");
+                switch (codigoBarrasService.eliminar(id)) {
+                    case EXITO -> System.out.println("\n✓ Código de barras eliminado exitosamente (soft delete)");
+                    case NO_ENCONTRADO -> System.out.println("Código de barras no encontrado con ID: " + id);
+                    case SIN_CAMBIOS -> System.out.println("El código de barras con ID " + id + " ya estaba eliminado.");
+                }
             } else {
                 System.out.println("\nEliminación cancelada.");
             }
@@ -644,8 +747,11 @@ public class MenuHandler {
 
             if (confirmacion.equalsIgnoreCase("s")) {
                 try {
-                    codigoBarrasService.recuperar(id);
-                    System.out.println("\n✓ Código de barras recuperado exitosamente");
+                    switch (codigoBarrasService.recuperar(id)) {
+                        case EXITO -> System.out.println("\n✓ Código de barras recuperado exitosamente");
+                        case NO_ENCONTRADO -> System.out.println("Código de barras no encontrado con ID: " + id);
+                        case SIN_CAMBIOS -> System.out.println("El código de barras con ID " + id + " no está borrado.");
+                    }
                 } catch (IllegalArgumentException e) {
                     System.out.println(e.getMessage());
                 } catch (Exception e) {
@@ -35,6 +35,8 @@ public class main {
         } catch (Exception e) {
             System.err.println("\nError fatal al iniciar la aplicacion: " + e.getMessage());
             e.printStackTrace();
+        } finally {
+            DatabaseConnection.cerrarPool();
         }
     }
 }
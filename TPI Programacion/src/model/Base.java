@@ -1,6 +1,10 @@
 
 package model;
 
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+
 /**
  * @authors 
  * Gaston Alberto Cejas, 
@@ -10,8 +14,16 @@ package model;
  */
 
 /**
- * Clase base abstracta para extender al resto de entidades del sistema (id, eliminado).
+ * Clase base abstracta para extender al resto de entidades del sistema (id, eliminado, version).
  * Implementa eliminación lógica mediante un booleano.
+ *
+ * <p>La versión es la de la fila al momento de leerla; el DAO la usa para
+ * detectar modificaciones concurrentes (control de concurrencia optimista).</p>
+ *
+ * <p>Registra además qué campos se modificaron desde que la entidad se leyó o
+ * se guardó en la base de datos, para que el DAO actualice solo esas columnas.
+ * El seguimiento empieza cuando el DAO llama a {@link #iniciarSeguimientoCambios()};
+ * antes de eso se considera que todos los campos pueden haber cambiado.</p>
  */
 
 public abstract class Base {
@@ -19,6 +31,11 @@ public abstract class Base {
     private long id;
     
     private boolean eliminado;
+
+    private long version;
+
+    /** Campos modificados desde el último estado persistido; {@code null} si se desconoce. */
+    private Set<String> camposModificados;
     
     protected Base() {
         this.eliminado = false;
@@ -64,5 +81,73 @@ public abstract class Base {
     public void setEliminado(boolean eliminado) {
         this.eliminado = eliminado;
     }
-}
 
+    /**
+     * Obtiene la versión de la fila leída de la base de datos.
+     * @return versión, 0 para entidades nuevas
+     */
+    public long getVersion() {
+        return version;
+    }
+
+    /**
+     * Establece la versión de la entidad.
+     * Típicamente llamado por el DAO al leer o actualizar la fila.
+     *
+     * @param version Versión de la fila en la base de datos
+     */
+    public void setVersion(long version) {
+        this.version = version;
+    }
+
+    /**
+     * Toma el estado actual como el persistido y empieza a registrar cambios.
+     * Típicamente llamado por el DAO después de leer, insertar o actualizar la entidad.
+     */
+    public void iniciarSeguimientoCambios() {
+        this.camposModificados = new HashSet<>();
+    }
+
+    /**
+     * Indica si se conoce qué campos cambiaron desde el último estado persistido.
+     * @return true si el seguimiento está activo, false si la entidad no se leyó
+     *         ni se guardó (en ese caso deben escribirse todos los campos)
+     */
+    public boolean isSeguimientoCambios() {
+        return camposModificados != null;
+    }
+
+    /**
+     * Obtiene los nombres de los campos modificados desde el último estado persistido.
+     * @return conjunto de solo lectura; vacío si no hubo cambios o si el seguimiento no está activo
+     */
+    public Set<String> getCamposModificados() {
+        return camposModificados != null ? Collections.unmodifiableSet(camposModificados) : Collections.emptySet();
+    }
+
+    /**
+     * Copia en {@code destino} el ID, la bandera de eliminado, la versión y
+     * el estado del seguimiento de cambios. Lo usan las subclases para
+     * implementar sus copias.
+     *
+     * @param destino Entidad que recibe el estado
+     */
+    protected void copiarEstadoBase(Base destino) {
+        destino.id = id;
+        destino.eliminado = eliminado;
+        destino.version = version;
+        destino.camposModificados = (camposModificados != null) ? new HashSet<>(camposModificados) : null;
+    }
+
+    /**
+     * Registra que un campo cambió. Las subclases lo llaman desde sus setters
+     * solo cuando el valor nuevo es distinto del anterior.
+     *
+     * @param campo Nombre del campo modificado
+     */
+    protected void marcarModificado(String campo) {
+        if (camposModificados != null) {
+            camposModificados.add(campo);
+        }
+    }
+}
@@ -2,6 +2,7 @@
 package model;
 
 import java.time.LocalDate;
+import java.util.Objects;
 
 /**
  * @authors 
@@ -12,6 +13,12 @@ import java.time.LocalDate;
  */
 
 public class CodigoBarras extends Base {
+
+    /** Nombres de campo registrados por {@link #getCamposModificados()}. */
+    public static final String CAMPO_TIPO = "tipo";
+    public static final String CAMPO_VALOR = "valor";
+    public static final String CAMPO_FECHA_ASIGNACION = "fechaAsignacion";
+    public static final String CAMPO_OBSERVACIONES = "observaciones";
     
     private EnumTipo tipo;
     private String valor;
@@ -48,9 +55,12 @@ public class CodigoBarras extends Base {
      * Establece el tipo de Codigo de Barras.
      * Validación: CodigoServiceImpl verifica que no esté vacío. 
      */
-public void setTipo(EnumTipo tipo) {
-    this.tipo = tipo;
-}
+    public void setTipo(EnumTipo tipo) {
+        if (this.tipo != tipo) {
+            marcarModificado(CAMPO_TIPO);
+        }
+        this.tipo = tipo;
+    }
     
     /**
      * Establece el valor del Codigo de Barras.
@@ -58,6 +68,9 @@ public void setTipo(EnumTipo tipo) {
      * (FALTA DESARROLAR ESTO)
      */
     public void setValor(String valor) {
+        if (!Objects.equals(this.valor, valor)) {
+            marcarModificado(CAMPO_VALOR);
+        }
         this.valor = valor;
     }
     
@@ -67,6 +80,9 @@ public void setTipo(EnumTipo tipo) {
      * @param fechaAsignacion La fecha de asignación
      */
     public void setFechaAsignacion(LocalDate fechaAsignacion) {
+        if (!Objects.equals(this.fechaAsignacion, fechaAsignacion)) {
+            marcarModificado(CAMPO_FECHA_ASIGNACION);
+        }
         this.fechaAsignacion = fechaAsignacion;
     }
 
@@ -76,9 +92,24 @@ public void setTipo(EnumTipo tipo) {
      * (FALTA DESARROLAR ¿Esto es máximo de caracteres o de marcas?)
      */
     public void setObservaciones(String observaciones) {
+        if (!Objects.equals(this.observaciones, observaciones)) {
+            marcarModificado(CAMPO_OBSERVACIONES);
+        }
         this.observaciones = observaciones;
     }
 
+    /**
+     * Crea una copia independiente del código de barras, con el mismo ID,
+     * versión y seguimiento de cambios.
+     *
+     * @return copia del código de barras
+     */
+    public CodigoBarras copiar() {
+        CodigoBarras copia = new CodigoBarras(getId(), isEliminado(), tipo, valor, fechaAsignacion, observaciones);
+        copiarEstadoBase(copia);
+        return copia;
+    }
+
     @Override
     public String toString() {
         String obsTexto = (observaciones != null && !observaciones.trim().isEmpty()) 
@@ -1,6 +1,8 @@
 
 package model;
 
+import java.util.Objects;
+
 /**
  * @authors 
  * Gaston Alberto Cejas, 
@@ -10,6 +12,15 @@ package model;
  */
 
 public class Producto extends Base {
+
+    /** Nombres de campo registrados por {@link #getCamposModificados()}. */
+    public static final String CAMPO_NOMBRE = "nombre";
+    public static final String CAMPO_MARCA = "marca";
+    public static final String CAMPO_CATEGORIA = "categoria";
+    public static final String CAMPO_PRECIO = "precio";
+    public static final String CAMPO_PESO = "peso";
+    public static final String CAMPO_STOCK = "stock";
+    public static final String CAMPO_CODIGO_BARRAS = "codigoBarras";
     
     private String nombre;
     private String marca;
@@ -65,6 +76,9 @@ public class Producto extends Base {
      * Validación: ProductoServiceImpl verifica que no esté vacío. (FALTA DESARROLAR ESTO)
      */
     public void setNombre(String nombre) {
+        if (!Objects.equals(this.nombre, nombre)) {
+            marcarModificado(CAMPO_NOMBRE);
+        }
         this.nombre = nombre;
     }
 
@@ -73,6 +87,9 @@ public class Producto extends Base {
      * Validación: ProductoServiceImpl máx. 80 (FALTA DESARROLAR)
      */
     public void setMarca(String marca) {
+        if (!Objects.equals(this.marca, marca)) {
+            marcarModificado(CAMPO_MARCA);
+        }
         this.marca = marca;
     }
 
@@ -82,6 +99,9 @@ public class Producto extends Base {
      * @param categoria La categoría a asignar al producto
      */
     public void setCategoria(CategoriaProducto categoria) {
+        if (this.categoria != categoria) {
+            marcarModificado(CAMPO_CATEGORIA);
+        }
         this.categoria = categoria;
     }
 
@@ -90,6 +110,9 @@ public class Producto extends Base {
      * Validación: ProductoServiceImpl verifica que no esté vacío y que escala sugerida sea (10,2). (FALTA DESARROLAR ESTO)
      */
     public void setPrecio(double precio) {
+        if (Double.compare(this.precio, precio) != 0) {
+            marcarModificado(CAMPO_PRECIO);
+        }
         this.precio = precio;
     }
     
@@ -98,6 +121,9 @@ public class Producto extends Base {
      * Validación: ProductoServiceImpl puede ser opcional, pero si se completa verifica que escala sugerida sea (10,3). (FALTA DESARROLAR ESTO)
      */
     public void setPeso(double peso) {
+        if (Double.compare(this.peso, peso) != 0) {
+            marcarModificado(CAMPO_PESO);
+        }
         this.peso = peso;
     }
 
@@ -105,18 +131,39 @@ public class Producto extends Base {
      * Establece el stock del producto. 
      * Validación: ProductoServiceImpl (FALTA DESARROLAR ESTO)
      */
-   public void setStock(int stock) {
-    this.stock = stock;
-}
+    public void setStock(int stock) {
+        if (this.stock != stock) {
+            marcarModificado(CAMPO_STOCK);
+        }
+        this.stock = stock;
+    }
 
      /**
      * Setea la asociación unidireccional del codigo de barras.
      * (HACE FALTA DESARROLAR ESTO De OTRA MANERA MÁS COMPLEJA???)
      */
     public void setCodigoBarras(CodigoBarras codigoBarras) {
+        if (this.codigoBarras != codigoBarras) {
+            marcarModificado(CAMPO_CODIGO_BARRAS);
+        }
         this.codigoBarras = codigoBarras;
     }
 
+    /**
+     * Crea una copia independiente del producto, incluido su código de barras,
+     * con el mismo ID, versión y seguimiento de cambios. Modificar la copia no
+     * afecta al original.
+     *
+     * @return copia del producto
+     */
+    public Producto copiar() {
+        Producto copia = new Producto(nombre, marca, precio, peso, stock, getId());
+        copia.categoria = categoria;
+        copia.codigoBarras = (codigoBarras != null) ? codigoBarras.copiar() : null;
+        copiarEstadoBase(copia);
+        return copia;
+    }
+
     @Override
     public String toString() {
         StringBuilder sb = new StringBuilder();
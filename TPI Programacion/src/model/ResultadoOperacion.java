@@ -0,0 +1,23 @@
+package model;
+
+
+/**
+ * @authors 
+ * Gaston Alberto Cejas, 
+ * Hernan Cóceres, 
+ * Claudio Rodriguez, 
+ * Hernan E.Bula
+ */
+
+/**
+ * Resultado de una operación de cambio de estado (eliminar, recuperar, asignar),
+ * determinado a partir de la cantidad de filas afectadas por el UPDATE condicional.
+ */
+public enum ResultadoOperacion {
+    /** La fila se modificó. */
+    EXITO,
+    /** No existe una fila con ese ID. */
+    NO_ENCONTRADO,
+    /** La fila ya estaba en el estado pedido (por ejemplo, ya eliminada). */
+    SIN_CAMBIOS;
+}
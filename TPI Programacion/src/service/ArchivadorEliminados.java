@@ -0,0 +1,159 @@
+/**
+ * @authors
+ * Gaston Alberto Cejas,
+ * Hernan Cóceres,
+ * Claudio Rodriguez,
+ * Hernan E.Bula
+ */
+package service;
+
+import DAO.CodigoBarrasDAO;
+import DAO.ProductoDAO;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Tarea en segundo plano que mueve a las tablas de archivo los productos y
+ * códigos de barras eliminados lógicamente hace más tiempo que el período de
+ * retención.
+ *
+ * <p><b>Motivo:</b> con soft delete las tablas activas solo crecen, y cada
+ * consulta de filas activas paga por las eliminadas a través del filtro
+ * {@code eliminado = false}. Archivarlas mantiene las tablas activas chicas.</p>
+ *
+ * <p><b>Sin frenar la operación normal:</b> cada pasada trabaja en bloques
+ * de {@code tamanioLote} filas, cada uno en su propia transacción corta, y
+ * hace una pausa entre bloques para dejar lugar a las demás transacciones.</p>
+ *
+ * <p>Los productos se archivan antes que los códigos de barras, porque un
+ * código solo se archiva cuando ningún producto activo lo referencia. Las
+ * filas archivadas se siguen pudiendo recuperar con los métodos
+ * {@code recuperar} de los servicios, que las restauran desde el archivo.</p>
+ */
+public class ArchivadorEliminados {
+
+    /** Días de retención por defecto antes de archivar una fila eliminada. */
+    public static final int DIAS_RETENCION_DEFECTO = 30;
+
+    /** Filas por bloque por defecto. */
+    public static final int TAMANIO_LOTE_DEFECTO = 200;
+
+    /** Pausa por defecto entre bloques, en milisegundos. */
+    public static final long PAUSA_DEFECTO_MS = 100;
+
+    private final ProductoDAO productoDAO;
+    private final CodigoBarrasDAO codigoBarrasDAO;
+    private final int diasRetencion;
+    private final int tamanioLote;
+    private final long pausaMs;
+
+    private ScheduledExecutorService planificador;
+
+    /**
+     * Crea un archivador con la configuración por defecto.
+     */
+    public ArchivadorEliminados() {
+        this(DIAS_RETENCION_DEFECTO, TAMANIO_LOTE_DEFECTO, PAUSA_DEFECTO_MS);
+    }
+
+    /**
+     * Crea un archivador.
+     *
+     * @param diasRetencion días que una fila debe llevar eliminada para archivarse
+     * @param tamanioLote   cantidad máxima de filas por transacción
+     * @param pausaMs       pausa entre bloques, en milisegundos
+     * @throws IllegalArgumentException Si algún parámetro es inválido
+     */
+    public ArchivadorEliminados(int diasRetencion, int tamanioLote, long pausaMs) {
+        if (diasRetencion < 0) {
+            throw new IllegalArgumentException("Los días de retención no pueden ser negativos");
+        }
+        if (tamanioLote <= 0) {
+            throw new IllegalArgumentException("El tamaño de lote debe ser mayor a 0");
+        }
+        if (pausaMs < 0) {
+            throw new IllegalArgumentException("La pausa entre bloques no puede ser negativa");
+        }
+        this.productoDAO = new ProductoDAO();
+        this.codigoBarrasDAO = new CodigoBarrasDAO();
+        this.diasRetencion = diasRetencion;
+        this.tamanioLote = tamanioLote;
+        this.pausaMs = pausaMs;
+    }
+
+    /**
+     * Ejecuta una pasada completa: archiva bloques de productos y luego de
+     * códigos de barras hasta que no quede nada por archivar.
+     *
+     * @return Cantidad total de filas archivadas (productos + códigos)
+     * @throws Exception Si ocurre un error al acceder a la base de datos
+     */
+    public int ejecutar() throws Exception {
+        int total = 0;
+        int movidos;
+        do {
+            movidos = productoDAO.archivarEliminados(diasRetencion, tamanioLote);
+            total += movidos;
+        } while (movidos == tamanioLote && pausar());
+        do {
+            movidos = codigoBarrasDAO.archivarEliminados(diasRetencion, tamanioLote);
+            total += movidos;
+        } while (movidos == tamanioLote && pausar());
+        return total;
+    }
+
+    /**
+     * Programa una pasada periódica en un hilo demonio.
+     * No hace nada si ya estaba iniciado.
+     *
+     * @param periodo Tiempo entre pasadas
+     * @param unidad  Unidad de {@code periodo}
+     */
+    public synchronized void iniciar(long periodo, TimeUnit unidad) {
+        if (planificador != null) {
+            return;
+        }
+        planificador = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "archivador-eliminados");
+            t.setDaemon(true);
+            return t;
+        });
+        planificador.scheduleWithFixedDelay(() -> {
+            try {
+                // Sin mensajes si todo va bien: el hilo corre mientras se usa el menú
+                ejecutar();
+            } catch (Exception e) {
+                System.err.println("Error al archivar registros eliminados: " + e.getMessage());
+            }
+        }, 0, periodo, unidad);
+    }
+
+    /**
+     * Detiene la tarea periódica. Una pasada en curso termina su bloque actual.
+     */
+    public synchronized void detener() {
+        if (planificador != null) {
+            planificador.shutdownNow();
+            planificador = null;
+        }
+    }
+
+    /**
+     * Espera {@link #pausaMs} entre bloques.
+     *
+     * @return {@code false} si el hilo fue interrumpido (la pasada debe cortarse)
+     */
+    private boolean pausar() {
+        if (pausaMs == 0) {
+            return true;
+        }
+        try {
+            Thread.sleep(pausaMs);
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+}
@@ -0,0 +1,197 @@
+/**
+ * @authors
+ * Gaston Alberto Cejas,
+ * Hernan Cóceres,
+ * Claudio Rodriguez,
+ * Hernan E.Bula
+ */
+package service;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.UnaryOperator;
+
+/**
+ * Caché de lectura (read-through) de entidades por ID, acotada y con
+ * vencimiento.
+ *
+ * <p><b>Funcionamiento:</b> {@link #obtener(long, Cargador)} devuelve la
+ * entidad guardada si no venció; si no, la carga con el {@link Cargador}
+ * (normalmente el DAO) y la guarda. Al superar la capacidad se expulsa la
+ * entrada usada hace más tiempo (LRU). Las entidades son mutables, por lo que
+ * se guarda una copia y cada lectura recibe otra: modificar lo que devuelve
+ * la caché no altera lo guardado.</p>
+ *
+ * <p><b>Invalidación:</b> los servicios llaman a {@link #invalidar(long)} o
+ * {@link #invalidarTodo()} después de confirmar una escritura. Una carga que
+ * empezó antes de una invalidación no guarda su resultado, porque pudo haber
+ * leído el estado anterior a la escritura.</p>
+ *
+ * <p>Es segura para uso concurrente: el lock solo se toma para consultar o
+ * modificar el mapa, nunca durante la carga desde la base de datos.</p>
+ *
+ * @param <T> tipo de entidad
+ */
+final class CacheLectura<T> {
+
+    /**
+     * Carga una entidad desde su origen cuando no está en la caché.
+     *
+     * @param <T> tipo de entidad
+     */
+    @FunctionalInterface
+    interface Cargador<T> {
+        T cargar(long id) throws Exception;
+    }
+
+    private final String nombre;
+    private final int capacidad;
+    private final long ttlNanos;
+    private final UnaryOperator<T> copiador;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final LinkedHashMap<Long, Entrada<T>> entradas;
+
+    /** Aumenta con cada invalidación; protegido por {@link #lock}. */
+    private long generacion;
+
+    private final LongAdder aciertos = new LongAdder();
+    private final LongAdder fallos = new LongAdder();
+    private final LongAdder expulsiones = new LongAdder();
+    private final LongAdder vencidas = new LongAdder();
+    private final LongAdder nanosCarga = new LongAdder();
+
+    /**
+     * @param nombre    nombre para las estadísticas.
+     * @param capacidad cantidad máxima de entidades guardadas.
+     * @param ttl       tiempo de vida de cada entrada desde que se cargó.
+     * @param unidad    unidad de {@code ttl}.
+     * @param copiador  función que crea una copia independiente de una entidad.
+     */
+    CacheLectura(String nombre, int capacidad, long ttl, TimeUnit unidad, UnaryOperator<T> copiador) {
+        if (capacidad <= 0 || ttl <= 0) {
+            throw new IllegalArgumentException("La capacidad y el tiempo de vida de la caché deben ser mayores a 0");
+        }
+        this.nombre = nombre;
+        this.capacidad = capacidad;
+        this.ttlNanos = unidad.toNanos(ttl);
+        this.copiador = copiador;
+        this.entradas = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, Entrada<T>> eldest) {
+                if (size() <= CacheLectura.this.capacidad) {
+                    return false;
+                }
+                expulsiones.increment();
+                return true;
+            }
+        };
+    }
+
+    /**
+     * Devuelve la entidad con el ID indicado, cargándola si no está en la
+     * caché o si venció.
+     *
+     * @param id       identificador de la entidad.
+     * @param cargador función que lee la entidad de su origen.
+     * @return copia de la entidad, o {@code null} si el cargador no la encontró
+     *         (los resultados vacíos no se guardan).
+     * @throws Exception si falla la carga.
+     */
+    T obtener(long id, Cargador<T> cargador) throws Exception {
+        long generacionInicial;
+        lock.lock();
+        try {
+            Entrada<T> entrada = entradas.get(id);
+            if (entrada != null) {
+                if (System.nanoTime() - entrada.cargadaEn() < ttlNanos) {
+                    aciertos.increment();
+                    return copiador.apply(entrada.valor());
+                }
+                entradas.remove(id);
+                vencidas.increment();
+            }
+            generacionInicial = generacion;
+        } finally {
+            lock.unlock();
+        }
+
+        fallos.increment();
+        long inicio = System.nanoTime();
+        T valor = cargador.cargar(id);
+        long fin = System.nanoTime();
+        nanosCarga.add(fin - inicio);
+        if (valor == null) {
+            return null;
+        }
+
+        T guardado = copiador.apply(valor);
+        lock.lock();
+        try {
+            if (generacion == generacionInicial) {
+                entradas.put(id, new Entrada<>(guardado, fin));
+            }
+        } finally {
+            lock.unlock();
+        }
+        return valor;
+    }
+
+    /**
+     * Quita una entidad de la caché.
+     *
+     * @param id identificador de la entidad modificada.
+     */
+    void invalidar(long id) {
+        lock.lock();
+        try {
+            generacion++;
+            entradas.remove(id);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Vacía la caché, por ejemplo tras una escritura masiva cuyos IDs no se conocen.
+     */
+    void invalidarTodo() {
+        lock.lock();
+        try {
+            generacion++;
+            entradas.clear();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Devuelve un resumen de uso de la caché.
+     *
+     * @return texto con aciertos, fallos, tasa de aciertos, expulsiones,
+     *         entradas vencidas, tiempo medio de carga y ocupación.
+     */
+    String getEstadisticas() {
+        long a = aciertos.sum();
+        long f = fallos.sum();
+        long total = a + f;
+        double tasa = (total == 0) ? 0 : (a * 100.0 / total);
+        double cargaMediaMs = (f == 0) ? 0 : (nanosCarga.sum() / 1_000_000.0 / f);
+        int tamanio;
+        lock.lock();
+        try {
+            tamanio = entradas.size();
+        } finally {
+            lock.unlock();
+        }
+        return String.format("Caché de %s: %d aciertos, %d fallos (%.1f%% aciertos), %d expulsiones, "
+                + "%d vencidas, carga media %.2f ms, %d/%d entradas",
+                nombre, a, f, tasa, expulsiones.sum(), vencidas.sum(), cargaMediaMs, tamanio, capacidad);
+    }
+
+    private record Entrada<T>(T valor, long cargadaEn) {
+    }
+}
@@ -0,0 +1,151 @@
+/**
+ * @authors
+ * Gaston Alberto Cejas,
+ * Hernan Cóceres,
+ * Claudio Rodriguez,
+ * Hernan E.Bula
+ */
+package service;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Caché negativa: recuerda por poco tiempo las búsquedas por clave que no
+ * encontraron nada, para que repetirlas no cueste una consulta.
+ *
+ * <p><b>Funcionamiento:</b> {@link #obtener(String, Buscador)} devuelve
+ * {@code null} sin consultar si la clave falló hace menos de
+ * {@code ttl}; si no, ejecuta la búsqueda y, si no encuentra nada, guarda la
+ * clave. Los resultados encontrados no se guardan (para eso está
+ * {@link CacheLectura}). Al superar la capacidad se expulsa la clave usada
+ * hace más tiempo.</p>
+ *
+ * <p><b>Invalidación:</b> los servicios llaman a {@link #invalidarTodo()}
+ * después de confirmar una escritura que puede hacer aparecer alguna clave.
+ * No se olvida solo la clave escrita porque la BD compara sin distinguir
+ * mayúsculas, y otras claves pueden coincidir con la misma fila. Una
+ * búsqueda que empezó antes de una invalidación no guarda su fallo, porque
+ * pudo haber leído el estado anterior a la escritura.</p>
+ */
+final class CacheNegativa {
+
+    /**
+     * Busca una entidad por clave en su origen.
+     *
+     * @param <T> tipo de entidad
+     */
+    @FunctionalInterface
+    interface Buscador<T> {
+        T buscar(String clave) throws Exception;
+    }
+
+    private final String nombre;
+    private final int capacidad;
+    private final long ttlNanos;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final LinkedHashMap<String, Long> fallos;
+
+    /** Aumenta con cada invalidación; protegido por {@link #lock}. */
+    private long generacion;
+
+    private final LongAdder evitadas = new LongAdder();
+    private final LongAdder consultas = new LongAdder();
+
+    /**
+     * @param nombre    nombre para las estadísticas.
+     * @param capacidad cantidad máxima de claves guardadas.
+     * @param ttl       tiempo durante el que se recuerda cada fallo.
+     * @param unidad    unidad de {@code ttl}.
+     */
+    CacheNegativa(String nombre, int capacidad, long ttl, TimeUnit unidad) {
+        if (capacidad <= 0 || ttl <= 0) {
+            throw new IllegalArgumentException("La capacidad y el tiempo de vida de la caché deben ser mayores a 0");
+        }
+        this.nombre = nombre;
+        this.capacidad = capacidad;
+        this.ttlNanos = unidad.toNanos(ttl);
+        this.fallos = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Long> eldest) {
+                return size() > CacheNegativa.this.capacidad;
+            }
+        };
+    }
+
+    /**
+     * Busca la entidad con la clave indicada, salvo que la misma búsqueda
+     * haya fallado hace poco.
+     *
+     * @param clave    clave buscada.
+     * @param buscador función que busca la entidad en su origen.
+     * @return la entidad encontrada, o {@code null} si no existe.
+     * @throws Exception si falla la búsqueda.
+     */
+    <T> T obtener(String clave, Buscador<T> buscador) throws Exception {
+        long generacionInicial;
+        lock.lock();
+        try {
+            Long registradoEn = fallos.get(clave);
+            if (registradoEn != null) {
+                if (System.nanoTime() - registradoEn < ttlNanos) {
+                    evitadas.increment();
+                    return null;
+                }
+                fallos.remove(clave);
+            }
+            generacionInicial = generacion;
+        } finally {
+            lock.unlock();
+        }
+
+        consultas.increment();
+        T valor = buscador.buscar(clave);
+        if (valor == null) {
+            lock.lock();
+            try {
+                if (generacion == generacionInicial) {
+                    fallos.put(clave, System.nanoTime());
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+        return valor;
+    }
+
+    /**
+     * Olvida todos los fallos, tras cualquier escritura que pueda hacer
+     * aparecer alguna clave.
+     */
+    void invalidarTodo() {
+        lock.lock();
+        try {
+            generacion++;
+            fallos.clear();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Devuelve un resumen de uso de la caché.
+     *
+     * @return texto con consultas evitadas, consultas hechas y ocupación.
+     */
+    String getEstadisticas() {
+        int tamanio;
+        lock.lock();
+        try {
+            tamanio = fallos.size();
+        } finally {
+            lock.unlock();
+        }
+        return String.format("Caché negativa de %s: %d consultas evitadas, %d consultas, %d/%d claves",
+                nombre, evitadas.sum(), consultas.sum(), tamanio, capacidad);
+    }
+}
@@ -0,0 +1,327 @@
+/**
+ * @authors
+ * Gaston Alberto Cejas,
+ * Hernan Cóceres,
+ * Claudio Rodriguez,
+ * Hernan E.Bula
+ */
+package service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Stream;
+import model.CategoriaProducto;
+import model.Producto;
+
+/**
+ * Modelo de lectura en memoria con todos los productos activos y sus códigos
+ * de barras.
+ *
+ * <p><b>Copy-on-write:</b> el catálogo es una {@link Instantanea} inmutable
+ * publicada en una referencia volátil. Las lecturas toman la instantánea
+ * vigente y la recorren sin locks ni accesos a la base de datos. Cada cambio
+ * arma una instantánea nueva a partir de la anterior y la reemplaza de una
+ * sola vez, así que una lectura nunca ve un estado a medio aplicar.</p>
+ *
+ * <p><b>Cambios incrementales:</b> después de confirmar una escritura, el
+ * servicio llama a {@link #aplicar(Collection, Lector)} con los IDs
+ * afectados y una función que relee esas filas. Los cambios se aplican de a
+ * uno (la relectura ocurre dentro del lock), de modo que una relectura
+ * posterior siempre gana a una anterior. Cada cambio copia los índices, por
+ * lo que conviene para un catálogo que se lee mucho más de lo que se
+ * escribe.</p>
+ *
+ * <p><b>Edad máxima:</b> los cambios hechos por otros procesos no llegan
+ * como cambios incrementales. Por eso la instantánea vence a la edad máxima
+ * configurada desde su carga completa: a partir de ahí
+ * {@link #instantanea()} devuelve {@code null}, los servicios leen de la base
+ * de datos y se recarga el catálogo en un hilo de fondo. Lo mismo ocurre si
+ * un cambio no se puede aplicar y el catálogo se descarta.</p>
+ */
+final class CatalogoProductos {
+
+    /**
+     * Relee desde la base de datos los productos activos afectados por un cambio.
+     */
+    @FunctionalInterface
+    interface Lector {
+        Collection<Producto> leer() throws Exception;
+    }
+
+    /**
+     * Abre un stream con todos los productos activos.
+     */
+    @FunctionalInterface
+    interface Fuente {
+        Stream<Producto> abrir() throws Exception;
+    }
+
+    private static final Comparator<Producto> POR_ID = Comparator.comparingLong(Producto::getId);
+
+    private final long edadMaximaNanos;
+
+    /** Instantánea vigente, o {@code null} si el catálogo no está cargado. */
+    private volatile Instantanea actual;
+
+    /** Momento ({@link System#nanoTime()}) de la última carga completa o intento de carga. */
+    private volatile long ultimaCarga;
+
+    /** Origen de la última carga completa; {@code null} si nunca se cargó. */
+    private volatile Fuente fuente;
+
+    private final AtomicBoolean recargando = new AtomicBoolean();
+
+    /**
+     * @param edadMaxima tiempo desde la carga completa durante el que la instantánea se usa.
+     * @param unidad     unidad de {@code edadMaxima}.
+     */
+    CatalogoProductos(long edadMaxima, TimeUnit unidad) {
+        if (edadMaxima <= 0) {
+            throw new IllegalArgumentException("La edad máxima del catálogo debe ser mayor a 0");
+        }
+        this.edadMaximaNanos = unidad.toNanos(edadMaxima);
+    }
+
+    /**
+     * Devuelve la instantánea vigente. Quien consulta debe tomarla una vez y
+     * hacer todas sus lecturas sobre ella.
+     *
+     * <p>Si la instantánea venció (o se descartó) y el catálogo se cargó
+     * alguna vez, inicia una recarga en segundo plano y devuelve {@code null}
+     * hasta que termine.</p>
+     *
+     * @return la instantánea, o {@code null} si el catálogo no está cargado o venció.
+     */
+    Instantanea instantanea() {
+        Instantanea vigente = actual;
+        if (vigente != null && System.nanoTime() - ultimaCarga < edadMaximaNanos) {
+            return vigente;
+        }
+        if (fuente != null && System.nanoTime() - ultimaCarga >= edadMaximaNanos) {
+            recargarEnSegundoPlano();
+        }
+        return null;
+    }
+
+    /**
+     * Carga el catálogo completo y lo publica.
+     *
+     * @param fuente abre un stream con todos los productos activos; se cierra al terminar.
+     *               Se conserva para las recargas automáticas al vencer.
+     * @throws Exception si falla la lectura (el catálogo queda sin cargar).
+     */
+    synchronized void recargar(Fuente fuente) throws Exception {
+        this.fuente = fuente;
+        ultimaCarga = System.nanoTime();
+        actual = null;
+        Map<Long, Producto> porId = new HashMap<>();
+        try (Stream<Producto> productos = fuente.abrir()) {
+            productos.forEach(producto -> porId.put(producto.getId(), producto));
+        }
+        ultimaCarga = System.nanoTime();
+        actual = new Instantanea(porId);
+    }
+
+    /**
+     * Recarga el catálogo en un hilo demonio. No hace nada si ya hay una
+     * recarga en curso; si falla, se vuelve a intentar al pasar otra vez la
+     * edad máxima.
+     */
+    private void recargarEnSegundoPlano() {
+        if (!recargando.compareAndSet(false, true)) {
+            return;
+        }
+        Thread hilo = new Thread(() -> {
+            try {
+                recargar(fuente);
+            } catch (Exception e) {
+                System.err.println("Advertencia: No se pudo recargar el catálogo en memoria: " + e.getMessage());
+            } finally {
+                recargando.set(false);
+            }
+        }, "recarga-catalogo");
+        hilo.setDaemon(true);
+        hilo.start();
+    }
+
+    /**
+     * Aplica un cambio incremental: quita los productos indicados y agrega
+     * los que devuelve el lector. No hace nada si el catálogo no está cargado.
+     *
+     * @param ids    IDs de los productos escritos.
+     * @param lector relee los productos afectados que siguen activos.
+     */
+    synchronized void aplicar(Collection<Long> ids, Lector lector) {
+        Instantanea anterior = actual;
+        if (anterior == null) {
+            return;
+        }
+        try {
+            Collection<Producto> vigentes = lector.leer();
+            Map<Long, Producto> porId = new HashMap<>(anterior.porId);
+            for (Long id : ids) {
+                porId.remove(id);
+            }
+            for (Producto producto : vigentes) {
+                porId.put(producto.getId(), producto);
+            }
+            actual = new Instantanea(porId);
+        } catch (Exception e) {
+            actual = null;
+            System.err.println("Advertencia: Se descartó el catálogo en memoria: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Descarta el catálogo; las lecturas vuelven a la base de datos hasta la
+     * siguiente {@link #recargar(Fuente)}, que ocurre sola al cumplirse la
+     * edad máxima desde la última carga.
+     */
+    synchronized void descartar() {
+        actual = null;
+    }
+
+    /**
+     * Estado inmutable del catálogo con sus índices por ID, categoría y
+     * valor de código de barras. Los productos guardados no se entregan:
+     * cada lectura devuelve copias.
+     */
+    static final class Instantanea {
+
+        private final Map<Long, Producto> porId;
+        private final Producto[] ordenados;
+        private final Map<CategoriaProducto, Producto[]> porCategoria;
+        private final Map<String, Producto> porValor;
+
+        private Instantanea(Map<Long, Producto> porId) {
+            this.porId = porId;
+            this.ordenados = porId.values().toArray(new Producto[0]);
+            Arrays.sort(ordenados, POR_ID);
+
+            Map<CategoriaProducto, List<Producto>> agrupados = new EnumMap<>(CategoriaProducto.class);
+            Map<String, Producto> valores = new HashMap<>();
+            for (Producto producto : ordenados) {
+                if (producto.getCategoria() != null) {
+                    agrupados.computeIfAbsent(producto.getCategoria(), c -> new ArrayList<>()).add(producto);
+                }
+                if (producto.getCodigoBarras() != null) {
+                    valores.put(producto.getCodigoBarras().getValor(), producto);
+                }
+            }
+            Map<CategoriaProducto, Producto[]> categorias = new EnumMap<>(CategoriaProducto.class);
+            agrupados.forEach((categoria, lista) -> categorias.put(categoria, lista.toArray(new Producto[0])));
+            this.porCategoria = categorias;
+            this.porValor = valores;
+        }
+
+        /**
+         * @return copia del producto activo con ese ID, o {@code null} si no existe.
+         */
+        Producto getById(long id) {
+            Producto producto = porId.get(id);
+            return (producto != null) ? producto.copiar() : null;
+        }
+
+        /**
+         * @return mapa ID → copia del producto en el orden de {@code ids}; los
+         *         IDs inexistentes no aparecen.
+         */
+        Map<Long, Producto> getByIds(Collection<Long> ids) {
+            Map<Long, Producto> resultado = new LinkedHashMap<>();
+            for (Long id : ids) {
+                Producto producto = porId.get(id);
+                if (producto != null) {
+                    resultado.putIfAbsent(id, producto.copiar());
+                }
+            }
+            return resultado;
+        }
+
+        /**
+         * @return copia del producto cuyo código de barras tiene ese valor, o {@code null}.
+         */
+        Producto getByCodigoValor(String valor) {
+            Producto producto = porValor.get(valor);
+            return (producto != null) ? producto.copiar() : null;
+        }
+
+        /**
+         * @return mapa valor → copia del producto en el orden de
+         *         {@code valores}; los valores sin producto activo no aparecen.
+         */
+        Map<String, Producto> getByCodigoValores(Collection<String> valores) {
+            Map<String, Producto> resultado = new LinkedHashMap<>();
+            for (String valor : valores) {
+                Producto producto = porValor.get(valor);
+                if (producto != null) {
+                    resultado.putIfAbsent(valor, producto.copiar());
+                }
+            }
+            return resultado;
+        }
+
+        /**
+         * @return copias de todos los productos activos, ordenados por ID.
+         */
+        List<Producto> getAll() {
+            return pagina(ordenados, Long.MIN_VALUE, ordenados.length);
+        }
+
+        /**
+         * @return copias de hasta {@code limite} productos con ID mayor a
+         *         {@code despuesDeId}, ordenados por ID.
+         */
+        List<Producto> getPage(long despuesDeId, int limite) {
+            return pagina(ordenados, despuesDeId, limite);
+        }
+
+        /**
+         * @return copias de hasta {@code limite} productos de la categoría con
+         *         ID mayor a {@code despuesDeId}, ordenados por ID.
+         */
+        List<Producto> getByCategoria(CategoriaProducto categoria, long despuesDeId, int limite) {
+            Producto[] productos = porCategoria.get(categoria);
+            return (productos != null) ? pagina(productos, despuesDeId, limite) : Collections.emptyList();
+        }
+
+        /**
+         * @return cantidad de productos activos en la instantánea.
+         */
+        int tamanio() {
+            return ordenados.length;
+        }
+
+        /**
+         * Busca por bisección la primera posición con ID mayor a
+         * {@code despuesDeId} y copia desde ahí.
+         */
+        private static List<Producto> pagina(Producto[] productos, long despuesDeId, int limite) {
+            int desde = 0;
+            int hasta = productos.length;
+            while (desde < hasta) {
+                int medio = (desde + hasta) >>> 1;
+                if (productos[medio].getId() <= despuesDeId) {
+                    desde = medio + 1;
+                } else {
+                    hasta = medio;
+                }
+            }
+            int fin = (int) Math.min(productos.length, (long) desde + limite);
+            List<Producto> resultado = new ArrayList<>(Math.max(0, fin - desde));
+            for (int i = desde; i < fin; i++) {
+                resultado.add(productos[i].copiar());
+            }
+            return resultado;
+        }
+    }
+}
@@ -12,11 +12,16 @@
 package service;
 
 import DAO.CodigoBarrasDAO;
+import DAO.ConflictoVersionException;
 import config.DatabaseConnection;
 import model.CodigoBarras;
+import model.ResultadoOperacion;
 import java.sql.Connection;
 import java.sql.SQLException;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Servicio para gestionar las operaciones de negocio de la entidad CodigoBarras.
@@ -50,19 +55,69 @@ import java.util.List;
  */
 public class CodigoBarrasService implements GenericService<CodigoBarras> {
 
+    /** Capacidad de la caché de códigos de barras por ID */
+    private static final int CACHE_CAPACIDAD = 1000;
+
+    /** Tiempo de vida de cada código en la caché, en segundos */
+    private static final long CACHE_TTL_SEGUNDOS = 300;
+
+    /** Caché de {@link #getById(long)}, compartida por todas las instancias del servicio */
+    private static final CacheLectura<CodigoBarras> CACHE_CODIGOS = new CacheLectura<>(
+            "códigos de barras", CACHE_CAPACIDAD, CACHE_TTL_SEGUNDOS, TimeUnit.SECONDS, CodigoBarras::copiar);
+
+    /**
+     * Índice en memoria valor → ID usado por {@link #getByValor(String)}.
+     * Se llena con los códigos que se leen o escriben, y cada entrada se
+     * confirma contra el código leído antes de devolverlo. Compartido por
+     * todas las instancias, como la caché.
+     */
+    private static final IndiceCodigos INDICE_CODIGOS = new IndiceCodigos();
+
+    /** Cantidad máxima de valores inexistentes recordados */
+    private static final int VALORES_INEXISTENTES_CAPACIDAD = 1000;
+
+    /** Tiempo durante el que se recuerda un valor inexistente, en segundos */
+    private static final long VALORES_INEXISTENTES_TTL_SEGUNDOS = 30;
+
+    /**
+     * Caché negativa de las búsquedas por valor, para que los escaneos
+     * repetidos de un código no registrado no consulten la BD. Se vacía
+     * completa ante cualquier escritura que pueda hacer aparecer un valor:
+     * la comparación de la BD no distingue mayúsculas e ignora los espacios
+     * finales, así que invalidar solo el valor escrito podría dejar vivas
+     * variantes que ahora sí coinciden.
+     */
+    private static final CacheNegativa VALORES_INEXISTENTES = new CacheNegativa(
+            "valores de códigos", VALORES_INEXISTENTES_CAPACIDAD, VALORES_INEXISTENTES_TTL_SEGUNDOS, TimeUnit.SECONDS);
+
+    /** Probabilidad máxima de que el filtro de valores dé un falso positivo */
+    public static final double FILTRO_TASA_FALSOS_POSITIVOS = 0.01;
+
+    /** Cantidad de valores de la primera capa del filtro; crece solo si hace falta */
+    private static final int FILTRO_CAPACIDAD_INICIAL = 10_000;
+
+    /**
+     * Filtro de Bloom con todos los valores de la tabla (incluidos los
+     * eliminados), para evitar la consulta de existencia cuando un valor
+     * seguro es nuevo.
+     */
+    private static final FiltroBloom FILTRO_VALORES = new FiltroBloom(
+            FILTRO_TASA_FALSOS_POSITIVOS, FILTRO_CAPACIDAD_INICIAL);
+
     private final CodigoBarrasDAO codigoBarrasDAO = new CodigoBarrasDAO();
 
     /**
      * Inserta un nuevo código de barras en el sistema con validación de unicidad.
      * 
-     * <p><b>Validación de unicidad:</b> Antes de insertar, verifica que no exista
-     * otro código de barras activo con el mismo valor, garantizando la restricción
-     * UNIQUE requerida por el negocio.</p>
+     * <p><b>Validación de unicidad:</b> La garantiza la restricción UNIQUE de la
+     * columna {@code valor}: se inserta directamente y, si la base de datos
+     * rechaza el valor por duplicado, se informa con la misma excepción de
+     * negocio. Así la escritura es una sola sentencia y no hay ventana entre
+     * una verificación previa y la inserción.</p>
      * 
      * <p><b>Flujo transaccional:</b>
      * <ol>
      *   <li>Valida las reglas de negocio del código de barras</li>
-     *   <li>Verifica unicidad del valor</li>
      *   <li>Inicia transacción (autoCommit = false)</li>
      *   <li>Inserta el código de barras mediante el DAO</li>
      *   <li>Confirma la transacción (commit)</li>
@@ -83,14 +138,18 @@ public class CodigoBarrasService implements GenericService<CodigoBarras> {
             conn = DatabaseConnection.getConnection();
             conn.setAutoCommit(false);
             
-            CodigoBarras existente = codigoBarrasDAO.getByValor(entidad.getValor(), conn);
-            if (existente != null && !existente.isEliminado()) {
-                throw new IllegalArgumentException("Ya existe un código de barras con el valor: " + entidad.getValor());
+            try {
+                codigoBarrasDAO.insertar(entidad, conn);
+            } catch (SQLException e) {
+                if (CodigoBarrasDAO.esValorDuplicado(e)) {
+                    throw new IllegalArgumentException("Ya existe un código de barras con el valor: " + entidad.getValor(), e);
+                }
+                throw e;
             }
             
-            codigoBarrasDAO.insertar(entidad, conn);
-            
             conn.commit();
+            CACHE_CODIGOS.invalidar(entidad.getId());
+            indexarCodigo(entidad);
         } catch (Exception e) {
             if (conn != null) {
                 try {
@@ -116,19 +175,24 @@ public class CodigoBarrasService implements GenericService<CodigoBarras> {
      * Actualiza un código de barras existente con validación de unicidad.
      * 
      * <p><b>Validación de unicidad en actualización:</b> Cuando se actualiza el valor
-     * de un código de barras, verifica que el nuevo valor no esté siendo utilizado
-     * por otro código de barras activo, excepto por sí mismo.</p>
+     * de un código de barras, la restricción UNIQUE de la columna impide que el
+     * nuevo valor ya esté siendo utilizado por otro código de barras.</p>
      * 
      * <p><b>Escenarios manejados:</b>
      * <ul>
-     *   <li>Si el valor no cambia: permite la actualización directamente</li>
-     *   <li>Si el valor cambia: verifica que el nuevo valor no exista</li>
-     *   <li>Si existe otro código con el nuevo valor: rechaza la actualización</li>
+     *   <li>Si el valor no cambia: la columna no se escribe</li>
+     *   <li>Si el valor cambia y está libre: se actualiza en una sola sentencia</li>
+     *   <li>Si existe otro código con el nuevo valor: la base de datos rechaza
+     *       la actualización y se informa con {@link IllegalArgumentException}</li>
      * </ul>
      * </p>
      *
+     * <p><b>Concurrencia:</b> si otro usuario modificó el código desde que se
+     * leyó, se hace rollback y se lanza {@link ConflictoVersionException}.</p>
+     *
      * @param entidad El código de barras con los datos actualizados. No puede ser {@code null}
      * @throws IllegalArgumentException Si el nuevo valor ya existe o las validaciones fallan
+     * @throws ConflictoVersionException Si el código cambió desde que se leyó
      * @throws Exception Si ocurre un error durante la transacción
      */
     @Override
@@ -140,18 +204,25 @@ public class CodigoBarrasService implements GenericService<CodigoBarras> {
             conn = DatabaseConnection.getConnection();
             conn.setAutoCommit(false);
             
-            CodigoBarras existente = codigoBarrasDAO.getById(entidad.getId());
-            if (existente != null && !existente.getValor().equals(entidad.getValor())) {
-                CodigoBarras otroConMismoValor = codigoBarrasDAO.getByValor(entidad.getValor(), conn);
-                if (otroConMismoValor != null && !otroConMismoValor.isEliminado() && 
-                    otroConMismoValor.getId() != entidad.getId()) {
-                    throw new IllegalArgumentException("Ya existe otro código de barras con el valor: " + entidad.getValor());
+            boolean escrito;
+            try {
+                escrito = codigoBarrasDAO.actualizar(entidad, conn);
+            } catch (SQLException e) {
+                if (CodigoBarrasDAO.esValorDuplicado(e)) {
+                    throw new IllegalArgumentException("Ya existe otro código de barras con el valor: " + entidad.getValor(), e);
                 }
+                throw e;
             }
             
-            codigoBarrasDAO.actualizar(entidad, conn);
-            
             conn.commit();
+            if (escrito) {
+                entidad.setVersion(entidad.getVersion() + 1);
+                entidad.iniciarSeguimientoCambios();
+            }
+            CACHE_CODIGOS.invalidar(entidad.getId());
+            ProductoService.invalidarCacheProductos();
+            ProductoService.actualizarCatalogoPorCodigos(List.of(entidad.getId()));
+            indexarCodigo(entidad);
         } catch (Exception e) {
             if (conn != null) {
                 try {
@@ -160,6 +231,10 @@ public class CodigoBarrasService implements GenericService<CodigoBarras> {
                     throw new Exception("Error al hacer rollback: " + rollbackEx.getMessage(), e);
                 }
             }
+            if (e instanceof ConflictoVersionException) {
+                // La versión guardada en la caché ya no es la de la BD
+                CACHE_CODIGOS.invalidar(entidad.getId());
+            }
             throw e;
         } finally {
             if (conn != null) {
@@ -222,21 +297,33 @@ public class CodigoBarrasService implements GenericService<CodigoBarras> {
      * de barras, la relación 1→1 con Producto se maneja mediante ON DELETE SET NULL,
      * permitiendo que el producto quede sin código de barras asociado pero
      * manteniendo su existencia en el sistema.</p>
+     * 
+     * <p><b>Una sola consulta:</b> no hace falta buscar el código antes; el
+     * resultado indica si no existía o si ya estaba eliminado.</p>
      *
      * @param id ID del código de barras a eliminar
+     * @return {@link ResultadoOperacion#EXITO}, {@link ResultadoOperacion#NO_ENCONTRADO}
+     *         o {@link ResultadoOperacion#SIN_CAMBIOS} si ya estaba eliminado
      * @throws Exception Si ocurre un error durante la transacción
      * @see #recuperar(long)
      */
     @Override
-    public void eliminar(long id) throws Exception {
+    public ResultadoOperacion eliminar(long id) throws Exception {
         Connection conn = null;
         try {
             conn = DatabaseConnection.getConnection();
             conn.setAutoCommit(false);
             
-            codigoBarrasDAO.eliminar(id, conn);
+            ResultadoOperacion resultado = codigoBarrasDAO.eliminar(id, conn);
             
             conn.commit();
+            if (resultado == ResultadoOperacion.EXITO) {
+                CACHE_CODIGOS.invalidar(id);
+                ProductoService.invalidarCacheProductos();
+                ProductoService.actualizarCatalogoPorCodigos(List.of(id));
+                INDICE_CODIGOS.quitar(id);
+            }
+            return resultado;
         } catch (Exception e) {
             if (conn != null) {
                 try {
@@ -261,32 +348,46 @@ public class CodigoBarrasService implements GenericService<CodigoBarras> {
     /**
      * Recupera un código de barras previamente eliminado (soft delete).
      * 
-     * <p><b>Validación previa:</b> Verifica que el código de barras no esté activo
-     * antes de intentar la recuperación para evitar inconsistencias en el estado.</p>
+     * <p><b>Sin validación previa:</b> el UPDATE solo afecta códigos
+     * eliminados, por lo que no hace falta leer el código antes.</p>
+     * 
+     * <p><b>Códigos archivados:</b> si el código ya fue movido al archivo
+     * (ver {@link ArchivadorEliminados}), se restaura desde allí.</p>
      * 
      * <p><b>Impacto en la relación 1→1:</b> Al recuperar un código de barras,
      * los productos que previamente lo referenciaban pueden volver a asociarse
      * mediante el método correspondiente en ProductoService.</p>
      *
      * @param id ID del código de barras a recuperar
-     * @throws IllegalArgumentException Si el código de barras no está eliminado
+     * @return {@link ResultadoOperacion#EXITO}, {@link ResultadoOperacion#NO_ENCONTRADO}
+     *         o {@link ResultadoOperacion#SIN_CAMBIOS} si el código no estaba eliminado
      * @throws Exception Si ocurre un error durante la transacción
      * @see #eliminar(long)
      */
-    public void recuperar(long id) throws Exception {
-        CodigoBarras codigoActivo = codigoBarrasDAO.getById(id);
-        if (codigoActivo != null) {
-            throw new IllegalArgumentException("El código de barras con ID " + id + " no está borrado.");
-        }
-
+    public ResultadoOperacion recuperar(long id) throws Exception {
         Connection conn = null;
         try {
             conn = DatabaseConnection.getConnection();
             conn.setAutoCommit(false);
 
-            codigoBarrasDAO.recuperar(id, conn);
+            ResultadoOperacion resultado;
+            try {
+                resultado = codigoBarrasDAO.recuperar(id, conn);
+            } catch (SQLException e) {
+                if (CodigoBarrasDAO.esValorDuplicado(e)) {
+                    throw new IllegalArgumentException("No se puede recuperar el código de barras archivado: su valor ya está en uso por otro código", e);
+                }
+                throw e;
+            }
 
             conn.commit();
+            if (resultado == ResultadoOperacion.EXITO) {
+                CACHE_CODIGOS.invalidar(id);
+                ProductoService.invalidarCacheProductos();
+                ProductoService.actualizarCatalogoPorCodigos(List.of(id));
+                reindexarCodigos(List.of(id));
+            }
+            return resultado;
         } catch (Exception e) {
             if (conn != null) {
                 try {
@@ -308,19 +409,198 @@ public class CodigoBarrasService implements GenericService<CodigoBarras> {
         }
     }
     
+    /**
+     * Elimina lógicamente (soft delete) varios códigos de barras en una sola transacción,
+     * con sentencias {@code UPDATE ... WHERE id IN (...)} por bloques.
+     *
+     * @param ids IDs de los códigos de barras a eliminar
+     * @return Cantidad de códigos eliminados (no cuenta los inexistentes ni los ya eliminados)
+     * @throws IllegalArgumentException Si la colección es null o contiene IDs no positivos
+     * @throws Exception Si ocurre un error durante la transacción
+     */
+    public int eliminar(Collection<Long> ids) throws Exception {
+        validarIds(ids);
+        
+        Connection conn = null;
+        try {
+            conn = DatabaseConnection.getConnection();
+            conn.setAutoCommit(false);
+            
+            int eliminados = codigoBarrasDAO.eliminarPorIds(ids, conn);
+            
+            conn.commit();
+            if (eliminados > 0) {
+                invalidarCache(ids);
+                for (Long id : ids) {
+                    INDICE_CODIGOS.quitar(id);
+                }
+            }
+            return eliminados;
+        } catch (Exception e) {
+            if (conn != null) {
+                try {
+                    conn.rollback();
+                } catch (SQLException rollbackEx) {
+                    throw new Exception("Error al hacer rollback: " + rollbackEx.getMessage(), e);
+                }
+            }
+            throw e;
+        } finally {
+            if (conn != null) {
+                try {
+                    conn.setAutoCommit(true);
+                    conn.close();
+                } catch (SQLException closeEx) {
+                    System.err.println("Error al cerrar conexión: " + closeEx.getMessage());
+                }
+            }
+        }
+    }
+
+    /**
+     * Recupera varios códigos de barras eliminados en una sola transacción.
+     *
+     * @param ids IDs de los códigos de barras a recuperar
+     * @return Cantidad de códigos recuperados (no cuenta los inexistentes ni los que no estaban eliminados)
+     * @throws IllegalArgumentException Si la colección es null o contiene IDs no positivos
+     * @throws Exception Si ocurre un error durante la transacción
+     * @see #eliminar(Collection)
+     */
+    public int recuperar(Collection<Long> ids) throws Exception {
+        validarIds(ids);
+        
+        Connection conn = null;
+        try {
+            conn = DatabaseConnection.getConnection();
+            conn.setAutoCommit(false);
+            
+            int recuperados;
+            try {
+                recuperados = codigoBarrasDAO.recuperarPorIds(ids, conn);
+            } catch (SQLException e) {
+                if (CodigoBarrasDAO.esValorDuplicado(e)) {
+                    throw new IllegalArgumentException("No se puede recuperar un código de barras archivado: su valor ya está en uso por otro código", e);
+                }
+                throw e;
+            }
+            
+            conn.commit();
+            if (recuperados > 0) {
+                invalidarCache(ids);
+                reindexarCodigos(ids);
+            }
+            return recuperados;
+        } catch (Exception e) {
+            if (conn != null) {
+                try {
+                    conn.rollback();
+                } catch (SQLException rollbackEx) {
+                    throw new Exception("Error al hacer rollback: " + rollbackEx.getMessage(), e);
+                }
+            }
+            throw e;
+        } finally {
+            if (conn != null) {
+                try {
+                    conn.setAutoCommit(true);
+                    conn.close();
+                } catch (SQLException closeEx) {
+                    System.err.println("Error al cerrar conexión: " + closeEx.getMessage());
+                }
+            }
+        }
+    }
+
+    /**
+     * Valida una colección de IDs para las operaciones masivas.
+     *
+     * @param ids IDs a validar
+     * @throws IllegalArgumentException Si la colección es null o contiene IDs null o no positivos
+     */
+    private void validarIds(Collection<Long> ids) {
+        if (ids == null) {
+            throw new IllegalArgumentException("La colección de IDs no puede ser null");
+        }
+        for (Long id : ids) {
+            if (id == null || id <= 0) {
+                throw new IllegalArgumentException("Todos los IDs deben ser mayores a 0 (se recibió " + id + ")");
+            }
+        }
+    }
+
     /**
      * Obtiene un código de barras por su ID.
      * 
      * <p><b>Nota:</b> Este método solo retorna códigos de barras activos
      * (no eliminados). Para consultar incluyendo eliminados, use el DAO directamente.</p>
      *
+     * <p><b>Caché:</b> la lectura pasa por una caché LRU con vencimiento que
+     * las escrituras de este servicio invalidan. Cada llamada devuelve una
+     * copia, que puede modificarse libremente.</p>
+     *
      * @param id ID del código de barras a buscar
      * @return El código de barras encontrado o {@code null} si no existe o está eliminado
      * @throws Exception Si ocurre un error en el acceso a datos
      */
     @Override
     public CodigoBarras getById(long id) throws Exception {
-        return codigoBarrasDAO.getById(id);
+        return CACHE_CODIGOS.obtener(id, codigoBarrasDAO::getById);
+    }
+
+    /**
+     * Devuelve un resumen de uso de la caché de códigos de barras por ID.
+     *
+     * @return texto con aciertos, fallos, expulsiones y tiempo medio de carga
+     */
+    public static String getEstadisticasCache() {
+        return CACHE_CODIGOS.getEstadisticas();
+    }
+
+    /**
+     * Devuelve un resumen de uso de la caché de valores inexistentes.
+     *
+     * @return texto con consultas evitadas, consultas hechas y ocupación
+     */
+    public static String getEstadisticasValoresInexistentes() {
+        return VALORES_INEXISTENTES.getEstadisticas();
+    }
+
+    /**
+     * Devuelve un resumen del filtro de valores existentes.
+     *
+     * @return texto con la cantidad de valores, la tasa de falsos positivos
+     *         configurada y la estimada, y la memoria usada
+     */
+    public static String getEstadisticasFiltro() {
+        return FILTRO_VALORES.getEstadisticas();
+    }
+
+    /**
+     * Invalida los códigos indicados y la caché de productos, que guarda
+     * copias de los códigos asociados, y actualiza esos productos en el
+     * catálogo en memoria.
+     */
+    private void invalidarCache(Collection<Long> ids) {
+        for (Long id : ids) {
+            CACHE_CODIGOS.invalidar(id);
+        }
+        ProductoService.invalidarCacheProductos();
+        ProductoService.actualizarCatalogoPorCodigos(ids);
+    }
+
+    /**
+     * Obtiene varios códigos de barras por su ID con una consulta por bloque de IDs.
+     *
+     * @param ids IDs de los códigos de barras a buscar
+     * @return Mapa ID → código de barras en el orden recibido. Los IDs inexistentes o eliminados no aparecen
+     * @throws IllegalArgumentException Si la colección es null
+     * @throws Exception Si ocurre un error en el acceso a datos
+     */
+    public Map<Long, CodigoBarras> getByIds(Collection<Long> ids) throws Exception {
+        if (ids == null) {
+            throw new IllegalArgumentException("La colección de IDs no puede ser null");
+        }
+        return codigoBarrasDAO.getByIds(ids);
     }
 
     /**
@@ -334,20 +614,39 @@ public class CodigoBarrasService implements GenericService<CodigoBarras> {
         return codigoBarrasDAO.getAll();
     }
 
+    /**
+     * Obtiene una página de códigos de barras activos ordenados por ID (paginación por clave).
+     *
+     * @param despuesDeId ID del último elemento de la página anterior, o {@code 0} para la primera
+     * @param limite Cantidad máxima de elementos de la página
+     * @return Lista de códigos de barras de la página. Lista vacía si no hay más resultados
+     * @throws IllegalArgumentException Si el límite no es positivo
+     * @throws Exception Si ocurre un error en el acceso a datos
+     */
+    @Override
+    public List<CodigoBarras> getPage(long despuesDeId, int limite) throws Exception {
+        return codigoBarrasDAO.getPage(despuesDeId, limite);
+    }
+
     /**
      * Busca un código de barras por su valor exacto.
      * 
      * <p><b>Búsqueda exacta:</b> Este método realiza una búsqueda por coincidencia
-     * exacta del valor. Es utilizado principalmente para validar la unicidad
-     * durante inserciones y actualizaciones.</p>
+     * exacta del valor. No hace falta usarlo antes de insertar o actualizar:
+     * esas operaciones ya rechazan los valores repetidos.</p>
+     * 
+     * <p><b>Valores no registrados:</b> un valor que no se encontró se recuerda
+     * durante {@value #VALORES_INEXISTENTES_TTL_SEGUNDOS} segundos, así los
+     * escaneos repetidos de un código inválido no consultan la BD. Insertar,
+     * actualizar o recuperar cualquier código olvida todos los valores
+     * recordados.</p>
      * 
      * <p><b>Uso típico:</b>
      * <pre>
      * {@code
-     * // Validar si un valor ya existe
-     * CodigoBarras existente = codigoBarrasService.getByValor("1234567890123");
-     * if (existente != null) {
-     *     throw new IllegalArgumentException("El código de barras ya existe");
+     * CodigoBarras escaneado = codigoBarrasService.getByValor("1234567890123");
+     * if (escaneado == null) {
+     *     System.out.println("Código no registrado");
      * }
      * }
      * </pre>
@@ -358,6 +657,103 @@ public class CodigoBarrasService implements GenericService<CodigoBarras> {
      * @throws Exception Si ocurre un error en el acceso a datos
      */
     public CodigoBarras getByValor(String valor) throws Exception {
-        return codigoBarrasDAO.getByValor(valor);
+        long id = INDICE_CODIGOS.buscar(valor);
+        if (id != 0) {
+            CodigoBarras codigo = getById(id);
+            if (codigo != null && codigo.getValor().equals(valor)) {
+                return codigo;
+            }
+            // El índice quedó desactualizado (por ejemplo, un cambio hecho por otra instancia)
+            INDICE_CODIGOS.quitar(id);
+        }
+        CodigoBarras codigo = VALORES_INEXISTENTES.obtener(valor, codigoBarrasDAO::getByValor);
+        if (codigo != null) {
+            INDICE_CODIGOS.poner(codigo.getId(), codigo.getValor());
+        }
+        return codigo;
+    }
+
+    /**
+     * Agrega o actualiza un código en el índice en memoria, registra su
+     * valor en el filtro de valores existentes y vacía la caché de valores
+     * inexistentes. También lo usa
+     * {@link ProductoService} al insertar productos junto con su código.
+     *
+     * @param codigo Código activo recién escrito; si es {@code null} no hace nada
+     */
+    static void indexarCodigo(CodigoBarras codigo) {
+        if (codigo != null) {
+            INDICE_CODIGOS.poner(codigo.getId(), codigo.getValor());
+            FILTRO_VALORES.agregar(codigo.getValor());
+            VALORES_INEXISTENTES.invalidarTodo();
+        }
+    }
+
+    /**
+     * Vuelve a indexar códigos leyéndolos de la BD, tras recuperarlos. Como se
+     * llama después del commit, un error de lectura solo se informa: la
+     * recuperación ya quedó confirmada. En ese caso se olvidan todos los
+     * valores inexistentes, porque no se sabe cuáles volvieron a existir; el
+     * índice sin esas entradas solo hace que las búsquedas vayan a la BD.
+     */
+    private void reindexarCodigos(Collection<Long> ids) {
+        try {
+            for (CodigoBarras codigo : codigoBarrasDAO.getByIds(ids).values()) {
+                indexarCodigo(codigo);
+            }
+        } catch (Exception e) {
+            VALORES_INEXISTENTES.invalidarTodo();
+            System.err.println("Advertencia: No se pudo actualizar el índice de códigos: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Carga desde la BD el filtro de Bloom con los valores existentes.
+     * Conviene llamarlo al iniciar la aplicación; hasta entonces
+     * {@link #puedeExistirValor(String)} responde siempre {@code true}.
+     *
+     * @throws Exception Si ocurre un error en el acceso a datos
+     */
+    public void cargarFiltroValores() throws Exception {
+        FILTRO_VALORES.reemplazar(codigoBarrasDAO::streamValores);
+    }
+
+    /**
+     * Indica si un valor puede estar ya registrado. Si devuelve {@code false}
+     * el valor seguro es nuevo y no hace falta consultar la BD; si devuelve
+     * {@code true} hay que consultarla (puede ser un falso positivo).
+     *
+     * <p>Los valores escritos por otras instancias de la aplicación no llegan
+     * al filtro: por eso la restricción UNIQUE sigue siendo la garantía final.</p>
+     *
+     * @param valor Valor a verificar
+     * @return {@code false} si el valor seguro no existe en la tabla
+     */
+    static boolean puedeExistirValor(String valor) {
+        return FILTRO_VALORES.puedeContener(valor);
+    }
+
+    /**
+     * Busca varios códigos de barras por su valor exacto con una consulta por bloque de valores.
+     *
+     * <p><b>Uso típico:</b> resolver de una vez todos los códigos escaneados
+     * de una compra, en lugar de llamar a {@link #getByValor(String)} por cada uno.
+     * <pre>
+     * {@code
+     * Map<String, CodigoBarras> encontrados = codigoBarrasService.getByValores(escaneados);
+     * }
+     * </pre>
+     * </p>
+     *
+     * @param valores Valores exactos de los códigos de barras a buscar
+     * @return Mapa valor → código de barras en el orden recibido. Los valores no registrados no aparecen
+     * @throws IllegalArgumentException Si la colección es null
+     * @throws Exception Si ocurre un error en el acceso a datos
+     */
+    public Map<String, CodigoBarras> getByValores(Collection<String> valores) throws Exception {
+        if (valores == null) {
+            throw new IllegalArgumentException("La colección de valores no puede ser null");
+        }
+        return codigoBarrasDAO.getByValores(valores);
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,247 @@
+/**
+ * @authors
+ * Gaston Alberto Cejas,
+ * Hernan Cóceres,
+ * Claudio Rodriguez,
+ * Hernan E.Bula
+ */
+package service;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.stream.Stream;
+
+/**
+ * Filtro de Bloom escalable sobre cadenas, para descartar sin ir a la base de
+ * datos los valores que seguro no existen.
+ *
+ * <p><b>Garantía:</b> {@link #puedeContener(CharSequence)} nunca devuelve
+ * {@code false} para un valor agregado (no hay falsos negativos). Puede
+ * devolver {@code true} para un valor que no se agregó, con una probabilidad
+ * acotada por la tasa de falsos positivos configurada. Los valores no se
+ * pueden quitar.</p>
+ *
+ * <p><b>Escalable:</b> el filtro es una serie de capas. Cuando la última
+ * llega a su capacidad se agrega otra del doble de tamaño y con la mitad de
+ * tasa de falsos positivos, de modo que la tasa total se mantiene por debajo
+ * de la configurada sin conocer de antemano la cantidad de valores.</p>
+ *
+ * <p><b>Concurrencia:</b> las consultas no toman locks (los bits están en
+ * {@link AtomicLongArray} y las capas se publican en un arreglo volátil);
+ * las inserciones se serializan entre sí.</p>
+ */
+final class FiltroBloom {
+
+    /** Factor de crecimiento de la capacidad de cada capa nueva. */
+    private static final int CRECIMIENTO = 2;
+
+    /** Factor por el que se reduce la tasa de falsos positivos de cada capa nueva. */
+    private static final double REDUCCION_TASA = 0.5;
+
+    /**
+     * Origen de los valores con los que se carga el filtro.
+     */
+    @FunctionalInterface
+    interface Fuente {
+        Stream<String> abrir() throws Exception;
+    }
+
+    private final double tasaFalsosPositivos;
+    private final int capacidadInicial;
+
+    private volatile Capa[] capas;
+    private volatile boolean cargado;
+
+    /**
+     * @param tasaFalsosPositivos probabilidad máxima de falso positivo, entre 0 y 1 (exclusivos).
+     * @param capacidadInicial    cantidad de valores de la primera capa.
+     */
+    FiltroBloom(double tasaFalsosPositivos, int capacidadInicial) {
+        if (!(tasaFalsosPositivos > 0 && tasaFalsosPositivos < 1)) {
+            throw new IllegalArgumentException("La tasa de falsos positivos debe estar entre 0 y 1");
+        }
+        if (capacidadInicial <= 0) {
+            throw new IllegalArgumentException("La capacidad inicial del filtro debe ser mayor a 0");
+        }
+        this.tasaFalsosPositivos = tasaFalsosPositivos;
+        this.capacidadInicial = capacidadInicial;
+        this.capas = new Capa[] { primeraCapa() };
+    }
+
+    /**
+     * Indica si el filtro ya se cargó con {@link #reemplazar(Fuente)}. Mientras
+     * no lo esté, {@link #puedeContener(CharSequence)} responde siempre
+     * {@code true} y quien consulta debe ir a la base de datos.
+     */
+    boolean isCargado() {
+        return cargado;
+    }
+
+    /**
+     * Agrega un valor al filtro.
+     *
+     * @param valor valor a agregar; si es {@code null} no hace nada.
+     */
+    synchronized void agregar(CharSequence valor) {
+        if (valor == null) {
+            return;
+        }
+        Capa[] actuales = capas;
+        Capa ultima = actuales[actuales.length - 1];
+        if (ultima.cantidad >= ultima.capacidad) {
+            ultima = new Capa(ultima.capacidad * CRECIMIENTO, ultima.tasa * REDUCCION_TASA);
+            Capa[] nuevas = Arrays.copyOf(actuales, actuales.length + 1);
+            nuevas[actuales.length] = ultima;
+            capas = nuevas;
+        }
+        ultima.agregar(hash(valor));
+    }
+
+    /**
+     * Indica si el valor pudo haberse agregado.
+     *
+     * @param valor valor a consultar.
+     * @return {@code false} si seguro no se agregó; {@code true} si pudo
+     *         haberse agregado o si el filtro todavía no se cargó.
+     */
+    boolean puedeContener(CharSequence valor) {
+        if (!cargado) {
+            return true;
+        }
+        if (valor == null) {
+            return false;
+        }
+        long h = hash(valor);
+        for (Capa capa : capas) {
+            if (capa.puedeContener(h)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Reemplaza el contenido del filtro por los valores existentes y lo marca
+     * como cargado.
+     *
+     * <p>El filtro se vacía antes de abrir la consulta, y los valores que se
+     * agregan mientras dura la carga se conservan: un valor confirmado en ese
+     * intervalo queda en el filtro por una vía o por la otra.</p>
+     *
+     * @param fuente abre un stream con todos los valores existentes; se cierra al terminar.
+     * @throws Exception si falla la lectura (el filtro queda sin cargar).
+     */
+    void reemplazar(Fuente fuente) throws Exception {
+        synchronized (this) {
+            cargado = false;
+            capas = new Capa[] { primeraCapa() };
+        }
+        try (Stream<String> valores = fuente.abrir()) {
+            valores.forEach(this::agregar);
+        }
+        cargado = true;
+    }
+
+    /**
+     * Devuelve un resumen del estado del filtro.
+     *
+     * @return texto con la cantidad de valores, la tasa de falsos positivos
+     *         configurada y la estimada según la ocupación, la cantidad de
+     *         capas y la memoria usada por los bits.
+     */
+    String getEstadisticas() {
+        Capa[] actuales = capas;
+        long valores = 0;
+        long bits = 0;
+        double probabilidadNegativo = 1;
+        for (Capa capa : actuales) {
+            valores += capa.cantidad;
+            bits += capa.bits;
+            probabilidadNegativo *= 1 - capa.tasaEstimada();
+        }
+        return String.format("Filtro de Bloom: %d valores, falsos positivos %.3f%% configurados / %.3f%% estimados, "
+                + "%d capas, %.1f KB%s",
+                valores, tasaFalsosPositivos * 100, (1 - probabilidadNegativo) * 100,
+                actuales.length, bits / 8 / 1024.0, cargado ? "" : " (sin cargar)");
+    }
+
+    private Capa primeraCapa() {
+        return new Capa(capacidadInicial, tasaFalsosPositivos * (1 - REDUCCION_TASA));
+    }
+
+    /**
+     * Hash de 64 bits del valor (FNV-1a seguido de una mezcla final), sin
+     * reservar memoria.
+     */
+    private static long hash(CharSequence valor) {
+        long h = 0xcbf29ce484222325L;
+        for (int i = 0; i < valor.length(); i++) {
+            h ^= valor.charAt(i);
+            h *= 0x100000001b3L;
+        }
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+
+    /**
+     * Filtro de Bloom clásico de tamaño fijo. Las {@code k} posiciones de un
+     * valor se derivan de las dos mitades de su hash (doble hashing).
+     */
+    private static final class Capa {
+
+        private final long capacidad;
+        private final double tasa;
+        private final long bits;
+        private final int funciones;
+        private final AtomicLongArray palabras;
+
+        /** Valores agregados; solo se modifica con el lock del filtro. */
+        private volatile long cantidad;
+
+        Capa(long capacidad, double tasa) {
+            this.capacidad = capacidad;
+            this.tasa = tasa;
+            double ln2 = Math.log(2);
+            long m = (long) Math.ceil(-capacidad * Math.log(tasa) / (ln2 * ln2));
+            this.bits = Math.max(64, (m + 63) / 64 * 64);
+            this.funciones = Math.max(1, (int) Math.round((double) bits / capacidad * ln2));
+            this.palabras = new AtomicLongArray((int) (bits / 64));
+        }
+
+        void agregar(long h) {
+            int h1 = (int) h;
+            int h2 = (int) (h >>> 32);
+            for (int i = 0; i < funciones; i++) {
+                long bit = Integer.toUnsignedLong(h1 + i * h2) % bits;
+                int palabra = (int) (bit >>> 6);
+                long mascara = 1L << bit;
+                long actual = palabras.get(palabra);
+                while ((actual & mascara) == 0 && !palabras.compareAndSet(palabra, actual, actual | mascara)) {
+                    actual = palabras.get(palabra);
+                }
+            }
+            cantidad++;
+        }
+
+        boolean puedeContener(long h) {
+            int h1 = (int) h;
+            int h2 = (int) (h >>> 32);
+            for (int i = 0; i < funciones; i++) {
+                long bit = Integer.toUnsignedLong(h1 + i * h2) % bits;
+                if ((palabras.get((int) (bit >>> 6)) & (1L << bit)) == 0) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        /** Tasa de falsos positivos esperada con la ocupación actual: (1 - e^(-k·n/m))^k. */
+        double tasaEstimada() {
+            return Math.pow(1 - Math.exp(-(double) funciones * cantidad / bits), funciones);
+        }
+    }
+}
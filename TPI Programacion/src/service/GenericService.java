@@ -12,6 +12,7 @@
 package service;
 
 import java.util.List;
+import model.ResultadoOperacion;
 
 /**
  * Interfaz genérica que define las operaciones CRUD básicas para los servicios del sistema.
@@ -94,10 +95,11 @@ public interface GenericService<T> {
      * y el historial de datos.</p>
      *
      * @param id El ID de la entidad a eliminar
-     * @throws IllegalArgumentException Si no existe una entidad con el ID proporcionado
+     * @return {@link ResultadoOperacion#EXITO} si se eliminó, {@link ResultadoOperacion#NO_ENCONTRADO}
+     *         si no existe o {@link ResultadoOperacion#SIN_CAMBIOS} si ya estaba eliminada
      * @throws Exception Si ocurre un error durante la operación de eliminación
      */
-    void eliminar(long id) throws Exception;
+    ResultadoOperacion eliminar(long id) throws Exception;
     
     /**
      * Obtiene una entidad por su ID.
@@ -118,11 +120,26 @@ public interface GenericService<T> {
      * <p><b>Filtrado:</b> En caso de usar eliminación lógica, este método
      * debe retornar solo las entidades que no estén marcadas como eliminadas.</p>
      * 
-     * <p><b>Rendimiento:</b> Para conjuntos de datos grandes, considere
-     * implementar métodos adicionales con paginación.</p>
+     * <p><b>Rendimiento:</b> Para conjuntos de datos grandes, use
+     * {@link #getPage(long, int)}.</p>
      *
      * @return Una lista con todas las entidades activas. Lista vacía si no hay entidades
      * @throws Exception Si ocurre un error durante la operación de consulta
      */
     List<T> getAll() throws Exception;
+    
+    /**
+     * Obtiene una página de entidades activas ordenadas por ID.
+     * 
+     * <p><b>Paginación por clave:</b> Para pedir la página siguiente se pasa
+     * el ID del último elemento de la página actual. La primera página se
+     * obtiene con {@code despuesDeId = 0}.</p>
+     *
+     * @param despuesDeId Se devuelven entidades con ID mayor a este valor
+     * @param limite Cantidad máxima de entidades a devolver. Debe ser mayor a 0
+     * @return Lista con las entidades de la página. Lista vacía si no hay más
+     * @throws IllegalArgumentException Si el límite no es positivo
+     * @throws Exception Si ocurre un error durante la operación de consulta
+     */
+    List<T> getPage(long despuesDeId, int limite) throws Exception;
 }
\ No newline at end of file
@@ -0,0 +1,271 @@
+/**
+ * @authors
+ * Gaston Alberto Cejas,
+ * Hernan Cóceres,
+ * Claudio Rodriguez,
+ * Hernan E.Bula
+ */
+package service;
+
+import java.util.concurrent.locks.StampedLock;
+
+/**
+ * Índice en memoria valor de código de barras → ID del código, sin objetos
+ * por entrada.
+ *
+ * <p><b>Clave:</b> los valores EAN13, EAN8 y UPC son cadenas de dígitos, que
+ * se empaquetan en un {@code long} anteponiendo un 1 (así {@code "0123"} y
+ * {@code "123"} no colisionan). Entran valores de hasta
+ * {@link #DIGITOS_MAXIMOS} dígitos; los demás no se indexan y quien consulta
+ * debe ir a la base de datos.</p>
+ *
+ * <p><b>Estructura:</b> dos tablas hash de direccionamiento abierto con
+ * sondeo lineal sobre arreglos {@code long[]}: valor → ID y ID → valor (la
+ * segunda permite quitar o cambiar un código conociendo solo su ID). No hay
+ * boxing ni nodos, y {@link #buscar(CharSequence)} no reserva memoria.</p>
+ *
+ * <p><b>Concurrencia:</b> las consultas usan la lectura optimista de
+ * {@link StampedLock} (sin bloquear a otros lectores) y reintentan con lock
+ * de lectura si hubo una escritura en el medio. Las modificaciones toman el
+ * lock de escritura.</p>
+ */
+final class IndiceCodigos {
+
+    /** Cantidad máxima de dígitos que entran en la clave (1 + 18 dígitos < 2^63). */
+    static final int DIGITOS_MAXIMOS = 18;
+
+    private final StampedLock lock = new StampedLock();
+    private final TablaLong porValor = new TablaLong();
+    private final TablaLong porId = new TablaLong();
+
+    /**
+     * Agrega un código o reemplaza su valor.
+     *
+     * @param id    ID del código de barras.
+     * @param valor valor del código; si no es indexable el código se quita.
+     */
+    void poner(long id, CharSequence valor) {
+        long clave = empaquetar(valor);
+        long stamp = lock.writeLock();
+        try {
+            quitarSinLock(id);
+            if (clave != 0) {
+                long idAnterior = porValor.obtener(clave);
+                if (idAnterior != 0) {
+                    // El valor pertenecía a otro código (por ejemplo, uno ya borrado)
+                    porId.quitar(idAnterior);
+                }
+                porValor.poner(clave, id);
+                porId.poner(id, clave);
+            }
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Quita un código del índice. No hace nada si no estaba.
+     *
+     * @param id ID del código de barras.
+     */
+    void quitar(long id) {
+        long stamp = lock.writeLock();
+        try {
+            quitarSinLock(id);
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Busca el ID del código de barras con el valor indicado, sin reservar memoria.
+     *
+     * @param valor valor escaneado.
+     * @return ID del código, o {@code 0} si no está en el índice o el valor no es indexable.
+     */
+    long buscar(CharSequence valor) {
+        long clave = empaquetar(valor);
+        if (clave == 0) {
+            return 0;
+        }
+        long stamp = lock.tryOptimisticRead();
+        long id = porValor.obtener(clave);
+        if (!lock.validate(stamp)) {
+            stamp = lock.readLock();
+            try {
+                id = porValor.obtener(clave);
+            } finally {
+                lock.unlockRead(stamp);
+            }
+        }
+        return id;
+    }
+
+    /**
+     * @return cantidad de códigos indexados.
+     */
+    int tamanio() {
+        long stamp = lock.readLock();
+        try {
+            return porId.tamanio;
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    private void quitarSinLock(long id) {
+        long claveAnterior = porId.obtener(id);
+        if (claveAnterior != 0) {
+            porId.quitar(id);
+            if (porValor.obtener(claveAnterior) == id) {
+                porValor.quitar(claveAnterior);
+            }
+        }
+    }
+
+    /**
+     * Empaqueta un valor numérico en un {@code long}: un 1 seguido de los dígitos.
+     *
+     * @return la clave, o {@code 0} si el valor es vacío, tiene caracteres no
+     *         numéricos o más de {@link #DIGITOS_MAXIMOS} dígitos.
+     */
+    static long empaquetar(CharSequence valor) {
+        if (valor == null) {
+            return 0;
+        }
+        int largo = valor.length();
+        if (largo == 0 || largo > DIGITOS_MAXIMOS) {
+            return 0;
+        }
+        long clave = 1;
+        for (int i = 0; i < largo; i++) {
+            char c = valor.charAt(i);
+            if (c < '0' || c > '9') {
+                return 0;
+            }
+            clave = clave * 10 + (c - '0');
+        }
+        return clave;
+    }
+
+    /**
+     * Tabla hash {@code long → long} de direccionamiento abierto con sondeo
+     * lineal. La clave 0 marca una posición libre; el valor 0 significa
+     * "no encontrado". Se mantiene a lo sumo a la mitad de su capacidad y el
+     * borrado desplaza hacia atrás las entradas siguientes, sin marcas de borrado.
+     */
+    private static final class TablaLong {
+
+        private static final int CAPACIDAD_INICIAL = 1024;
+
+        private long[] claves = new long[CAPACIDAD_INICIAL];
+        private long[] valores = new long[CAPACIDAD_INICIAL];
+        private int tamanio;
+
+        /**
+         * Puede ejecutarse durante una escritura concurrente (lectura
+         * optimista): toma los arreglos una sola vez y acota el sondeo para
+         * terminar siempre; el resultado se descarta si la lectura no valida.
+         */
+        long obtener(long clave) {
+            long[] c = claves;
+            long[] v = valores;
+            if (c.length != v.length) {
+                return 0;
+            }
+            int mascara = c.length - 1;
+            int i = posicion(clave, mascara);
+            for (int sondeos = 0; sondeos < c.length; sondeos++) {
+                long actual = c[i];
+                if (actual == clave) {
+                    return v[i];
+                }
+                if (actual == 0) {
+                    return 0;
+                }
+                i = (i + 1) & mascara;
+            }
+            return 0;
+        }
+
+        void poner(long clave, long valor) {
+            if ((tamanio + 1) * 2 > claves.length) {
+                agrandar();
+            }
+            int mascara = claves.length - 1;
+            int i = posicion(clave, mascara);
+            while (claves[i] != 0 && claves[i] != clave) {
+                i = (i + 1) & mascara;
+            }
+            if (claves[i] == 0) {
+                tamanio++;
+            }
+            claves[i] = clave;
+            valores[i] = valor;
+        }
+
+        void quitar(long clave) {
+            int mascara = claves.length - 1;
+            int i = posicion(clave, mascara);
+            while (claves[i] != clave) {
+                if (claves[i] == 0) {
+                    return;
+                }
+                i = (i + 1) & mascara;
+            }
+            claves[i] = 0;
+            valores[i] = 0;
+            tamanio--;
+
+            // Desplaza hacia el hueco las entradas que quedarían inalcanzables
+            int j = i;
+            while (true) {
+                j = (j + 1) & mascara;
+                if (claves[j] == 0) {
+                    return;
+                }
+                int ideal = posicion(claves[j], mascara);
+                if (!entre(i, ideal, j)) {
+                    claves[i] = claves[j];
+                    valores[i] = valores[j];
+                    claves[j] = 0;
+                    valores[j] = 0;
+                    i = j;
+                }
+            }
+        }
+
+        private void agrandar() {
+            long[] clavesAnteriores = claves;
+            long[] valoresAnteriores = valores;
+            long[] nuevasClaves = new long[clavesAnteriores.length * 2];
+            long[] nuevosValores = new long[nuevasClaves.length];
+            int mascara = nuevasClaves.length - 1;
+            for (int k = 0; k < clavesAnteriores.length; k++) {
+                long clave = clavesAnteriores[k];
+                if (clave != 0) {
+                    int i = posicion(clave, mascara);
+                    while (nuevasClaves[i] != 0) {
+                        i = (i + 1) & mascara;
+                    }
+                    nuevasClaves[i] = clave;
+                    nuevosValores[i] = valoresAnteriores[k];
+                }
+            }
+            valores = nuevosValores;
+            claves = nuevasClaves;
+        }
+
+        /** Indica si {@code ideal} está en el rango circular {@code (desde, hasta]}. */
+        private static boolean entre(int desde, int ideal, int hasta) {
+            return (desde <= hasta)
+                    ? (desde < ideal && ideal <= hasta)
+                    : (desde < ideal || ideal <= hasta);
+        }
+
+        private static int posicion(long clave, int mascara) {
+            long h = clave * 0x9E3779B97F4A7C15L;
+            return (int) (h ^ (h >>> 32)) & mascara;
+        }
+    }
+}
@@ -0,0 +1,303 @@
+/**
+ * @authors
+ * Gaston Alberto Cejas,
+ * Hernan Cóceres,
+ * Claudio Rodriguez,
+ * Hernan E.Bula
+ */
+package service;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Índice invertido de trigramas en memoria para búsqueda de texto por ID.
+ *
+ * <p>Cada documento (por ejemplo nombre + marca de un producto) se normaliza
+ * (minúsculas, sin acentos, espacios simples) y se descompone en trigramas:
+ * secuencias de 3 caracteres consecutivos. Para cada trigrama se guarda el
+ * conjunto de IDs de documentos que lo contienen.</p>
+ *
+ * <p><b>Búsquedas:</b>
+ * <ul>
+ *   <li>{@link #buscarSubcadena(String, int)}: intersecta las listas de los
+ *       trigramas de la consulta y confirma la subcadena sobre el texto
+ *       normalizado de cada candidato</li>
+ *   <li>{@link #buscarAproximado(String, int)}: toma como candidatos los
+ *       documentos que comparten algún trigrama con la consulta y los ordena
+ *       por distancia de edición palabra a palabra, lo que tolera errores de
+ *       tipeo (letras de más, de menos, cambiadas o transpuestas)</li>
+ * </ul>
+ * </p>
+ *
+ * <p>Es seguro para uso concurrente: las búsquedas toman un lock de lectura
+ * y las modificaciones uno de escritura.</p>
+ */
+final class IndiceTrigramas {
+
+    /** Similitud mínima (0 a 1) para considerar un resultado aproximado. */
+    private static final double SIMILITUD_MINIMA = 0.6;
+
+    private final Map<String, Set<Long>> indice = new HashMap<>();
+    private final Map<Long, String> textos = new HashMap<>();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    /**
+     * Agrega o reemplaza el texto de un documento.
+     *
+     * @param id    identificador del documento.
+     * @param texto texto a indexar; si es {@code null} o vacío el documento se quita.
+     */
+    void poner(long id, String texto) {
+        String normalizado = normalizar(texto);
+        lock.writeLock().lock();
+        try {
+            quitarSinLock(id);
+            if (normalizado.isEmpty()) {
+                return;
+            }
+            textos.put(id, normalizado);
+            for (String trigrama : trigramas(" " + normalizado + " ")) {
+                indice.computeIfAbsent(trigrama, k -> new HashSet<>()).add(id);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Quita un documento del índice. No hace nada si no estaba.
+     *
+     * @param id identificador del documento.
+     */
+    void quitar(long id) {
+        lock.writeLock().lock();
+        try {
+            quitarSinLock(id);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Vacía el índice.
+     */
+    void limpiar() {
+        lock.writeLock().lock();
+        try {
+            indice.clear();
+            textos.clear();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * @return cantidad de documentos indexados.
+     */
+    int tamanio() {
+        lock.readLock().lock();
+        try {
+            return textos.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Busca los documentos cuyo texto normalizado contiene la consulta.
+     *
+     * @param consulta texto a buscar; se normaliza igual que los documentos.
+     * @param limite   cantidad máxima de IDs a devolver.
+     * @return IDs que contienen la consulta, ordenados de menor a mayor.
+     */
+    List<Long> buscarSubcadena(String consulta, int limite) {
+        String normalizada = normalizar(consulta);
+        if (normalizada.isEmpty() || limite <= 0) {
+            return Collections.emptyList();
+        }
+
+        lock.readLock().lock();
+        try {
+            List<Long> resultado = new ArrayList<>();
+            if (normalizada.length() < 3) {
+                // Sin trigramas para filtrar: se revisan todos los textos
+                for (Map.Entry<Long, String> e : textos.entrySet()) {
+                    if (e.getValue().contains(normalizada)) {
+                        resultado.add(e.getKey());
+                    }
+                }
+            } else {
+                for (Long id : candidatos(trigramas(normalizada))) {
+                    if (textos.get(id).contains(normalizada)) {
+                        resultado.add(id);
+                    }
+                }
+            }
+            Collections.sort(resultado);
+            return resultado.size() > limite ? new ArrayList<>(resultado.subList(0, limite)) : resultado;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Busca documentos parecidos a la consulta aunque tenga errores de tipeo.
+     *
+     * @param consulta texto a buscar.
+     * @param limite   cantidad máxima de IDs a devolver.
+     * @return IDs ordenados del más al menos parecido.
+     */
+    List<Long> buscarAproximado(String consulta, int limite) {
+        String normalizada = normalizar(consulta);
+        if (normalizada.isEmpty() || limite <= 0) {
+            return Collections.emptyList();
+        }
+        String[] palabrasConsulta = normalizada.split(" ");
+
+        lock.readLock().lock();
+        try {
+            Set<Long> candidatos = new HashSet<>();
+            for (String trigrama : trigramas(" " + normalizada + " ")) {
+                Set<Long> ids = indice.get(trigrama);
+                if (ids != null) {
+                    candidatos.addAll(ids);
+                }
+            }
+
+            List<Map.Entry<Long, Double>> puntajes = new ArrayList<>();
+            for (Long id : candidatos) {
+                double similitud = similitud(palabrasConsulta, textos.get(id).split(" "));
+                if (similitud >= SIMILITUD_MINIMA) {
+                    puntajes.add(Map.entry(id, similitud));
+                }
+            }
+            puntajes.sort((a, b) -> {
+                int porPuntaje = Double.compare(b.getValue(), a.getValue());
+                return porPuntaje != 0 ? porPuntaje : Long.compare(a.getKey(), b.getKey());
+            });
+
+            List<Long> resultado = new ArrayList<>(Math.min(limite, puntajes.size()));
+            for (int i = 0; i < puntajes.size() && i < limite; i++) {
+                resultado.add(puntajes.get(i).getKey());
+            }
+            return resultado;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Promedio, para cada palabra de la consulta, de la similitud con la
+     * palabra más parecida del documento. Una palabra de la consulta que es
+     * prefijo de una del documento cuenta como coincidencia exacta.
+     */
+    private static double similitud(String[] palabrasConsulta, String[] palabrasDocumento) {
+        double total = 0;
+        for (String consulta : palabrasConsulta) {
+            double mejor = 0;
+            for (String palabra : palabrasDocumento) {
+                if (palabra.startsWith(consulta)) {
+                    mejor = 1;
+                    break;
+                }
+                // Se compara contra el comienzo de la palabra del largo de la consulta (+1)
+                String recorte = palabra.length() > consulta.length() + 1
+                        ? palabra.substring(0, consulta.length() + 1)
+                        : palabra;
+                int distancia = distanciaEdicion(consulta, recorte);
+                mejor = Math.max(mejor, 1.0 - (double) distancia / Math.max(consulta.length(), recorte.length()));
+            }
+            total += mejor;
+        }
+        return total / palabrasConsulta.length;
+    }
+
+    /**
+     * Distancia de Damerau-Levenshtein restringida (inserción, borrado,
+     * sustitución y transposición de letras vecinas).
+     */
+    private static int distanciaEdicion(String a, String b) {
+        int[][] d = new int[a.length() + 1][b.length() + 1];
+        for (int i = 0; i <= a.length(); i++) {
+            d[i][0] = i;
+        }
+        for (int j = 0; j <= b.length(); j++) {
+            d[0][j] = j;
+        }
+        for (int i = 1; i <= a.length(); i++) {
+            for (int j = 1; j <= b.length(); j++) {
+                int costo = (a.charAt(i - 1) == b.charAt(j - 1)) ? 0 : 1;
+                d[i][j] = Math.min(Math.min(d[i - 1][j] + 1, d[i][j - 1] + 1), d[i - 1][j - 1] + costo);
+                if (i > 1 && j > 1 && a.charAt(i - 1) == b.charAt(j - 2) && a.charAt(i - 2) == b.charAt(j - 1)) {
+                    d[i][j] = Math.min(d[i][j], d[i - 2][j - 2] + 1);
+                }
+            }
+        }
+        return d[a.length()][b.length()];
+    }
+
+    /**
+     * Intersecta las listas de los trigramas empezando por la más corta.
+     */
+    private Set<Long> candidatos(Set<String> trigramasConsulta) {
+        List<Set<Long>> listas = new ArrayList<>(trigramasConsulta.size());
+        for (String trigrama : trigramasConsulta) {
+            Set<Long> ids = indice.get(trigrama);
+            if (ids == null) {
+                return Collections.emptySet();
+            }
+            listas.add(ids);
+        }
+        listas.sort((a, b) -> Integer.compare(a.size(), b.size()));
+
+        Set<Long> resultado = new HashSet<>(listas.get(0));
+        for (int i = 1; i < listas.size() && !resultado.isEmpty(); i++) {
+            resultado.retainAll(listas.get(i));
+        }
+        return resultado;
+    }
+
+    private void quitarSinLock(long id) {
+        String anterior = textos.remove(id);
+        if (anterior == null) {
+            return;
+        }
+        for (String trigrama : trigramas(" " + anterior + " ")) {
+            Set<Long> ids = indice.get(trigrama);
+            if (ids != null) {
+                ids.remove(id);
+                if (ids.isEmpty()) {
+                    indice.remove(trigrama);
+                }
+            }
+        }
+    }
+
+    private static Set<String> trigramas(String texto) {
+        Set<String> resultado = new HashSet<>();
+        for (int i = 0; i + 3 <= texto.length(); i++) {
+            resultado.add(texto.substring(i, i + 3));
+        }
+        return resultado;
+    }
+
+    /**
+     * Pasa a minúsculas, quita acentos y colapsa los espacios.
+     */
+    static String normalizar(String texto) {
+        if (texto == null) {
+            return "";
+        }
+        String sinAcentos = Normalizer.normalize(texto, Normalizer.Form.NFD).replaceAll("\\p{M}+", "");
+        return sinAcentos.toLowerCase().trim().replaceAll("\\s+", " ");
+    }
+}
@@ -11,13 +11,25 @@
  */
 package service;
 
+import DAO.ConflictoVersionException;
 import DAO.ProductoDAO;
 import config.DatabaseConnection;
 import model.Producto;
 import model.CodigoBarras;
+import model.CategoriaProducto;
+import model.ResultadoOperacion;
 import java.sql.Connection;
 import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 /**
  * Servicio para gestionar las operaciones de negocio de la entidad Producto.
@@ -52,8 +64,59 @@ import java.util.List;
  */
 public class ProductoService implements GenericService<Producto> {
 
+    /** Capacidad de la caché de productos por ID */
+    private static final int CACHE_CAPACIDAD = 1000;
+
+    /** Tiempo de vida de cada producto en la caché, en segundos */
+    private static final long CACHE_TTL_SEGUNDOS = 300;
+
+    /**
+     * Caché de {@link #getById(long)}. Es compartida por todas las instancias
+     * del servicio para que las escrituras de cualquiera la invaliden.
+     */
+    private static final CacheLectura<Producto> CACHE_PRODUCTOS = new CacheLectura<>(
+            "productos", CACHE_CAPACIDAD, CACHE_TTL_SEGUNDOS, TimeUnit.SECONDS, Producto::copiar);
+
+    /** Cantidad máxima de nombres inexistentes recordados */
+    private static final int NOMBRES_INEXISTENTES_CAPACIDAD = 500;
+
+    /** Tiempo durante el que se recuerda un nombre inexistente, en segundos */
+    private static final long NOMBRES_INEXISTENTES_TTL_SEGUNDOS = 30;
+
+    /**
+     * Caché negativa de {@link #getByNombre(String)}. Se vacía completa ante
+     * cualquier escritura que pueda hacer aparecer un nombre: la comparación
+     * de la BD no distingue mayúsculas (según la collation tampoco acentos),
+     * así que invalidar solo el nombre escrito podría dejar vivas variantes
+     * que ahora sí coinciden.
+     */
+    private static final CacheNegativa NOMBRES_INEXISTENTES = new CacheNegativa(
+            "nombres de productos", NOMBRES_INEXISTENTES_CAPACIDAD, NOMBRES_INEXISTENTES_TTL_SEGUNDOS, TimeUnit.SECONDS);
+
+    /** Edad máxima del catálogo en memoria antes de recargarlo, en segundos */
+    private static final long CATALOGO_EDAD_MAXIMA_SEGUNDOS = 60;
+
+    /**
+     * Catálogo en memoria con todos los productos activos. Mientras está
+     * cargado, las lecturas por ID, categoría, página y código de barras se
+     * resuelven sin acceder a la BD. Compartido por todas las instancias.
+     * Los cambios de otros procesos se ven, como mucho, al vencer su edad
+     * máxima.
+     */
+    private static final CatalogoProductos CATALOGO = new CatalogoProductos(
+            CATALOGO_EDAD_MAXIMA_SEGUNDOS, TimeUnit.SECONDS);
+
     private final ProductoDAO productoDAO = new ProductoDAO();
 
+    /**
+     * Índice de trigramas sobre nombre y marca para búsqueda mientras se
+     * escribe. Compartido por todas las instancias, como la caché, para que
+     * las escrituras de cualquiera lo mantengan actualizado.
+     */
+    private static final IndiceTrigramas INDICE_NOMBRES = new IndiceTrigramas();
+
+    private static volatile boolean indiceCargado;
+
     /**
      * Inserta un nuevo producto en el sistema con transacción atómica.
      * 
@@ -94,6 +157,99 @@ public class ProductoService implements GenericService<Producto> {
             productoDAO.insertar(entidad, conn);
             
             conn.commit();
+            CACHE_PRODUCTOS.invalidar(entidad.getId());
+            NOMBRES_INEXISTENTES.invalidarTodo();
+            actualizarCatalogo(List.of(entidad.getId()));
+            indexar(entidad);
+        } catch (Exception e) {
+            if (conn != null) {
+                try {
+                    conn.rollback();
+                } catch (SQLException rollbackEx) {
+                    throw new Exception("Error al hacer rollback: " + rollbackEx.getMessage(), e);
+                }
+            }
+            throw e;
+        } finally {
+            if (conn != null) {
+                try {
+                    conn.setAutoCommit(true);
+                    conn.close();
+                } catch (SQLException closeEx) {
+                    System.err.println("Error al cerrar conexión: " + closeEx.getMessage());
+                }
+            }
+        }
+    }
+
+    /**
+     * Inserta varios productos en una única transacción usando lotes JDBC.
+     *
+     * @param productos Productos a insertar. No puede ser {@code null}
+     * @throws IllegalArgumentException Si algún producto no pasa las validaciones
+     * @throws Exception Si ocurre un error durante la transacción
+     * @see #insertarLote(List, int)
+     */
+    public void insertarLote(List<Producto> productos) throws Exception {
+        insertarLote(productos, ProductoDAO.TAMANIO_LOTE_DEFECTO);
+    }
+
+    /**
+     * Inserta varios productos en una única transacción usando lotes JDBC.
+     * 
+     * <p><b>Flujo transaccional:</b>
+     * <ol>
+     *   <li>Valida todos los productos antes de abrir la conexión</li>
+     *   <li>Inicia transacción (autoCommit = false)</li>
+     *   <li>Inserta los productos en bloques de {@code tamanioLote} filas</li>
+     *   <li>Confirma la transacción (commit)</li>
+     * </ol>
+     * Si falla cualquier bloque se revierte la carga completa. Al finalizar,
+     * cada producto tiene asignado el {@code id} generado.</p>
+     *
+     * @param productos Productos a insertar. No puede ser {@code null}
+     * @param tamanioLote Cantidad de filas por lote JDBC. Debe ser mayor a 0
+     * @throws IllegalArgumentException Si la lista es nula, algún producto no
+     *         pasa las validaciones o el tamaño de lote no es válido
+     * @throws Exception Si ocurre un error durante la transacción
+     * @see #validarProducto(Producto)
+     */
+    public void insertarLote(List<Producto> productos, int tamanioLote) throws Exception {
+        if (productos == null) {
+            throw new IllegalArgumentException("La lista de productos no puede ser null.");
+        }
+        if (tamanioLote <= 0) {
+            throw new IllegalArgumentException("El tamaño de lote debe ser mayor a 0.");
+        }
+        for (int i = 0; i < productos.size(); i++) {
+            Producto producto = productos.get(i);
+            if (producto == null) {
+                throw new IllegalArgumentException("El producto en la posición " + i + " es null.");
+            }
+            try {
+                validarProducto(producto);
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Producto en la posición " + i + ": " + e.getMessage(), e);
+            }
+        }
+        if (productos.isEmpty()) {
+            return;
+        }
+        
+        Connection conn = null;
+        try {
+            conn = DatabaseConnection.getConnection();
+            conn.setAutoCommit(false);
+            
+            productoDAO.insertarLote(productos, tamanioLote, conn);
+            
+            conn.commit();
+            NOMBRES_INEXISTENTES.invalidarTodo();
+            for (Producto producto : productos) {
+                CACHE_PRODUCTOS.invalidar(producto.getId());
+                indexar(producto);
+            }
+            actualizarCatalogo(productos.stream().map(Producto::getId).toList());
         } catch (Exception e) {
             if (conn != null) {
                 try {
@@ -118,11 +274,14 @@ public class ProductoService implements GenericService<Producto> {
     /**
      * Actualiza un producto existente en el sistema con transacción atómica.
      * 
-     * <p><b>Nota:</b> Este método actualiza todos los campos del producto.
-     * Para actualizaciones parciales, considere implementar métodos específicos.</p>
+     * <p><b>Nota:</b> Solo se escriben los campos modificados desde que el
+     * producto se leyó. Si otro usuario modificó el producto mientras tanto,
+     * no se sobrescriben sus cambios: se lanza {@link ConflictoVersionException}
+     * y se hace rollback. Ver {@link #actualizarConReintentos(long, Consumer, int)}.</p>
      *
      * @param entidad El producto con los datos actualizados. No puede ser {@code null}
      * @throws IllegalArgumentException Si las validaciones de negocio fallan
+     * @throws ConflictoVersionException Si el producto cambió desde que se leyó
      * @throws Exception Si ocurre un error durante la transacción
      * @see #validarProducto(Producto)
      */
@@ -135,9 +294,81 @@ public class ProductoService implements GenericService<Producto> {
             conn = DatabaseConnection.getConnection();
             conn.setAutoCommit(false);
             
-            productoDAO.actualizar(entidad, conn);
+            boolean escrito = productoDAO.actualizar(entidad, conn);
+            
+            conn.commit();
+            if (escrito) {
+                entidad.setVersion(entidad.getVersion() + 1);
+                entidad.iniciarSeguimientoCambios();
+            }
+            CACHE_PRODUCTOS.invalidar(entidad.getId());
+            NOMBRES_INEXISTENTES.invalidarTodo();
+            actualizarCatalogo(List.of(entidad.getId()));
+            indexar(entidad);
+        } catch (Exception e) {
+            if (conn != null) {
+                try {
+                    conn.rollback();
+                } catch (SQLException rollbackEx) {
+                    throw new Exception("Error al hacer rollback: " + rollbackEx.getMessage(), e);
+                }
+            }
+            resincronizar(entidad.getId(), e);
+            throw e;
+        } finally {
+            if (conn != null) {
+                try {
+                    conn.setAutoCommit(true);
+                    conn.close();
+                } catch (SQLException closeEx) {
+                    System.err.println("Error al cerrar conexión: " + closeEx.getMessage());
+                }
+            }
+        }
+    }
+    
+    /**
+     * Asigna un código de barras existente a un producto a partir de sus IDs.
+     *
+     * <p><b>Una sola consulta:</b> a diferencia de
+     * {@link #asignarCodigoDeBarras(Producto)}, no requiere leer antes el
+     * producto ni el código: un UPDATE condicional verifica que ambos estén
+     * activos y el resultado indica qué ocurrió.</p>
+     *
+     * @param idProducto ID del producto
+     * @param idCodigo ID del código de barras a asignar
+     * @return {@link ResultadoOperacion#EXITO}, {@link ResultadoOperacion#NO_ENCONTRADO}
+     *         si el producto no existe o {@link ResultadoOperacion#SIN_CAMBIOS} si ya tenía ese código
+     * @throws IllegalArgumentException Si los IDs no son positivos, el código no existe
+     *         o ya está asignado a otro producto
+     * @throws Exception Si ocurre un error durante la transacción
+     */
+    public ResultadoOperacion asignarCodigoDeBarras(long idProducto, long idCodigo) throws Exception {
+        if (idProducto <= 0 || idCodigo <= 0) {
+            throw new IllegalArgumentException("Los IDs de producto y código de barras deben ser mayores a 0");
+        }
+        
+        Connection conn = null;
+        try {
+            conn = DatabaseConnection.getConnection();
+            conn.setAutoCommit(false);
+            
+            ResultadoOperacion resultado;
+            try {
+                resultado = productoDAO.asignarCodigoDeBarras(idProducto, idCodigo, conn);
+            } catch (SQLException e) {
+                if (ProductoDAO.esCodigoYaAsignado(e)) {
+                    throw new IllegalArgumentException("El código de barras con ID " + idCodigo + " ya está asignado a otro producto.", e);
+                }
+                throw e;
+            }
             
             conn.commit();
+            if (resultado == ResultadoOperacion.EXITO) {
+                CACHE_PRODUCTOS.invalidar(idProducto);
+                actualizarCatalogo(List.of(idProducto));
+            }
+            return resultado;
         } catch (Exception e) {
             if (conn != null) {
                 try {
@@ -146,6 +377,7 @@ public class ProductoService implements GenericService<Producto> {
                     throw new Exception("Error al hacer rollback: " + rollbackEx.getMessage(), e);
                 }
             }
+            resincronizar(idProducto, e);
             throw e;
         } finally {
             if (conn != null) {
@@ -158,6 +390,51 @@ public class ProductoService implements GenericService<Producto> {
             }
         }
     }
+
+    /**
+     * Lee un producto, le aplica cambios y lo actualiza, reintentando si hay
+     * conflicto de versión con otro usuario.
+     *
+     * <p>En cada intento se vuelve a leer el producto, de modo que los cambios
+     * se aplican sobre la última versión guardada.
+     * <pre>
+     * {@code
+     * productoService.actualizarConReintentos(id, p -> p.setPrecio(nuevoPrecio), 3);
+     * }
+     * </pre>
+     * </p>
+     *
+     * @param id ID del producto a actualizar
+     * @param cambios Cambios a aplicar sobre el producto leído
+     * @param intentos Cantidad máxima de intentos. Debe ser mayor a 0
+     * @return El producto actualizado
+     * @throws IllegalArgumentException Si el producto no existe o los parámetros son inválidos
+     * @throws ConflictoVersionException Si se agotaron los intentos
+     * @throws Exception Si ocurre un error durante la transacción
+     */
+    public Producto actualizarConReintentos(long id, Consumer<Producto> cambios, int intentos) throws Exception {
+        if (cambios == null) {
+            throw new IllegalArgumentException("Los cambios no pueden ser null");
+        }
+        if (intentos <= 0) {
+            throw new IllegalArgumentException("La cantidad de intentos debe ser mayor a 0");
+        }
+        for (int intento = 1; ; intento++) {
+            Producto producto = productoDAO.getById(id);
+            if (producto == null) {
+                throw new IllegalArgumentException("No existe un producto activo con ID " + id);
+            }
+            cambios.accept(producto);
+            try {
+                actualizar(producto);
+                return producto;
+            } catch (ConflictoVersionException e) {
+                if (intento >= intentos) {
+                    throw e;
+                }
+            }
+        }
+    }
     
     /**
      * Asigna un código de barras a un producto existente.
@@ -167,6 +444,7 @@ public class ProductoService implements GenericService<Producto> {
      *
      * @param entidad El producto al que se le asignará el código de barras
      * @throws IllegalArgumentException Si las validaciones de negocio fallan
+     * @throws ConflictoVersionException Si el producto cambió desde que se leyó
      * @throws Exception Si ocurre un error durante la transacción
      */
     public void asignarCodigoDeBarras(Producto entidad) throws Exception {
@@ -180,6 +458,9 @@ public class ProductoService implements GenericService<Producto> {
             productoDAO.asignarCodigoDeBarras(entidad, conn);
             
             conn.commit();
+            entidad.setVersion(entidad.getVersion() + 1);
+            CACHE_PRODUCTOS.invalidar(entidad.getId());
+            actualizarCatalogo(List.of(entidad.getId()));
         } catch (Exception e) {
             if (conn != null) {
                 try {
@@ -188,6 +469,7 @@ public class ProductoService implements GenericService<Producto> {
                     throw new Exception("Error al hacer rollback: " + rollbackEx.getMessage(), e);
                 }
             }
+            resincronizar(entidad.getId(), e);
             throw e;
         } finally {
             if (conn != null) {
@@ -243,26 +525,46 @@ public class ProductoService implements GenericService<Producto> {
     }
 
     /**
-     * Realiza una eliminación lógica (soft delete) de un producto.
-     * 
-     * <p><b>Ventaja de eliminación lógica:</b> Permite preservar la integridad
-     * referencial y la posibilidad de recuperar el producto en el futuro
-     * mediante el método {@link #recuperar(long)}.</p>
+     * Suma (o descuenta, si es negativo) una cantidad al stock de un producto.
      *
-     * @param id ID del producto a eliminar
+     * <p><b>Concurrencia:</b> el ajuste es una única sentencia
+     * {@code UPDATE ... SET stock = stock + ?} condicionada a que el stock no
+     * quede negativo. No se lee ni se reescribe el producto completo, por lo
+     * que ventas simultáneas del mismo producto no pierden actualizaciones.</p>
+     *
+     * <p><b>Uso típico:</b>
+     * <pre>
+     * {@code
+     * if (!productoService.ajustarStock(id, -cantidad)) {
+     *     System.out.println("Stock insuficiente");
+     * }
+     * }
+     * </pre>
+     * </p>
+     *
+     * @param id ID del producto
+     * @param delta Cantidad a sumar al stock (negativa para descontar)
+     * @return {@code true} si se ajustó; {@code false} si el producto no existe,
+     *         está eliminado o no tiene stock suficiente
+     * @throws IllegalArgumentException Si el ID no es positivo o el ajuste es 0
      * @throws Exception Si ocurre un error durante la transacción
-     * @see #recuperar(long)
      */
-    @Override
-    public void eliminar(long id) throws Exception {
+    public boolean ajustarStock(long id, int delta) throws Exception {
+        validarAjusteStock(id, delta);
+        
         Connection conn = null;
         try {
             conn = DatabaseConnection.getConnection();
             conn.setAutoCommit(false);
             
-            productoDAO.eliminar(id, conn);
+            boolean ajustado = productoDAO.ajustarStock(id, delta, conn);
             
             conn.commit();
+            if (ajustado) {
+                CACHE_PRODUCTOS.invalidar(id);
+                actualizarCatalogo(List.of(id));
+            }
+            return ajustado;
         } catch (Exception e) {
             if (conn != null) {
                 try {
@@ -271,6 +573,7 @@ public class ProductoService implements GenericService<Producto> {
                     throw new Exception("Error al hacer rollback: " + rollbackEx.getMessage(), e);
                 }
             }
+            resincronizar(id, e);
             throw e;
         } finally {
             if (conn != null) {
@@ -283,32 +586,56 @@ public class ProductoService implements GenericService<Producto> {
             }
         }
     }
-    
+
     /**
-     * Recupera un producto previamente eliminado (soft delete).
-     * 
-     * <p><b>Validación previa:</b> Verifica que el producto no esté activo
-     * antes de intentar la recuperación para evitar inconsistencias.</p>
+     * Ajusta el stock de todas las líneas de un pedido en una sola transacción.
      *
-     * @param id ID del producto a recuperar
-     * @throws IllegalArgumentException Si el producto no está eliminado
+     * <p><b>Todo o nada:</b> los ajustes se envían en un lote JDBC. Si algún
+     * producto no existe, está eliminado o no tiene stock suficiente, se hace
+     * <em>rollback</em> de todo el pedido y se devuelven los IDs rechazados.</p>
+     *
+     * <p>Las líneas se aplican ordenadas por ID para que dos pedidos
+     * simultáneos bloqueen las filas en el mismo orden y no se produzcan
+     * interbloqueos.</p>
+     *
+     * @param ajustes Mapa ID de producto → cantidad a sumar (negativa para descontar)
+     * @return Lista vacía si se aplicaron todos los ajustes; si no, los IDs rechazados
+     * @throws IllegalArgumentException Si el mapa es null o alguna línea es inválida
      * @throws Exception Si ocurre un error durante la transacción
-     * @see #eliminar(long)
      */
-    public void recuperar(long id) throws Exception {
-        Producto productoActivo = productoDAO.getById(id);
-        if (productoActivo != null) {
-            throw new IllegalArgumentException("El producto con ID " + id + " no está borrado.");
+    public List<Long> ajustarStockLote(Map<Long, Integer> ajustes) throws Exception {
+        if (ajustes == null) {
+            throw new IllegalArgumentException("El mapa de ajustes no puede ser null");
         }
-
+        Map<Long, Integer> ordenados = new TreeMap<>();
+        for (Map.Entry<Long, Integer> ajuste : ajustes.entrySet()) {
+            if (ajuste.getKey() == null || ajuste.getValue() == null) {
+                throw new IllegalArgumentException("Los ajustes de stock no pueden tener ID o cantidad null");
+            }
+            validarAjusteStock(ajuste.getKey(), ajuste.getValue());
+            ordenados.put(ajuste.getKey(), ajuste.getValue());
+        }
+        if (ordenados.isEmpty()) {
+            return new ArrayList<>();
+        }
+        
         Connection conn = null;
         try {
             conn = DatabaseConnection.getConnection();
             conn.setAutoCommit(false);
-
-            productoDAO.recuperar(id, conn);
-
-            conn.commit();
+            
+            List<Long> rechazados = productoDAO.ajustarStockLote(ordenados, conn);
+            
+            if (rechazados.isEmpty()) {
+                conn.commit();
+                for (Long id : ordenados.keySet()) {
+                    CACHE_PRODUCTOS.invalidar(id);
+                }
+                actualizarCatalogo(ordenados.keySet());
+            } else {
+                conn.rollback();
+            }
+            return rechazados;
         } catch (Exception e) {
             if (conn != null) {
                 try {
@@ -329,108 +656,55 @@ public class ProductoService implements GenericService<Producto> {
             }
         }
     }
-    
-    /**
-     * Obtiene un producto por su ID.
-     * 
-     * <p><b>Nota:</b> Este método solo retorna productos activos (no eliminados).</p>
-     *
-     * @param id ID del producto a buscar
-     * @return El producto encontrado o {@code null} si no existe o está eliminado
-     * @throws Exception Si ocurre un error en el acceso a datos
-     */
-    @Override
-    public Producto getById(long id) throws Exception {
-        return productoDAO.getById(id);
-    }
-
-    /**
-     * Obtiene todos los productos activos del sistema.
-     * 
-     * @return Lista de productos activos. Lista vacía si no hay productos
-     * @throws Exception Si ocurre un error en el acceso a datos
-     */
-    @Override
-    public List<Producto> getAll() throws Exception {
-        return productoDAO.getAll();
-    }
 
     /**
-     * Busca un producto por su nombre exacto.
-     * 
-     * <p><b>Búsqueda exacta:</b> Este método realiza una búsqueda por coincidencia
-     * exacta del nombre. Para búsquedas parciales, considere implementar
-     * un método adicional.</p>
+     * Valida un ajuste de stock antes de enviarlo a la base de datos.
      *
-     * @param nombre Nombre exacto del producto a buscar
-     * @return El producto encontrado o {@code null} si no existe
-     * @throws Exception Si ocurre un error en el acceso a datos
+     * @param id ID del producto
+     * @param delta Cantidad a sumar al stock
+     * @throws IllegalArgumentException Si el ID no es positivo o el ajuste es 0
      */
-    public Producto getByNombre(String nombre) throws Exception {
-        return productoDAO.getByNombre(nombre);
+    private void validarAjusteStock(long id, int delta) {
+        if (id <= 0) {
+            throw new IllegalArgumentException("El ID debe ser mayor a 0");
+        }
+        if (delta == 0) {
+            throw new IllegalArgumentException("El ajuste de stock no puede ser 0 (producto ID " + id + ")");
+        }
     }
-    
+
     /**
-     * Inserta un producto junto con su código de barras en una sola transacción atómica.
-     * 
-     * <p><b>Transacción compuesta:</b> Este método representa una operación
-     * transaccional compleja que involucra múltiples entidades. Si falla
-     * cualquier paso, se realiza rollback completo.</p>
+     * Realiza una eliminación lógica (soft delete) de un producto.
      * 
-     * <p><b>Flujo de la operación:</b>
-     * <ol>
-     *   <li>Valida el producto y el código de barras</li>
-     *   <li>Verifica unicidad del valor del código de barras</li>
-     *   <li>Inserta el código de barras</li>
-     *   <li>Asocia el código al producto</li>
-     *   <li>Inserta el producto</li>
-     *   <li>Confirma la transacción (commit)</li>
-     * </ol>
-     * </p>
+     * <p><b>Ventaja de eliminación lógica:</b> Permite preservar la integridad
+     * referencial y la posibilidad de recuperar el producto en el futuro
+     * mediante el método {@link #recuperar(long)}.</p>
      * 
-     * <p><b>Por qué es transaccional:</b> Garantiza que ambas entidades se
-     * persistan consistentemente, manteniendo la integridad de la relación 1→1.</p>
+     * <p><b>Una sola consulta:</b> no hace falta buscar el producto antes; el
+     * resultado indica si no existía o si ya estaba eliminado.</p>
      *
-     * @param producto Producto a insertar. No puede ser {@code null}
-     * @param codigo Código de barras a insertar y asociar al producto. No puede ser {@code null}
-     * @throws IllegalArgumentException Si las validaciones fallan o el código de barras ya existe
+     * @param id ID del producto a eliminar
+     * @return {@link ResultadoOperacion#EXITO}, {@link ResultadoOperacion#NO_ENCONTRADO}
+     *         o {@link ResultadoOperacion#SIN_CAMBIOS} si ya estaba eliminado
      * @throws Exception Si ocurre un error durante la transacción
+     * @see #recuperar(long)
      */
-    public void insertarConCodigoBarras(Producto producto, CodigoBarras codigo) throws Exception {
-        validarProducto(producto);
-        
-        if (codigo == null) {
-            throw new IllegalArgumentException("El código de barras no puede ser null.");
-        }
-        if (codigo.getTipo() == null) {
-            throw new IllegalArgumentException("El tipo de código de barras no puede ser null.");
-        }
-        if (codigo.getValor() == null || codigo.getValor().trim().isEmpty()) {
-            throw new IllegalArgumentException("El valor del código de barras no puede estar vacío.");
-        }
-        if (codigo.getFechaAsignacion() == null) {
-            throw new IllegalArgumentException("La fecha de asignación no puede ser null.");
-        }
-        
+    @Override
+    public ResultadoOperacion eliminar(long id) throws Exception {
         Connection conn = null;
         try {
             conn = DatabaseConnection.getConnection();
             conn.setAutoCommit(false);
             
-            DAO.CodigoBarrasDAO codigoBarrasDAO = new DAO.CodigoBarrasDAO();
-            
-            CodigoBarras existente = codigoBarrasDAO.getByValor(codigo.getValor(), conn);
-            if (existente != null && !existente.isEliminado()) {
-                throw new IllegalArgumentException("Ya existe un código de barras con el valor: " + codigo.getValor());
-            }
-            
-            codigoBarrasDAO.insertar(codigo, conn);
-            
-            producto.setCodigoBarras(codigo);
-            
-            productoDAO.insertar(producto, conn);
+            ResultadoOperacion resultado = productoDAO.eliminar(id, conn);
             
             conn.commit();
+            if (resultado == ResultadoOperacion.EXITO) {
+                CACHE_PRODUCTOS.invalidar(id);
+                INDICE_NOMBRES.quitar(id);
+                actualizarCatalogo(List.of(id));
+            }
+            return resultado;
         } catch (Exception e) {
             if (conn != null) {
                 try {
@@ -439,6 +713,7 @@ public class ProductoService implements GenericService<Producto> {
                     throw new Exception("Error al hacer rollback: " + rollbackEx.getMessage(), e);
                 }
             }
+            resincronizar(id, e);
             throw e;
         } finally {
             if (conn != null) {
@@ -451,4 +726,921 @@ public class ProductoService implements GenericService<Producto> {
             }
         }
     }
+    
+    /**
+     * Recupera un producto previamente eliminado (soft delete).
+     * 
+     * <p><b>Sin validación previa:</b> el UPDATE solo afecta productos
+     * eliminados, por lo que no hace falta leer el producto antes (y no hay
+     * ventana entre la verificación y la recuperación).</p>
+     *
+     * @param id ID del producto a recuperar
+     * @return {@link ResultadoOperacion#EXITO}, {@link ResultadoOperacion#NO_ENCONTRADO}
+     *         o {@link ResultadoOperacion#SIN_CAMBIOS} si el producto no estaba eliminado
+     * @throws Exception Si ocurre un error durante la transacción
+     * @see #eliminar(long)
+     */
+    public ResultadoOperacion recuperar(long id) throws Exception {
+        Connection conn = null;
+        try {
+            conn = DatabaseConnection.getConnection();
+            conn.setAutoCommit(false);
+
+            ResultadoOperacion resultado = productoDAO.recuperar(id, conn);
+
+            conn.commit();
+            if (resultado == ResultadoOperacion.EXITO) {
+                CACHE_PRODUCTOS.invalidar(id);
+                NOMBRES_INEXISTENTES.invalidarTodo();
+                actualizarCatalogo(List.of(id));
+                reindexar(id);
+            }
+            return resultado;
+        } catch (Exception e) {
+            if (conn != null) {
+                try {
+                    conn.rollback();
+                } catch (SQLException rollbackEx) {
+                    throw new Exception("Error al hacer rollback: " + rollbackEx.getMessage(), e);
+                }
+            }
+            resincronizar(id, e);
+            throw e;
+        } finally {
+            if (conn != null) {
+                try {
+                    conn.setAutoCommit(true);
+                    conn.close();
+                } catch (SQLException closeEx) {
+                    System.err.println("Error al cerrar conexión: " + closeEx.getMessage());
+                }
+            }
+        }
+    }
+    
+    /**
+     * Elimina lógicamente (soft delete) varios productos en una sola transacción.
+     *
+     * <p><b>Operación masiva:</b> en lugar de llamar a {@link #eliminar(long)}
+     * por cada ID (una conexión y una transacción por producto), ejecuta
+     * sentencias {@code UPDATE ... WHERE id IN (...)} por bloques.</p>
+     *
+     * @param ids IDs de los productos a eliminar
+     * @return Cantidad de productos eliminados (no cuenta los inexistentes ni los ya eliminados)
+     * @throws IllegalArgumentException Si la colección es null o contiene IDs no positivos
+     * @throws Exception Si ocurre un error durante la transacción
+     */
+    public int eliminar(Collection<Long> ids) throws Exception {
+        validarIds(ids);
+        
+        Connection conn = null;
+        try {
+            conn = DatabaseConnection.getConnection();
+            conn.setAutoCommit(false);
+            
+            int eliminados = productoDAO.eliminarPorIds(ids, conn);
+            
+            conn.commit();
+            for (Long id : ids) {
+                CACHE_PRODUCTOS.invalidar(id);
+                INDICE_NOMBRES.quitar(id);
+            }
+            actualizarCatalogo(ids);
+            return eliminados;
+        } catch (Exception e) {
+            if (conn != null) {
+                try {
+                    conn.rollback();
+                } catch (SQLException rollbackEx) {
+                    throw new Exception("Error al hacer rollback: " + rollbackEx.getMessage(), e);
+                }
+            }
+            throw e;
+        } finally {
+            if (conn != null) {
+                try {
+                    conn.setAutoCommit(true);
+                    conn.close();
+                } catch (SQLException closeEx) {
+                    System.err.println("Error al cerrar conexión: " + closeEx.getMessage());
+                }
+            }
+        }
+    }
+
+    /**
+     * Recupera varios productos eliminados en una sola transacción.
+     *
+     * @param ids IDs de los productos a recuperar
+     * @return Cantidad de productos recuperados (no cuenta los inexistentes ni los que no estaban eliminados)
+     * @throws IllegalArgumentException Si la colección es null o contiene IDs no positivos
+     * @throws Exception Si ocurre un error durante la transacción
+     * @see #eliminar(Collection)
+     */
+    public int recuperar(Collection<Long> ids) throws Exception {
+        validarIds(ids);
+        
+        Connection conn = null;
+        try {
+            conn = DatabaseConnection.getConnection();
+            conn.setAutoCommit(false);
+            
+            int recuperados = productoDAO.recuperarPorIds(ids, conn);
+            
+            conn.commit();
+            if (recuperados > 0) {
+                NOMBRES_INEXISTENTES.invalidarTodo();
+                for (Long id : ids) {
+                    CACHE_PRODUCTOS.invalidar(id);
+                }
+                actualizarCatalogo(ids);
+                reindexar(ids);
+            }
+            return recuperados;
+        } catch (Exception e) {
+            if (conn != null) {
+                try {
+                    conn.rollback();
+                } catch (SQLException rollbackEx) {
+                    throw new Exception("Error al hacer rollback: " + rollbackEx.getMessage(), e);
+                }
+            }
+            throw e;
+        } finally {
+            if (conn != null) {
+                try {
+                    conn.setAutoCommit(true);
+                    conn.close();
+                } catch (SQLException closeEx) {
+                    System.err.println("Error al cerrar conexión: " + closeEx.getMessage());
+                }
+            }
+        }
+    }
+
+    /**
+     * Elimina lógicamente todos los productos activos de una categoría
+     * (por ejemplo, al discontinuar una línea completa) con un único UPDATE.
+     *
+     * @param categoria Categoría a eliminar
+     * @return Cantidad de productos eliminados
+     * @throws IllegalArgumentException Si la categoría es null
+     * @throws Exception Si ocurre un error durante la transacción
+     */
+    public int eliminarPorCategoria(CategoriaProducto categoria) throws Exception {
+        if (categoria == null) {
+            throw new IllegalArgumentException("La categoría no puede ser null");
+        }
+        
+        Connection conn = null;
+        try {
+            conn = DatabaseConnection.getConnection();
+            conn.setAutoCommit(false);
+            
+            int eliminados = productoDAO.eliminarPorCategoria(categoria, conn);
+            
+            conn.commit();
+            if (eliminados > 0) {
+                CACHE_PRODUCTOS.invalidarTodo();
+                recargarCatalogo();
+                invalidarIndiceBusqueda();
+            }
+            return eliminados;
+        } catch (Exception e) {
+            if (conn != null) {
+                try {
+                    conn.rollback();
+                } catch (SQLException rollbackEx) {
+                    throw new Exception("Error al hacer rollback: " + rollbackEx.getMessage(), e);
+                }
+            }
+            throw e;
+        } finally {
+            if (conn != null) {
+                try {
+                    conn.setAutoCommit(true);
+                    conn.close();
+                } catch (SQLException closeEx) {
+                    System.err.println("Error al cerrar conexión: " + closeEx.getMessage());
+                }
+            }
+        }
+    }
+
+    /**
+     * Recupera todos los productos eliminados de una categoría con un único
+     * UPDATE, incluidos los que ya se movieron al archivo (ver
+     * {@link ArchivadorEliminados}).
+     *
+     * @param categoria Categoría a recuperar
+     * @return Cantidad de productos recuperados
+     * @throws IllegalArgumentException Si la categoría es null
+     * @throws Exception Si ocurre un error durante la transacción
+     * @see #eliminarPorCategoria(CategoriaProducto)
+     */
+    public int recuperarPorCategoria(CategoriaProducto categoria) throws Exception {
+        if (categoria == null) {
+            throw new IllegalArgumentException("La categoría no puede ser null");
+        }
+        
+        Connection conn = null;
+        try {
+            conn = DatabaseConnection.getConnection();
+            conn.setAutoCommit(false);
+            
+            int recuperados = productoDAO.recuperarPorCategoria(categoria, conn);
+            
+            conn.commit();
+            if (recuperados > 0) {
+                CACHE_PRODUCTOS.invalidarTodo();
+                NOMBRES_INEXISTENTES.invalidarTodo();
+                recargarCatalogo();
+                invalidarIndiceBusqueda();
+            }
+            return recuperados;
+        } catch (Exception e) {
+            if (conn != null) {
+                try {
+                    conn.rollback();
+                } catch (SQLException rollbackEx) {
+                    throw new Exception("Error al hacer rollback: " + rollbackEx.getMessage(), e);
+                }
+            }
+            throw e;
+        } finally {
+            if (conn != null) {
+                try {
+                    conn.setAutoCommit(true);
+                    conn.close();
+                } catch (SQLException closeEx) {
+                    System.err.println("Error al cerrar conexión: " + closeEx.getMessage());
+                }
+            }
+        }
+    }
+
+    /**
+     * Valida una colección de IDs para las operaciones masivas.
+     *
+     * @param ids IDs a validar
+     * @throws IllegalArgumentException Si la colección es null o contiene IDs null o no positivos
+     */
+    private void validarIds(Collection<Long> ids) {
+        if (ids == null) {
+            throw new IllegalArgumentException("La colección de IDs no puede ser null");
+        }
+        for (Long id : ids) {
+            if (id == null || id <= 0) {
+                throw new IllegalArgumentException("Todos los IDs deben ser mayores a 0 (se recibió " + id + ")");
+            }
+        }
+    }
+
+    /**
+     * Obtiene un producto por su ID.
+     * 
+     * <p><b>Nota:</b> Este método solo retorna productos activos (no eliminados).</p>
+     *
+     * <p><b>Caché:</b> la lectura pasa por una caché LRU con vencimiento que
+     * las escrituras de este servicio (y las de códigos de barras) invalidan.
+     * Cada llamada devuelve una copia, que puede modificarse libremente.</p>
+     *
+     * @param id ID del producto a buscar
+     * @return El producto encontrado o {@code null} si no existe o está eliminado
+     * @throws Exception Si ocurre un error en el acceso a datos
+     */
+    @Override
+    public Producto getById(long id) throws Exception {
+        CatalogoProductos.Instantanea catalogo = CATALOGO.instantanea();
+        if (catalogo != null) {
+            return catalogo.getById(id);
+        }
+        return CACHE_PRODUCTOS.obtener(id, productoDAO::getById);
+    }
+
+    /**
+     * Obtiene un producto directamente de la BD, sin pasar por el catálogo
+     * ni la caché.
+     *
+     * <p><b>Para editar:</b> conviene usarlo cuando el producto leído se va
+     * a modificar y guardar con {@link #actualizar(Producto)}: la versión
+     * leída es la vigente, así que no se produce un
+     * {@link ConflictoVersionException} por una copia desactualizada.</p>
+     *
+     * @param id ID del producto a buscar
+     * @return El producto encontrado o {@code null} si no existe o está eliminado
+     * @throws Exception Si ocurre un error en el acceso a datos
+     */
+    public Producto getByIdParaEditar(long id) throws Exception {
+        return productoDAO.getById(id);
+    }
+
+    /**
+     * Devuelve un resumen de uso de la caché de productos por ID.
+     *
+     * @return texto con aciertos, fallos, expulsiones y tiempo medio de carga
+     */
+    public static String getEstadisticasCache() {
+        return CACHE_PRODUCTOS.getEstadisticas();
+    }
+
+    /**
+     * Devuelve un resumen de uso de la caché de nombres inexistentes.
+     *
+     * @return texto con consultas evitadas, consultas hechas y ocupación
+     */
+    public static String getEstadisticasNombresInexistentes() {
+        return NOMBRES_INEXISTENTES.getEstadisticas();
+    }
+
+    /**
+     * Vacía la caché de productos. La usa {@link CodigoBarrasService} cuando
+     * modifica un código de barras, porque los productos guardan una copia
+     * del código asociado.
+     */
+    static void invalidarCacheProductos() {
+        CACHE_PRODUCTOS.invalidarTodo();
+    }
+
+    /**
+     * Actualiza en el catálogo en memoria los productos que referencian los
+     * códigos indicados. La usa {@link CodigoBarrasService} después de
+     * confirmar cambios en códigos de barras.
+     *
+     * @param idsCodigo IDs de los códigos de barras modificados
+     */
+    static void actualizarCatalogoPorCodigos(Collection<Long> idsCodigo) {
+        ProductoDAO dao = new ProductoDAO();
+        CATALOGO.aplicar(List.of(), () -> dao.getByCodigoBarrasIds(idsCodigo));
+    }
+
+    /**
+     * Carga desde la BD el catálogo en memoria de productos activos.
+     * Conviene llamarlo al iniciar la aplicación; después el servicio le
+     * aplica los cambios de cada escritura.
+     *
+     * @throws Exception Si ocurre un error en el acceso a datos
+     */
+    public void cargarCatalogo() throws Exception {
+        CATALOGO.recargar(productoDAO::stream);
+    }
+
+    /**
+     * Relee los productos escritos y los aplica al catálogo en memoria.
+     * Se llama después del commit; los IDs que ya no están activos se quitan.
+     */
+    private void actualizarCatalogo(Collection<Long> ids) {
+        CATALOGO.aplicar(ids, () -> productoDAO.getByIds(ids).values());
+    }
+
+    /**
+     * Tras una escritura fallida por conflicto de versión o error de la BD,
+     * vuelve a leer el producto para que la caché y el catálogo no sigan
+     * entregando una versión que ya no es la de la BD (y que haría fallar
+     * cada reintento). No lanza excepciones: el error original es el que se
+     * propaga.
+     */
+    private void resincronizar(long id, Exception e) {
+        if (e instanceof ConflictoVersionException || e instanceof SQLException) {
+            CACHE_PRODUCTOS.invalidar(id);
+            actualizarCatalogo(List.of(id));
+        }
+    }
+
+    /**
+     * Recarga el catálogo completo tras una escritura masiva cuyos IDs no se
+     * conocen. Si falla, el catálogo se descarta y las lecturas vuelven a la BD.
+     */
+    private void recargarCatalogo() {
+        if (CATALOGO.instantanea() == null) {
+            return;
+        }
+        try {
+            cargarCatalogo();
+        } catch (Exception e) {
+            CATALOGO.descartar();
+            System.err.println("Advertencia: Se descartó el catálogo en memoria: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Obtiene varios productos por su ID con una consulta por bloque de IDs.
+     *
+     * <p>Conviene frente a llamar a {@link #getById(long)} en un ciclo: usa
+     * una sola conexión y una cláusula {@code IN} en lugar de una consulta por producto.</p>
+     *
+     * @param ids IDs de los productos a buscar
+     * @return Mapa ID → producto en el orden recibido. Los IDs inexistentes o eliminados no aparecen
+     * @throws IllegalArgumentException Si la colección es null
+     * @throws Exception Si ocurre un error en el acceso a datos
+     */
+    public Map<Long, Producto> getByIds(Collection<Long> ids) throws Exception {
+        if (ids == null) {
+            throw new IllegalArgumentException("La colección de IDs no puede ser null");
+        }
+        CatalogoProductos.Instantanea catalogo = CATALOGO.instantanea();
+        if (catalogo != null) {
+            return catalogo.getByIds(ids);
+        }
+        return productoDAO.getByIds(ids);
+    }
+
+    /**
+     * Obtiene el producto correspondiente a un código de barras escaneado.
+     *
+     * <p>Resuelve código y producto en una única consulta indexada, sin pasar
+     * por {@link CodigoBarrasService#getByValor(String)}.</p>
+     *
+     * @param valor Valor exacto del código de barras
+     * @return El producto con su código de barras, o {@code null} si no existe o está eliminado
+     * @throws IllegalArgumentException Si el valor está vacío
+     * @throws Exception Si ocurre un error en el acceso a datos
+     */
+    public Producto getByCodigoValor(String valor) throws Exception {
+        if (valor == null || valor.trim().isEmpty()) {
+            throw new IllegalArgumentException("El valor del código de barras no puede estar vacío");
+        }
+        CatalogoProductos.Instantanea catalogo = CATALOGO.instantanea();
+        if (catalogo != null) {
+            return catalogo.getByCodigoValor(valor.trim());
+        }
+        return productoDAO.getByCodigoValor(valor.trim());
+    }
+
+    /**
+     * Obtiene los productos correspondientes a varios códigos de barras escaneados
+     * (por ejemplo, todos los de una compra) con una consulta por bloque de valores.
+     *
+     * @param valores Valores exactos de los códigos de barras
+     * @return Mapa valor → producto en el orden recibido. Los valores sin producto activo no aparecen
+     * @throws IllegalArgumentException Si la colección es null
+     * @throws Exception Si ocurre un error en el acceso a datos
+     */
+    public Map<String, Producto> getByCodigoValores(Collection<String> valores) throws Exception {
+        if (valores == null) {
+            throw new IllegalArgumentException("La colección de valores no puede ser null");
+        }
+        CatalogoProductos.Instantanea catalogo = CATALOGO.instantanea();
+        if (catalogo != null) {
+            return catalogo.getByCodigoValores(valores);
+        }
+        return productoDAO.getByCodigoValores(valores);
+    }
+
+    /**
+     * Obtiene todos los productos activos del sistema.
+     * 
+     * <p>Si el catálogo en memoria está cargado (ver {@link #cargarCatalogo()}),
+     * se devuelven copias de sus productos sin acceder a la BD.</p>
+     * 
+     * @return Lista de productos activos. Lista vacía si no hay productos
+     * @throws Exception Si ocurre un error en el acceso a datos
+     */
+    @Override
+    public List<Producto> getAll() throws Exception {
+        CatalogoProductos.Instantanea catalogo = CATALOGO.instantanea();
+        if (catalogo != null) {
+            return catalogo.getAll();
+        }
+        return productoDAO.getAll();
+    }
+
+    /**
+     * Obtiene una página de productos activos ordenados por ID (paginación por clave).
+     *
+     * @param despuesDeId ID del último elemento de la página anterior, o {@code 0} para la primera
+     * @param limite Cantidad máxima de elementos de la página
+     * @return Lista de productos de la página. Lista vacía si no hay más resultados
+     * @throws IllegalArgumentException Si el límite no es positivo
+     * @throws Exception Si ocurre un error en el acceso a datos
+     */
+    @Override
+    public List<Producto> getPage(long despuesDeId, int limite) throws Exception {
+        CatalogoProductos.Instantanea catalogo = CATALOGO.instantanea();
+        if (catalogo != null) {
+            validarLimite(limite);
+            return catalogo.getPage(despuesDeId, limite);
+        }
+        return productoDAO.getPage(despuesDeId, limite);
+    }
+
+    /**
+     * Obtiene una página de productos activos de una categoría.
+     * 
+     * <p><b>Filtrado en la base de datos:</b> Solo viajan las filas de la
+     * categoría pedida, usando el índice por categoría. Si el catálogo en
+     * memoria está cargado, la página se arma desde su índice por categoría
+     * sin acceder a la BD.</p>
+     *
+     * @param categoria Categoría a filtrar. No puede ser {@code null}
+     * @param despuesDeId ID del último producto de la página anterior, o {@code 0} para la primera
+     * @param limite Cantidad máxima de productos de la página
+     * @return Lista de productos de la página. Lista vacía si no hay más resultados
+     * @throws IllegalArgumentException Si la categoría es nula o el límite no es positivo
+     * @throws Exception Si ocurre un error en el acceso a datos
+     */
+    public List<Producto> getByCategoria(CategoriaProducto categoria, long despuesDeId, int limite) throws Exception {
+        if (categoria == null) {
+            throw new IllegalArgumentException("La categoría no puede ser null.");
+        }
+        CatalogoProductos.Instantanea catalogo = CATALOGO.instantanea();
+        if (catalogo != null) {
+            validarLimite(limite);
+            return catalogo.getByCategoria(categoria, despuesDeId, limite);
+        }
+        return productoDAO.getByCategoria(categoria, despuesDeId, limite);
+    }
+
+    /**
+     * Valida el límite de página cuando la consulta se resuelve en memoria,
+     * con el mismo mensaje que el DAO.
+     */
+    private static void validarLimite(int limite) {
+        if (limite <= 0) {
+            throw new IllegalArgumentException("El límite de la página debe ser mayor a 0.");
+        }
+    }
+
+    /**
+     * Busca productos por palabras del nombre o la marca, ordenados por relevancia.
+     * 
+     * <p><b>Búsqueda en la base de datos:</b> Usa un índice FULLTEXT sobre
+     * nombre y marca, sin distinguir mayúsculas ni acentos, y devuelve los
+     * resultados ya paginados.</p>
+     *
+     * @param texto Texto a buscar. No puede estar vacío
+     * @param pagina Número de página, comenzando en 0
+     * @param tamanioPagina Cantidad máxima de productos por página
+     * @return Lista de productos encontrados. Lista vacía si no hay coincidencias
+     * @throws IllegalArgumentException Si el texto está vacío o la página no es válida
+     * @throws Exception Si ocurre un error en el acceso a datos
+     */
+    public List<Producto> buscar(String texto, int pagina, int tamanioPagina) throws Exception {
+        if (texto == null || texto.trim().isEmpty()) {
+            throw new IllegalArgumentException("El texto a buscar no puede estar vacío.");
+        }
+        return productoDAO.buscar(texto, pagina, tamanioPagina);
+    }
+
+    /**
+     * Carga el índice de búsqueda en memoria con todos los productos activos.
+     * 
+     * <p>Debe llamarse al iniciar la aplicación. A partir de ese momento el
+     * índice se mantiene actualizado con cada inserción, actualización,
+     * eliminación y recuperación hecha a través de este servicio.</p>
+     *
+     * @throws Exception Si ocurre un error en el acceso a datos
+     */
+    public void cargarIndiceBusqueda() throws Exception {
+        synchronized (INDICE_NOMBRES) {
+            INDICE_NOMBRES.limpiar();
+            try (Stream<Producto> productos = productoDAO.stream()) {
+                productos.forEach(this::indexar);
+            }
+            indiceCargado = true;
+        }
+    }
+
+    /**
+     * Busca en memoria los productos cuyo nombre o marca contiene el texto.
+     * 
+     * <p><b>Sin acceso a la BD:</b> Usa el índice de trigramas, pensado para
+     * búsqueda mientras se escribe. No distingue mayúsculas ni acentos.</p>
+     *
+     * @param texto Texto a buscar
+     * @param limite Cantidad máxima de IDs a devolver
+     * @return IDs de los productos encontrados, de menor a mayor
+     * @throws Exception Si el índice no estaba cargado y falla su carga
+     */
+    public List<Long> buscarIdsPorTexto(String texto, int limite) throws Exception {
+        asegurarIndiceCargado();
+        return INDICE_NOMBRES.buscarSubcadena(texto, limite);
+    }
+
+    /**
+     * Busca en memoria los productos cuyo nombre o marca se parece al texto,
+     * tolerando errores de tipeo.
+     *
+     * @param texto Texto a buscar
+     * @param limite Cantidad máxima de IDs a devolver
+     * @return IDs de los productos encontrados, del más al menos parecido
+     * @throws Exception Si el índice no estaba cargado y falla su carga
+     */
+    public List<Long> buscarIdsAproximados(String texto, int limite) throws Exception {
+        asegurarIndiceCargado();
+        return INDICE_NOMBRES.buscarAproximado(texto, limite);
+    }
+
+    /**
+     * Descarta el índice en memoria para que se vuelva a cargar en la próxima
+     * búsqueda. Se usa tras operaciones masivas cuyos IDs afectados no se conocen.
+     */
+    private void invalidarIndiceBusqueda() {
+        synchronized (INDICE_NOMBRES) {
+            indiceCargado = false;
+            INDICE_NOMBRES.limpiar();
+        }
+    }
+
+    private void asegurarIndiceCargado() throws Exception {
+        if (!indiceCargado) {
+            synchronized (INDICE_NOMBRES) {
+                if (!indiceCargado) {
+                    cargarIndiceBusqueda();
+                }
+            }
+        }
+    }
+
+    private void indexar(Producto producto) {
+        String marca = producto.getMarca() != null ? producto.getMarca() : "";
+        INDICE_NOMBRES.poner(producto.getId(), producto.getNombre() + " " + marca);
+    }
+
+    /**
+     * Vuelve a indexar un producto leyéndolo de la BD, por ejemplo tras recuperarlo.
+     */
+    private void reindexar(long id) {
+        try {
+            Producto producto = productoDAO.getById(id);
+            if (producto != null) {
+                indexar(producto);
+            }
+        } catch (Exception e) {
+            System.err.println("Advertencia: No se pudo actualizar el índice de búsqueda: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Vuelve a indexar varios productos leyéndolos de la BD, tras una
+     * recuperación masiva. Como se llama después del commit, un error de
+     * lectura solo se informa: la recuperación ya quedó confirmada.
+     */
+    private void reindexar(Collection<Long> ids) {
+        try {
+            for (Producto producto : productoDAO.getByIds(ids).values()) {
+                indexar(producto);
+            }
+        } catch (Exception e) {
+            System.err.println("Advertencia: No se pudo actualizar el índice de búsqueda: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Obtiene la cantidad de productos activos de cada categoría.
+     *
+     * @return Mapa categoría → cantidad. Incluye todas las categorías, con 0 si no tienen productos
+     * @throws Exception Si ocurre un error en el acceso a datos
+     */
+    public Map<CategoriaProducto, Integer> contarPorCategoria() throws Exception {
+        return productoDAO.contarPorCategoria();
+    }
+
+    /**
+     * Busca un producto por su nombre exacto.
+     * 
+     * <p><b>Búsqueda exacta:</b> Este método realiza una búsqueda por coincidencia
+     * exacta del nombre. Para búsquedas parciales, use
+     * {@link #buscar(String, int, int)}.</p>
+     *
+     * <p><b>Nombres inexistentes:</b> un nombre que no se encontró se recuerda
+     * durante {@value #NOMBRES_INEXISTENTES_TTL_SEGUNDOS} segundos, y repetir la
+     * búsqueda en ese lapso no consulta la BD. Cualquier escritura de productos
+     * de este servicio olvida esos nombres.</p>
+     *
+     * @param nombre Nombre exacto del producto a buscar
+     * @return El producto encontrado o {@code null} si no existe
+     * @throws Exception Si ocurre un error en el acceso a datos
+     */
+    public Producto getByNombre(String nombre) throws Exception {
+        return NOMBRES_INEXISTENTES.obtener(nombre, productoDAO::getByNombre);
+    }
+    
+    /**
+     * Inserta un producto junto con su código de barras en una sola transacción atómica.
+     * 
+     * <p><b>Transacción compuesta:</b> Este método representa una operación
+     * transaccional compleja que involucra múltiples entidades. Si falla
+     * cualquier paso, se realiza rollback completo.</p>
+     * 
+     * <p><b>Flujo de la operación:</b>
+     * <ol>
+     *   <li>Valida el producto y el código de barras</li>
+     *   <li>Inserta el código de barras (la restricción UNIQUE rechaza valores repetidos)</li>
+     *   <li>Asocia el código al producto</li>
+     *   <li>Inserta el producto</li>
+     *   <li>Confirma la transacción (commit)</li>
+     * </ol>
+     * </p>
+     * 
+     * <p><b>Por qué es transaccional:</b> Garantiza que ambas entidades se
+     * persistan consistentemente, manteniendo la integridad de la relación 1→1.</p>
+     *
+     * @param producto Producto a insertar. No puede ser {@code null}
+     * @param codigo Código de barras a insertar y asociar al producto. No puede ser {@code null}
+     * @throws IllegalArgumentException Si las validaciones fallan o el código de barras ya existe
+     * @throws Exception Si ocurre un error durante la transacción
+     */
+    public void insertarConCodigoBarras(Producto producto, CodigoBarras codigo) throws Exception {
+        validarProducto(producto);
+        validarCodigoBarras(codigo);
+        
+        Connection conn = null;
+        try {
+            conn = DatabaseConnection.getConnection();
+            conn.setAutoCommit(false);
+            
+            DAO.CodigoBarrasDAO codigoBarrasDAO = new DAO.CodigoBarrasDAO();
+            
+            try {
+                codigoBarrasDAO.insertar(codigo, conn);
+            } catch (SQLException e) {
+                if (DAO.CodigoBarrasDAO.esValorDuplicado(e)) {
+                    throw new IllegalArgumentException("Ya existe un código de barras con el valor: " + codigo.getValor(), e);
+                }
+                throw e;
+            }
+            
+            producto.setCodigoBarras(codigo);
+            
+            productoDAO.insertar(producto, conn);
+            
+            conn.commit();
+            CACHE_PRODUCTOS.invalidar(producto.getId());
+            NOMBRES_INEXISTENTES.invalidarTodo();
+            actualizarCatalogo(List.of(producto.getId()));
+            indexar(producto);
+            CodigoBarrasService.indexarCodigo(codigo);
+        } catch (Exception e) {
+            if (conn != null) {
+                try {
+                    conn.rollback();
+                } catch (SQLException rollbackEx) {
+                    throw new Exception("Error al hacer rollback: " + rollbackEx.getMessage(), e);
+                }
+            }
+            throw e;
+        } finally {
+            if (conn != null) {
+                try {
+                    conn.setAutoCommit(true);
+                    conn.close();
+                } catch (SQLException closeEx) {
+                    System.err.println("Error al cerrar conexión: " + closeEx.getMessage());
+                }
+            }
+        }
+    }
+    
+    /**
+     * Inserta en bloque productos nuevos junto con sus códigos de barras.
+     *
+     * @param productos Productos a insertar, cada uno con su código de barras
+     *        asignado mediante {@link Producto#setCodigoBarras(CodigoBarras)}
+     * @throws IllegalArgumentException Si las validaciones fallan o algún valor ya existe
+     * @throws Exception Si ocurre un error durante la transacción
+     * @see #insertarLoteConCodigoBarras(List, int)
+     */
+    public void insertarLoteConCodigoBarras(List<Producto> productos) throws Exception {
+        insertarLoteConCodigoBarras(productos, ProductoDAO.TAMANIO_LOTE_DEFECTO);
+    }
+
+    /**
+     * Inserta en bloque productos nuevos junto con sus códigos de barras en una
+     * sola transacción atómica.
+     *
+     * <p>Versión masiva de {@link #insertarConCodigoBarras(Producto, CodigoBarras)}:
+     * cada producto de la lista debe traer su código de barras (aún no
+     * persistido) asignado, respetando la relación 1→1 unidireccional.</p>
+     *
+     * <p><b>Flujo de la operación:</b>
+     * <ol>
+     *   <li>Valida todos los productos y códigos, y que no haya valores repetidos en la lista</li>
+     *   <li>Verifica con consultas {@code IN} que ningún valor exista ya en la BD.
+     *       Los valores que el filtro de Bloom de {@link CodigoBarrasService}
+     *       descarta como nuevos no se consultan; si ninguno es un posible
+     *       duplicado, no hay consulta</li>
+     *   <li>Inserta todos los códigos de barras por lotes y obtiene sus IDs</li>
+     *   <li>Inserta todos los productos por lotes, ya asociados a sus códigos</li>
+     *   <li>Confirma la transacción (commit)</li>
+     * </ol>
+     * </p>
+     *
+     * @param productos Productos a insertar, cada uno con su código de barras asignado
+     * @param tamanioLote Cantidad de filas por lote JDBC. Debe ser mayor a 0
+     * @throws IllegalArgumentException Si las validaciones fallan, hay valores
+     *         repetidos o algún valor ya existe en la base de datos
+     * @throws Exception Si ocurre un error durante la transacción
+     */
+    public void insertarLoteConCodigoBarras(List<Producto> productos, int tamanioLote) throws Exception {
+        if (productos == null) {
+            throw new IllegalArgumentException("La lista de productos no puede ser null.");
+        }
+        if (tamanioLote <= 0) {
+            throw new IllegalArgumentException("El tamaño de lote debe ser mayor a 0.");
+        }
+        
+        List<CodigoBarras> codigos = new ArrayList<>(productos.size());
+        Set<String> valores = new HashSet<>();
+        for (int i = 0; i < productos.size(); i++) {
+            Producto producto = productos.get(i);
+            try {
+                if (producto == null) {
+                    throw new IllegalArgumentException("El producto no puede ser null.");
+                }
+                validarProducto(producto);
+                validarCodigoBarras(producto.getCodigoBarras());
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Producto en la posición " + i + ": " + e.getMessage(), e);
+            }
+            CodigoBarras codigo = producto.getCodigoBarras();
+            if (!valores.add(codigo.getValor())) {
+                throw new IllegalArgumentException("El valor de código de barras " + codigo.getValor() + " está repetido en la carga.");
+            }
+            codigos.add(codigo);
+        }
+        if (productos.isEmpty()) {
+            return;
+        }
+        
+        Connection conn = null;
+        try {
+            conn = DatabaseConnection.getConnection();
+            conn.setAutoCommit(false);
+            
+            DAO.CodigoBarrasDAO codigoBarrasDAO = new DAO.CodigoBarrasDAO();
+            
+            // Solo se consultan los valores que el filtro no puede descartar
+            Set<String> posibles = new HashSet<>();
+            for (String valor : valores) {
+                if (CodigoBarrasService.puedeExistirValor(valor)) {
+                    posibles.add(valor);
+                }
+            }
+            Set<String> existentes = codigoBarrasDAO.getValoresExistentes(posibles, conn);
+            if (!existentes.isEmpty()) {
+                throw new IllegalArgumentException("Ya existen códigos de barras con los valores: " + existentes);
+            }
+            
+            try {
+                codigoBarrasDAO.insertarLote(codigos, tamanioLote, conn);
+            } catch (SQLException e) {
+                // Otro usuario registró alguno de los valores después de la verificación
+                if (DAO.CodigoBarrasDAO.esValorDuplicado(e)) {
+                    throw new IllegalArgumentException("Ya existen códigos de barras con alguno de los valores de la carga.", e);
+                }
+                throw e;
+            }
+            
+            productoDAO.insertarLote(productos, tamanioLote, conn);
+            
+            conn.commit();
+            NOMBRES_INEXISTENTES.invalidarTodo();
+            for (Producto producto : productos) {
+                CACHE_PRODUCTOS.invalidar(producto.getId());
+                indexar(producto);
+                CodigoBarrasService.indexarCodigo(producto.getCodigoBarras());
+            }
+            actualizarCatalogo(productos.stream().map(Producto::getId).toList());
+        } catch (Exception e) {
+            if (conn != null) {
+                try {
+                    conn.rollback();
+                } catch (SQLException rollbackEx) {
+                    throw new Exception("Error al hacer rollback: " + rollbackEx.getMessage(), e);
+                }
+            }
+            throw e;
+        } finally {
+            if (conn != null) {
+                try {
+                    conn.setAutoCommit(true);
+                    conn.close();
+                } catch (SQLException closeEx) {
+                    System.err.println("Error al cerrar conexión: " + closeEx.getMessage());
+                }
+            }
+        }
+    }
+    
+    /**
+     * Valida los datos mínimos de un código de barras que se crea junto con un producto.
+     *
+     * @param codigo Código de barras a validar
+     * @throws IllegalArgumentException Si alguna validación falla, con mensaje descriptivo
+     */
+    private void validarCodigoBarras(CodigoBarras codigo) throws IllegalArgumentException {
+        if (codigo == null) {
+            throw new IllegalArgumentException("El código de barras no puede ser null.");
+        }
+        if (codigo.getTipo() == null) {
+            throw new IllegalArgumentException("El tipo de código de barras no puede ser null.");
+        }
+        if (codigo.getValor() == null || codigo.getValor().trim().isEmpty()) {
+            throw new IllegalArgumentException("El valor del código de barras no puede estar vacío.");
+        }
+        if (codigo.getFechaAsignacion() == null) {
+            throw new IllegalArgumentException("La fecha de asignación no puede ser null.");
+        }
+    }
 }
\ No newline at end of file